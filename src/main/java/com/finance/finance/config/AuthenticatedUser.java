@@ -0,0 +1,68 @@
+package com.finance.finance.config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Security principal that also carries the user id, so controllers can refer
+ * to the current user without another users table lookup.
+ */
+public class AuthenticatedUser extends User {
+
+    private final Long id;
+    private final String roles;
+
+    public AuthenticatedUser(Long id, String username, String password, String roles, boolean enabled) {
+        super(username, password, enabled, true, true, true, authoritiesFromRoles(roles));
+        this.id = id;
+        this.roles = roles;
+    }
+
+    // Principal built purely from verified JWT claims (stateless mode)
+    public static AuthenticatedUser fromToken(VerifiedToken token) {
+        return new AuthenticatedUser(token.getUserId(), token.getSubject(), "", token.getRoles(), true);
+    }
+
+    // Converter roles string ("USER,ADMIN") em authorities
+    public static List<GrantedAuthority> authoritiesFromRoles(String roles) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (roles == null || roles.isBlank()) {
+            return authorities;
+        }
+        for (String role : roles.split(",")) {
+            if (!role.isBlank()) {
+                authorities.add(new SimpleGrantedAuthority("ROLE_" + role.trim()));
+            }
+        }
+        return authorities;
+    }
+
+    public AuthenticatedUser withoutPassword() {
+        return new AuthenticatedUser(id, getUsername(), "", roles, isEnabled());
+    }
+
+    /**
+     * Detached reference to the user row, usable as a query parameter or as the
+     * owner of a new entity without loading the user.
+     */
+    public com.finance.finance.entity.User toUserReference() {
+        com.finance.finance.entity.User user = new com.finance.finance.entity.User();
+        user.setId(id);
+        user.setUsername(getUsername());
+        user.setRoles(roles);
+        user.setEnabled(isEnabled());
+        return user;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRoles() {
+        return roles;
+    }
+}
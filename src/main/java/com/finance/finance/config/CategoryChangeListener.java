@@ -0,0 +1,29 @@
+package com.finance.finance.config;
+
+import com.finance.finance.entity.Category;
+import com.finance.finance.service.CategoryCatalog;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link Category}: every insert, update or delete, whether made
+ * through CategoryService or a repository, invalidates the in-memory catalog.
+ */
+@Component
+public class CategoryChangeListener {
+
+    @Autowired
+    @Lazy
+    private CategoryCatalog categoryCatalog;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onCategoryChanged(Category category) {
+        categoryCatalog.categoryChanged();
+    }
+}
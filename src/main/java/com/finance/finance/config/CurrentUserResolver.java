@@ -0,0 +1,30 @@
+package com.finance.finance.config;
+
+import com.finance.finance.entity.User;
+import com.finance.finance.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the {@link User} behind the current authentication. Principals set
+ * by JwtAuthenticationFilter carry the user id, so the common path needs no query.
+ */
+@Component
+public class CurrentUserResolver {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    public User resolve(Authentication authentication) {
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof AuthenticatedUser authenticatedUser && authenticatedUser.getId() != null) {
+            return authenticatedUser.toUserReference();
+        }
+        if (principal instanceof User user) {
+            return user;
+        }
+        return userRepository.findByUsername(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+}
@@ -19,18 +19,12 @@ public class CustomUserDetailsService implements UserDetailsService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        // Converter roles string em authorities
-        String[] roles = user.getRoles().split(",");
-        String[] authorities = new String[roles.length];
-        for (int i = 0; i < roles.length; i++) {
-            authorities[i] = "ROLE_" + roles[i].trim();
-        }
-
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .authorities(authorities)
-                .disabled(!user.getEnabled())
-                .build();
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getUsername(),
+                user.getPassword(),
+                user.getRoles(),
+                user.getEnabled()
+        );
     }
 }
@@ -0,0 +1,38 @@
+package com.finance.finance.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * The one place that tells PostgreSQL from H2, for the few native statements
+ * the two spell differently: PostgreSQL gets INSERT ... ON CONFLICT DO UPDATE,
+ * which is atomic under concurrent first inserts, and H2 (tests) gets MERGE.
+ * Every shard runs the same database, so the answer is read once.
+ */
+@Component
+public class DatabaseDialect {
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Resolved on first use, when a connection can be had
+    private volatile Boolean h2;
+
+    public boolean isH2() {
+        Boolean h2 = this.h2;
+        if (h2 == null) {
+            try {
+                h2 = "H2".equals(JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+            } catch (MetaDataAccessException e) {
+                throw new IllegalStateException("Could not determine the database type", e);
+            }
+            this.h2 = h2;
+        }
+        return h2;
+    }
+}
@@ -0,0 +1,110 @@
+package com.finance.finance.config;
+
+import com.finance.finance.service.CashFlowVersionService;
+import com.finance.finance.service.CategoryCatalog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Strong ETags for listings, so a conditional GET is answered with 304 without
+ * touching the database.
+ *
+ * Category listings use the in-memory category catalog version. Cash flow
+ * listings use the user's data version from cash_flow_versions
+ * (CashFlowVersionService), which every write bumps in its own transaction, plus
+ * the category version since entries embed their category. The If-None-Match
+ * check compares against the version this node holds for the user: read again
+ * every finance.etag.version-check-ms and moved forward by this node's own
+ * commits, so a write made on another node can be answered with 304 for at most
+ * that long. A 200 takes its tag from the version read in the same transaction
+ * as the rows, and before them: a write committing in between can only make the
+ * body newer than its tag, never older, so the tag never vouches for rows it
+ * does not describe, whichever node or replica served it.
+ */
+@Component
+public class ETagSupport {
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    @Autowired
+    private CashFlowVersionService cashFlowVersionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final boolean cashFlowETagsEnabled;
+
+    private final Counter notModifiedCounter;
+
+    public ETagSupport(MeterRegistry meterRegistry,
+                       @Value("${finance.etag.cashflow.enabled:true}") boolean cashFlowETagsEnabled) {
+        this.cashFlowETagsEnabled = cashFlowETagsEnabled;
+        this.notModifiedCounter = Counter.builder("finance.http.not_modified")
+                .description("Conditional GETs answered with 304 Not Modified")
+                .register(meterRegistry);
+    }
+
+    public String categoriesETag() {
+        return "c" + categoryCatalog.getVersion();
+    }
+
+    // Tag for the If-None-Match check, from this node's recent version; null when cash flow ETags are disabled
+    public String cashFlowsETag(Long userId) {
+        if (!cashFlowETagsEnabled) {
+            return null;
+        }
+        return cashFlowsETag(userId, cashFlowVersionService.recent(userId));
+    }
+
+    /**
+     * Runs the listing query in one read-only transaction after reading the data
+     * version, and returns it as a 200 tagged with that version.
+     */
+    public <T> ResponseEntity<T> cashFlowsOk(Long userId, Supplier<T> query) {
+        if (!cashFlowETagsEnabled) {
+            return ok(null, query.get());
+        }
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> {
+            String etag = cashFlowsETag(userId, cashFlowVersionService.current(userId));
+            return ok(etag, query.get());
+        });
+    }
+
+    private String cashFlowsETag(Long userId, long version) {
+        return "f" + userId + "-" + version + "-c" + categoryCatalog.getVersion();
+    }
+
+    /**
+     * True when the request's If-None-Match matches; the response is then already
+     * a 304 carrying the tag and the handler must return null.
+     */
+    public boolean notModified(WebRequest request, String etag) {
+        if (etag != null && request.checkNotModified(etag)) {
+            notModifiedCounter.increment();
+            return true;
+        }
+        return false;
+    }
+
+    // 200 with the tag; clients must revalidate before reusing the body
+    public <T> ResponseEntity<T> ok(String etag, T body) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate());
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        return builder.body(body);
+    }
+}
@@ -1,5 +1,6 @@
 package com.finance.finance.config;
 
+import com.finance.finance.service.TokenRevocationService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,6 +24,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -30,13 +37,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String requestTokenHeader = request.getHeader("Authorization");
 
         String username = null;
-        String jwtToken = null;
+        VerifiedToken verifiedToken = null;
 
         // JWT Token está no formato "Bearer token". Remove a palavra Bearer e obtém apenas o Token
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtConfig.getUsernameFromToken(jwtToken);
+                // Assinatura e expiração verificadas uma única vez por requisição
+                verifiedToken = jwtConfig.verify(jwtToken);
+                username = verifiedToken.getSubject();
                 logger.debug("JWT Token parsed successfully for user: " + username);
             } catch (Exception e) {
                 logger.error("Unable to get JWT Token or JWT Token has expired: " + e.getMessage());
@@ -47,18 +56,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         // Uma vez obtido o token, valida o token
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            logger.debug("Attempting to load user details for: " + username);
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails;
+            boolean isValidToken;
+            if (jwtConfig.isStatelessEnabled() && verifiedToken.getUserId() != null) {
+                // Modo stateless: principal montado só com as claims verificadas, sem consulta ao banco
+                userDetails = AuthenticatedUser.fromToken(verifiedToken);
+                isValidToken = !verifiedToken.isExpired() && !tokenRevocationService.isRevoked(verifiedToken);
+            } else {
+                logger.debug("Attempting to load user details for: " + username);
+                userDetails = principalCache.get(username, this.userDetailsService::loadUserByUsername);
 
-            // se o token é válido, configure Spring Security para configurar manualmente
-            // autenticação
-            boolean isValidToken = jwtConfig.validateToken(jwtToken, userDetails);
+                // se o token é válido, configure Spring Security para configurar manualmente
+                // autenticação
+                isValidToken = userDetails.isEnabled() && verifiedToken.isValidFor(userDetails)
+                        && !tokenRevocationService.isRevoked(verifiedToken);
+            }
             logger.debug("Token validation result: " + isValidToken);
             
             if (isValidToken) {
                 logger.debug("Setting authentication context for user: " + username);
+                // O token verificado fica como credencial para o logout poder revogá-lo
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+                        userDetails, verifiedToken, userDetails.getAuthorities());
                 usernamePasswordAuthenticationToken
                         .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 // Depois de definir a Autenticação no contexto, especificamos
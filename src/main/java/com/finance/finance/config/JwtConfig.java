@@ -1,9 +1,11 @@
 package com.finance.finance.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -12,17 +14,48 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtConfig {
 
+    public static final String ROLES_CLAIM = "roles";
+    public static final String USER_ID_CLAIM = "uid";
+
     @Value("${jwt.secret:FinanceAppSecretKey2024!@#$%^&*()FinanceAppSecretKey2024!@#$%^&*()FinanceAppSecretKey2024!@#$%^&*()FinanceAppSecretKey2024!@#$%^&*()}")
     private String secret;
 
     @Value("${jwt.expiration:3600000}") // 1 hora em milissegundos
     private Long expiration;
 
+    // Modo stateless: autenticação apenas pelas claims, com tokens de vida curta
+    @Value("${jwt.stateless.enabled:false}")
+    private boolean statelessEnabled;
+
+    @Value("${jwt.stateless.expiration:900000}") // 15 minutos em milissegundos
+    private Long statelessExpiration;
+
+    // Key and parser are immutable and thread-safe, so build them once
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        this.signingKey = buildSigningKey();
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    /**
+     * Parses and verifies the token exactly once (signature and expiry).
+     * Throws a {@link io.jsonwebtoken.JwtException} if the token is invalid.
+     */
+    public VerifiedToken verify(String token) {
+        return VerifiedToken.fromClaims(getAllClaimsFromToken(token));
+    }
+
     public String getUsernameFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
     }
@@ -37,16 +70,7 @@ public class JwtConfig {
     }
 
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -56,7 +80,14 @@ public class JwtConfig {
 
     public String generateToken(String username, String roles) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", roles);
+        claims.put(ROLES_CLAIM, roles);
+        return createToken(claims, username);
+    }
+
+    public String generateToken(Long userId, String username, String roles) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES_CLAIM, roles);
+        claims.put(USER_ID_CLAIM, userId);
         return createToken(claims, username);
     }
 
@@ -64,26 +95,26 @@ public class JwtConfig {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .setExpiration(new Date(System.currentTimeMillis() + getExpiration()))
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return verify(token).isValidFor(userDetails);
     }
 
     public Boolean validateToken(String token) {
         try {
-            return !isTokenExpired(token);
+            return !verify(token).isExpired();
         } catch (Exception e) {
             return false;
         }
     }
 
-    private SecretKey getSigningKey() {
+    private SecretKey buildSigningKey() {
         // Use the configured secret from application.properties
         // Convert the string secret to a proper SecretKey for HS512
         byte[] keyBytes = secret.getBytes();
@@ -98,6 +129,10 @@ public class JwtConfig {
     }
 
     public Long getExpiration() {
-        return expiration;
+        return statelessEnabled ? statelessExpiration : expiration;
+    }
+
+    public boolean isStatelessEnabled() {
+        return statelessEnabled;
     }
 }
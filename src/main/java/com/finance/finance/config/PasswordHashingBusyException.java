@@ -0,0 +1,16 @@
+package com.finance.finance.config;
+
+/**
+ * Thrown when the password hashing executor is saturated, so the caller can
+ * answer 503 right away instead of queueing behind a login storm.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,121 @@
+package com.finance.finance.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-based cache of authenticated principals keyed by username.
+ * Sits in front of CustomUserDetailsService on the JWT filter path so a
+ * valid token does not cost a users table lookup on every request.
+ */
+@Component
+public class PrincipalCache {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<String, CachedPrincipal> entries;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${finance.security.principal-cache.max-size:10000}") int maxSize,
+                          @Value("${finance.security.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000;
+        // Access-ordered so the eldest entry is always the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                return size() > PrincipalCache.this.maxSize;
+            }
+        };
+        this.hitCounter = Counter.builder("finance.auth.principal.cache")
+                .description("Principal cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("finance.auth.principal.cache")
+                .description("Principal cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.evictionCounter = Counter.builder("finance.auth.principal.cache.evictions")
+                .description("Principals evicted after a user change")
+                .register(meterRegistry);
+        Gauge.builder("finance.auth.principal.cache.size", this, PrincipalCache::size)
+                .description("Number of cached principals")
+                .register(meterRegistry);
+    }
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CachedPrincipal cached = entries.get(username);
+            if (cached != null && cached.expiresAt > now) {
+                hitCounter.increment();
+                return cached.principal;
+            }
+        }
+
+        // Load outside the lock; a concurrent miss for the same user just loads twice
+        missCounter.increment();
+        UserDetails principal = withoutCredentials(loader.apply(username));
+        if (ttlMillis > 0 && maxSize > 0) {
+            synchronized (entries) {
+                entries.put(username, new CachedPrincipal(principal, now + ttlMillis));
+            }
+        }
+        return principal;
+    }
+
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        synchronized (entries) {
+            if (entries.remove(username) != null) {
+                evictionCounter.increment();
+            }
+        }
+    }
+
+    public void evictAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // The filter never checks passwords, so keep the hash out of a long-lived structure
+    private UserDetails withoutCredentials(UserDetails userDetails) {
+        if (userDetails instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.withoutPassword();
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password("")
+                .build();
+    }
+
+    private static final class CachedPrincipal {
+        private final UserDetails principal;
+        private final long expiresAt;
+
+        private CachedPrincipal(UserDetails principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
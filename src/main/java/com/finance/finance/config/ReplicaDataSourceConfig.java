@@ -0,0 +1,84 @@
+package com.finance.finance.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas for read-only transactions. Only active when
+ * finance.datasource.replica.urls is set; otherwise Spring Boot's single
+ * DataSource is used unchanged. Replaced by ShardingConfig when sharding is
+ * enabled.
+ */
+@Configuration
+@ConditionalOnExpression("!'${finance.datasource.replica.urls:}'.isEmpty() && !${finance.sharding.enabled:false}")
+public class ReplicaDataSourceConfig {
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    // Bound like Spring Boot's own pool, so spring.datasource.hikari.* still applies to the primary
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        return primary;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${finance.datasource.replica.urls}") List<String> urls,
+            @Value("${finance.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${finance.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${finance.datasource.replica.max-lag-ms:5000}") long maxLagMs,
+            @Value("${finance.datasource.replica.lag-query:" + ReplicaRoutingDataSource.DEFAULT_LAG_QUERY + "}") String lagQuery) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMs, lagQuery, meterRegistry);
+        routingDataSource.afterPropertiesSet();
+        routingDataSource.refreshHealth();
+        return routingDataSource;
+    }
+
+    // The application DataSource: defers the physical connection until the read-only flag is known
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${finance.datasource.replica.health-check-ms:5000}")
+    public void checkReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.refreshHealth();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.finance.finance.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends work inside a read-only transaction to one of the replicas (round robin)
+ * and everything else to the primary. A replica is only used while its last
+ * health check succeeded with a replication lag under the configured limit;
+ * with no usable replica, reads fall back to the primary.
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy: the transaction's read-only
+ * flag is only visible once the transaction has started, so the physical
+ * connection has to be fetched on first use rather than at transaction begin.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public static final String PRIMARY = "primary";
+
+    // Caught up when everything received has been replayed; an idle primary writes no new
+    // transactions, so the replay timestamp alone would report ever-growing lag
+    public static final String DEFAULT_LAG_QUERY =
+            "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE CAST(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000 AS bigint) END";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLagMs;
+    private final String lagQuery;
+
+    private final Counter replicaReadCounter;
+    private final Counter fallbackCounter;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources, long maxLagMs,
+                                    String lagQuery, MeterRegistry meterRegistry) {
+        this.maxLagMs = maxLagMs;
+        this.lagQuery = lagQuery;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicaDataSources.get(i));
+            replicas.add(replica);
+            targets.put(replica.name, replica.dataSource);
+            Gauge.builder("finance.datasource.replica.lag", replica, r -> r.lagMs)
+                    .description("Replication lag seen by the last health check (ms, -1 if unreachable)")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.replicaReadCounter = Counter.builder("finance.datasource.routing")
+                .description("Read-only transactions by routing target")
+                .tag("target", "replica")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("finance.datasource.routing")
+                .description("Read-only transactions by routing target")
+                .tag("target", "primary_fallback")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                replicaReadCounter.increment();
+                return replica.name;
+            }
+        }
+        fallbackCounter.increment();
+        return PRIMARY;
+    }
+
+    // Routing decision for the current thread; exposed for diagnostics and tests
+    public String currentTarget() {
+        return (String) determineCurrentLookupKey();
+    }
+
+    // Probes every replica with the lag query; unreachable or lagging replicas stop receiving reads
+    public void refreshHealth() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                // NULL lag: nothing replayed yet, or the node is not in recovery
+                long lag = rs.next() ? rs.getLong(1) : 0;
+                replica.lagMs = lag;
+                replica.healthy = lag <= maxLagMs;
+            } catch (Exception e) {
+                replica.lagMs = -1;
+                replica.healthy = false;
+            }
+            if (wasHealthy != replica.healthy) {
+                logger.warn("Replica {} is now {} (lag {} ms)", replica.name,
+                        replica.healthy ? "in rotation" : "out of rotation", replica.lagMs);
+            }
+        }
+    }
+
+    public void close() {
+        for (Object target : List.copyOf(getResolvedDataSources().values())) {
+            if (target instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("Could not close data source: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagMs = -1;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.finance.finance.config;
+
+import com.finance.finance.entity.ShardAssignment;
+import com.finance.finance.repository.ShardAssignmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which shard holds a user's cash flows. Users are placed on a
+ * consistent-hash ring (each shard owns finance.sharding.virtual-nodes points),
+ * so adding a shard only changes placement for the ring segments it takes over.
+ * Rows in shard_assignments override the ring. Every user is pinned there,
+ * on creation or by ShardRebalancer at startup, so the ring only decides where
+ * a user starts out and appending a shard never strands existing rows.
+ *
+ * shard-0 is the home shard (spring.datasource): it also holds users,
+ * categories, tokens and the assignments themselves. shard-1..N come from
+ * finance.sharding.shard-urls. With sharding disabled every user is on shard-0.
+ */
+@Component
+public class ShardMap {
+
+    public static final String HOME = "shard-0";
+
+    @Autowired
+    @Lazy
+    private ShardAssignmentRepository shardAssignmentRepository;
+
+    private final boolean enabled;
+    private final List<String> shards;
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    // Snapshot of shard_assignments, replaced wholesale on refresh
+    private volatile Map<Long, ShardAssignment> assignments = Map.of();
+
+    public ShardMap(@Value("${finance.sharding.enabled:false}") boolean enabled,
+                    @Value("${finance.sharding.shard-urls:}") List<String> shardUrls,
+                    @Value("${finance.sharding.virtual-nodes:128}") int virtualNodes) {
+        this.enabled = enabled;
+        List<String> names = new ArrayList<>();
+        names.add(HOME);
+        if (enabled) {
+            for (String url : shardUrls) {
+                if (!url.isBlank()) {
+                    names.add(shardName(names.size()));
+                }
+            }
+        }
+        this.shards = Collections.unmodifiableList(names);
+        for (String shard : shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    public static String shardName(int index) {
+        return "shard-" + index;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<String> getShards() {
+        return shards;
+    }
+
+    // Shard currently serving the user: the pin if there is one, otherwise the ring
+    public String shardFor(Long userId) {
+        if (!enabled || userId == null) {
+            return HOME;
+        }
+        ShardAssignment assignment = assignments.get(userId);
+        return assignment != null ? assignment.getShard() : ringShardFor(userId);
+    }
+
+    // Placement by the ring alone, ignoring pins
+    public String ringShardFor(Long userId) {
+        if (!enabled) {
+            return HOME;
+        }
+        SortedMap<Long, String> tail = ring.tailMap(hash("user:" + userId));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    public boolean isMoving(Long userId) {
+        ShardAssignment assignment = enabled ? assignments.get(userId) : null;
+        return assignment != null && assignment.getState() == ShardAssignment.State.MOVING;
+    }
+
+    // Called before writing a user's cash flows
+    public void ensureWritable(Long userId) {
+        if (isMoving(userId)) {
+            throw new ShardMoveInProgressException("Cash flows of user " + userId + " are being moved to another shard");
+        }
+    }
+
+    // Periodic so pins written by another node's rebalancer are picked up
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${finance.sharding.assignment-refresh-ms:5000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        List<ShardAssignment> rows = ShardContext.callOn(HOME, () -> shardAssignmentRepository.findAll());
+        assignments = rows.stream().collect(Collectors.toUnmodifiableMap(ShardAssignment::getUserId, Function.identity()));
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (digest[i] & 0xff);
+            }
+            return value;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
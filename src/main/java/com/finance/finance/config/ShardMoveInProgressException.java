@@ -0,0 +1,12 @@
+package com.finance.finance.config;
+
+/**
+ * Thrown when a user's cash flows are being moved to another shard; writes are
+ * refused until the move finishes so no row is left behind on the old shard.
+ */
+public class ShardMoveInProgressException extends RuntimeException {
+
+    public ShardMoveInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,59 @@
+package com.finance.finance.config;
+
+import com.finance.finance.entity.Category;
+import com.finance.finance.entity.User;
+import com.finance.finance.service.ShardReferenceSync;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link User} and {@link Category}: cash flows on every shard
+ * reference these rows, so changes made on the home shard are copied to the
+ * other shards once committed. New users are pinned to their shard. Does
+ * nothing unless sharding is enabled.
+ */
+@Component
+public class ShardReferenceListener {
+
+    @Autowired
+    private ObjectProvider<ShardReferenceSync> shardReferenceSync;
+
+    @PostPersist
+    public void onCreated(Object entity) {
+        onChanged(entity);
+        ShardReferenceSync sync = shardReferenceSync.getIfAvailable();
+        if (sync != null && entity instanceof User user) {
+            sync.pinAfterCommit(user.getId());
+        }
+    }
+
+    @PostUpdate
+    public void onChanged(Object entity) {
+        ShardReferenceSync sync = shardReferenceSync.getIfAvailable();
+        if (sync == null) {
+            return;
+        }
+        if (entity instanceof User user) {
+            sync.copyAfterCommit(ShardReferenceSync.USERS, user.getId());
+        } else if (entity instanceof Category category) {
+            sync.copyAfterCommit(ShardReferenceSync.CATEGORIES, category.getId());
+        }
+    }
+
+    @PostRemove
+    public void onRemoved(Object entity) {
+        ShardReferenceSync sync = shardReferenceSync.getIfAvailable();
+        if (sync == null) {
+            return;
+        }
+        if (entity instanceof User user) {
+            sync.removeAfterCommit(ShardReferenceSync.USERS, user.getId());
+        } else if (entity instanceof Category category) {
+            sync.removeAfterCommit(ShardReferenceSync.CATEGORIES, category.getId());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.finance.finance.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shard pools for finance.sharding.enabled=true. spring.datasource is the home
+ * shard (shard-0); each URL in finance.sharding.shard-urls adds shard-1, shard-2, ...
+ * in order, so the list may only ever be appended to.
+ *
+ * Extra shards get the same Flyway migrations as the home shard, and their
+ * cash_flows_seq starts at shard * {@value #SHARD_ID_SPAN} so cash flow ids stay
+ * unique across shards and a user's rows keep their ids when moved.
+ */
+@Configuration
+@ConditionalOnProperty(name = "finance.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfig.class);
+
+    // Below 2^53 for the first few thousand shards, so ids survive JSON clients
+    static final long SHARD_ID_SPAN = 1_000_000_000_000L;
+
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(
+            DataSourceProperties properties,
+            @Value("${finance.sharding.shard-urls}") List<String> urls,
+            @Value("${finance.sharding.username:${spring.datasource.username:}}") String username,
+            @Value("${finance.sharding.password:${spring.datasource.password:}}") String password,
+            @Value("${spring.flyway.enabled:true}") boolean flywayEnabled,
+            @Value("${spring.flyway.locations:classpath:db/migration}") String[] flywayLocations) {
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        HikariDataSource home = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        home.setPoolName(ShardMap.HOME);
+        shards.put(ShardMap.HOME, home);
+
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            int index = shards.size();
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName(ShardMap.shardName(index));
+            shard.setJdbcUrl(url.trim());
+            shard.setUsername(username);
+            shard.setPassword(password);
+            shard.setDriverClassName(properties.determineDriverClassName());
+            if (flywayEnabled) {
+                Flyway.configure().dataSource(shard).locations(flywayLocations).load().migrate();
+            }
+            alignCashFlowSequence(shard, index);
+            shards.put(shard.getPoolName(), shard);
+        }
+
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource(shards);
+        routingDataSource.afterPropertiesSet();
+        logger.info("Sharding enabled with {} shards", shards.size());
+        return routingDataSource;
+    }
+
+    // The application DataSource: the shard is picked when the connection is first used
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    private void alignCashFlowSequence(DataSource dataSource, int index) {
+        long start = index * SHARD_ID_SPAN + 1;
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (isH2(dataSource)) {
+            Long current = jdbcTemplate.queryForObject(
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'CASH_FLOWS_SEQ'", Long.class);
+            if (current != null && current < start) {
+                jdbcTemplate.execute("ALTER SEQUENCE cash_flows_seq RESTART WITH " + start);
+            }
+        } else {
+            Long current = jdbcTemplate.queryForObject("SELECT last_value FROM cash_flows_seq", Long.class);
+            if (current != null && current < start) {
+                jdbcTemplate.queryForObject("SELECT setval('cash_flows_seq', ?, false)", Long.class, start);
+            }
+        }
+    }
+
+    private boolean isH2(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return "H2".equals(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not reach shard " + dataSource, e);
+        }
+    }
+}
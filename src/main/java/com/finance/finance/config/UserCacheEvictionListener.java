@@ -0,0 +1,75 @@
+package com.finance.finance.config;
+
+import com.finance.finance.entity.User;
+import com.finance.finance.service.TokenRevocationService;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+
+/**
+ * JPA listener on {@link User} that drops the cached principal whenever the
+ * user row changes (password, roles, enabled flag) or is removed, and revokes
+ * previously issued tokens when security-relevant fields change.
+ */
+@Component
+public class UserCacheEvictionListener {
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    @Lazy
+    private TokenRevocationService tokenRevocationService;
+
+    @PostLoad
+    @PostPersist
+    public void onUserLoaded(User user) {
+        user.rememberSecurityState();
+    }
+
+    @PreUpdate
+    public void onUserUpdating(User user) {
+        if (user.hasSecurityStateChanged()) {
+            user.setTokensValidAfter(Instant.now());
+        }
+    }
+
+    @PostUpdate
+    public void onUserChanged(User user) {
+        if (user.hasSecurityStateChanged() && user.getTokensValidAfter() != null) {
+            tokenRevocationService.revokeIssuedBefore(user.getUsername(), user.getTokensValidAfter());
+        }
+        user.rememberSecurityState();
+        evictPrincipal(user.getUsername());
+    }
+
+    @PostRemove
+    public void onUserRemoved(User user) {
+        tokenRevocationService.revokeIssuedBefore(user.getUsername(), Instant.now());
+        evictPrincipal(user.getUsername());
+    }
+
+    private void evictPrincipal(String username) {
+        principalCache.evict(username);
+
+        // Evict again once the change is visible, so a request that reloaded
+        // the old row between flush and commit cannot keep it cached
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    principalCache.evict(username);
+                }
+            });
+        }
+    }
+}
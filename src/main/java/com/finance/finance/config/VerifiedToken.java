@@ -0,0 +1,75 @@
+package com.finance.finance.config;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+
+/**
+ * Immutable view of a JWT whose signature and expiry have already been
+ * checked. Produced once per request by {@link JwtConfig#verify(String)} so
+ * the filter never has to parse the same token again.
+ */
+public final class VerifiedToken {
+
+    private final String id;
+    private final String subject;
+    private final Long userId;
+    private final String roles;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    private VerifiedToken(String id, String subject, Long userId, String roles, Date issuedAt, Date expiration) {
+        this.id = id;
+        this.subject = subject;
+        this.userId = userId;
+        this.roles = roles;
+        this.issuedAt = issuedAt;
+        this.expiration = expiration;
+    }
+
+    static VerifiedToken fromClaims(Claims claims) {
+        return new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                claims.get(JwtConfig.USER_ID_CLAIM, Long.class),
+                claims.get(JwtConfig.ROLES_CLAIM, String.class),
+                claims.getIssuedAt(),
+                claims.getExpiration()
+        );
+    }
+
+    // jti claim; null for tokens issued before ids were added
+    public String getId() {
+        return id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    // Null for tokens issued before the user id claim was added
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getRoles() {
+        return roles;
+    }
+
+    public Date getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+
+    public boolean isValidFor(UserDetails userDetails) {
+        return subject != null && subject.equals(userDetails.getUsername()) && !isExpired();
+    }
+}
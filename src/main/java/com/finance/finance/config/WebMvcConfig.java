@@ -0,0 +1,21 @@
+package com.finance.finance.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ShardRoutingInterceptor shardRoutingInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Per-user endpoints only; admin jobs fan out over every shard themselves
+        registry.addInterceptor(shardRoutingInterceptor)
+                .addPathPatterns("/auth/cashflow/**", "/auth/dashboard/**")
+                .excludePathPatterns("/auth/dashboard/rollup/**");
+    }
+}
@@ -1,12 +1,15 @@
 package com.finance.finance.controller;
 
 import com.finance.finance.config.JwtConfig;
+import com.finance.finance.config.PasswordHashingBusyException;
+import com.finance.finance.config.VerifiedToken;
 import com.finance.finance.dto.LoginRequest;
 import com.finance.finance.dto.LoginResponse;
 import com.finance.finance.dto.RegisterRequest;
 import com.finance.finance.dto.RegisterResponse;
 import com.finance.finance.entity.User;
 import com.finance.finance.repository.UserRepository;
+import com.finance.finance.service.TokenRevocationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -44,6 +47,9 @@ public class AuthController {
     @Autowired
     private JwtConfig jwtConfig;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @PostMapping("/login")
     @Operation(
         summary = "🔐 Fazer login no sistema", 
@@ -53,7 +59,8 @@ public class AuthController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "✅ Login realizado com sucesso - Token JWT retornado"),
             @ApiResponse(responseCode = "401", description = "❌ Credenciais inválidas - Username ou password incorretos"),
-            @ApiResponse(responseCode = "400", description = "⚠️ Dados inválidos - Verifique o formato dos campos obrigatórios")
+            @ApiResponse(responseCode = "400", description = "⚠️ Dados inválidos - Verifique o formato dos campos obrigatórios"),
+            @ApiResponse(responseCode = "503", description = "⏳ Autenticação sobrecarregada - Tente novamente em instantes")
     })
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
         try {
@@ -77,7 +84,7 @@ public class AuthController {
             User user = userOptional.get();
 
             // Gerar o token JWT
-            String token = jwtConfig.generateToken(user.getUsername(), user.getRoles());
+            String token = jwtConfig.generateToken(user.getId(), user.getUsername(), user.getRoles());
 
             // Calcular a data de expiração
             LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(jwtConfig.getExpiration() / 1000);
@@ -93,6 +100,8 @@ public class AuthController {
 
             return ResponseEntity.ok(loginResponse);
 
+        } catch (PasswordHashingBusyException e) {
+            return serviceBusy();
         } catch (AuthenticationException e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Credenciais inválidas");
@@ -117,7 +126,8 @@ public class AuthController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "✅ Usuário criado com sucesso - Conta ativada e pronta para uso"),
             @ApiResponse(responseCode = "400", description = "⚠️ Dados inválidos ou usuário já existe - Verifique username, email ou formato dos dados"),
-            @ApiResponse(responseCode = "500", description = "❌ Erro interno do servidor - Tente novamente mais tarde")
+            @ApiResponse(responseCode = "500", description = "❌ Erro interno do servidor - Tente novamente mais tarde"),
+            @ApiResponse(responseCode = "503", description = "⏳ Autenticação sobrecarregada - Tente novamente em instantes")
     })
     public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest registerRequest) {
         try {
@@ -166,6 +176,8 @@ public class AuthController {
 
             return ResponseEntity.status(201).body(registerResponse);
 
+        } catch (PasswordHashingBusyException e) {
+            return serviceBusy();
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Erro interno do servidor");
@@ -177,13 +189,16 @@ public class AuthController {
     @PostMapping("/logout")
     @Operation(
         summary = "🚪 Fazer logout", 
-        description = "Invalida a sessão atual do usuário e limpa o contexto de segurança. " +
-                     "Após o logout, o token JWT ainda será válido até expirar, mas a sessão é encerrada."
+        description = "Revoga o token JWT usado na requisição e limpa o contexto de segurança. " +
+                     "Após o logout, o token é rejeitado mesmo antes de expirar."
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "✅ Logout realizado com sucesso - Sessão encerrada")
+            @ApiResponse(responseCode = "200", description = "✅ Logout realizado com sucesso - Token revogado")
     })
-    public ResponseEntity<Map<String, String>> logout() {
+    public ResponseEntity<Map<String, String>> logout(Authentication authentication) {
+        if (authentication != null && authentication.getCredentials() instanceof VerifiedToken verifiedToken) {
+            tokenRevocationService.revoke(verifiedToken);
+        }
         SecurityContextHolder.clearContext();
         Map<String, String> response = new HashMap<>();
         response.put("message", "Logout realizado com sucesso");
@@ -255,4 +270,11 @@ public class AuthController {
             return ResponseEntity.status(401).body(response);
         }
     }
+
+    private ResponseEntity<Map<String, String>> serviceBusy() {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Serviço temporariamente indisponível");
+        error.put("message", "Muitas autenticações simultâneas, tente novamente em instantes");
+        return ResponseEntity.status(503).header("Retry-After", "1").body(error);
+    }
 }
@@ -1,11 +1,22 @@
 package com.finance.finance.controller;
 
+import com.finance.finance.config.CurrentUserResolver;
+import com.finance.finance.config.ETagSupport;
+import com.finance.finance.config.ShardMoveInProgressException;
+import com.finance.finance.dto.BulkCashFlowResponse;
+import com.finance.finance.dto.CashFlowChanges;
 import com.finance.finance.dto.CashFlowRequest;
 import com.finance.finance.dto.CashFlowResponse;
+import com.finance.finance.dto.CashFlowSummary;
+import com.finance.finance.dto.CursorPage;
+import com.finance.finance.dto.StatementImportResult;
 import com.finance.finance.entity.CashFlow;
 import com.finance.finance.entity.User;
-import com.finance.finance.repository.UserRepository;
+import com.finance.finance.service.CashFlowExportService;
+import com.finance.finance.service.CashFlowSearchIndex;
 import com.finance.finance.service.CashFlowService;
+import com.finance.finance.service.StatementImportService;
+import com.finance.finance.service.StatementParser;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,19 +27,28 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
@@ -38,15 +58,36 @@ import java.util.Optional;
 @SecurityRequirement(name = "bearerAuth")
 public class CashFlowController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_CHANGES_SIZE = 1000;
+
     @Autowired
     private CashFlowService cashFlowService;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUserResolver;
+
+    @Autowired
+    private CashFlowExportService cashFlowExportService;
+
+    @Autowired
+    private StatementImportService statementImportService;
+
+    @Autowired
+    private CashFlowSearchIndex cashFlowSearchIndex;
+
+    @Autowired
+    private ETagSupport eTagSupport;
+
+    @Value("${finance.search.index.enabled:true}")
+    private boolean searchIndexEnabled;
 
     @Autowired
     private MeterRegistry meterRegistry;
 
+    @Value("${finance.cashflow.bulk.max-rows:10000}")
+    private int bulkMaxRows;
+
     private final Counter cashFlowCreatedCounter;
     private final Counter cashFlowUpdatedCounter;
     private final Counter cashFlowDeletedCounter;
@@ -75,17 +116,99 @@ public class CashFlowController {
             @Valid @RequestBody CashFlowRequest request,
             Authentication authentication) {
         try {
-            String username = authentication.getName();
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            User user = currentUserResolver.resolve(authentication);
             CashFlowResponse response = cashFlowService.createCashFlow(request, user);
             cashFlowCreatedCounter.increment();
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (ShardMoveInProgressException e) {
+            return shardMoveInProgress();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Criar fluxos de caixa em lote", description = "Importa vários lançamentos numa única chamada (ex.: extrato bancário). " +
+            "Cada linha é validada individualmente e o resultado é informado por linha; as linhas válidas são gravadas em lote")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote processado - veja o resultado de cada linha"),
+            @ApiResponse(responseCode = "400", description = "Lote vazio ou acima do limite"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<?> createCashFlows(
+            @RequestBody List<CashFlowRequest> requests,
+            Authentication authentication) {
+        if (requests == null || requests.isEmpty() || requests.size() > bulkMaxRows) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Batch must contain between 1 and " + bulkMaxRows + " rows"));
+        }
+        User user = currentUserResolver.resolve(authentication);
+        try {
+            BulkCashFlowResponse response = cashFlowService.createCashFlows(requests, user);
+            cashFlowCreatedCounter.increment(response.getCreated());
+            return ResponseEntity.ok(response);
+        } catch (ShardMoveInProgressException e) {
+            return shardMoveInProgress();
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importar extrato bancário", description = "Importa um extrato CSV ou OFX via COPY para uma tabela de staging e mescla em lote, " +
+            "resolvendo categorias pelo nome e ignorando lançamentos já importados (requer PostgreSQL)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Extrato importado - veja contagens e erros por linha"),
+            @ApiResponse(responseCode = "400", description = "Arquivo, formato ou categoria padrão inválidos"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado"),
+            @ApiResponse(responseCode = "501", description = "Banco de dados não suporta importação por COPY")
+    })
+    public ResponseEntity<?> importStatement(
+            @Parameter(description = "Arquivo do extrato (.csv ou .ofx)")
+            @RequestParam("file") MultipartFile file,
+            @Parameter(description = "Formato: csv ou ofx (padrão: pela extensão do arquivo)")
+            @RequestParam(required = false) String format,
+            @Parameter(description = "Categoria usada quando o nome da categoria não é encontrado")
+            @RequestParam(required = false) Long defaultCategoryId,
+            @Parameter(description = "Codificação do arquivo (padrão: UTF-8)")
+            @RequestParam(defaultValue = "UTF-8") String charset,
+            Authentication authentication) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "File is empty"));
+        }
+        try {
+            StatementParser.Format statementFormat = resolveStatementFormat(format, file.getOriginalFilename());
+            User user = currentUserResolver.resolve(authentication);
+            try (InputStream input = file.getInputStream()) {
+                StatementImportResult result = statementImportService.importStatement(
+                        user, statementFormat, input, Charset.forName(charset), defaultCategoryId);
+                cashFlowCreatedCounter.increment(result.getImported());
+                return ResponseEntity.ok(result);
+            }
+        } catch (ShardMoveInProgressException e) {
+            return shardMoveInProgress();
+        } catch (UnsupportedOperationException e) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Could not read file"));
+        }
+    }
+
+    private StatementParser.Format resolveStatementFormat(String format, String filename) {
+        if (format != null) {
+            return StatementParser.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        }
+        if (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".ofx")) {
+            return StatementParser.Format.OFX;
+        }
+        return StatementParser.Format.CSV;
+    }
+
+    // The user's rows are being moved to another shard; writes resume once the move is done
+    private <T> ResponseEntity<T> shardMoveInProgress() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obter fluxo de caixa por ID", description = "Retorna um fluxo de caixa específico pelo ID")
     @ApiResponses(value = {
@@ -97,7 +220,7 @@ public class CashFlowController {
             @Parameter(description = "ID do fluxo de caixa")
             @PathVariable String id,
             Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        User user = currentUserResolver.resolve(authentication);
         Long cashFlowId = Long.parseLong(id);
         Optional<CashFlowResponse> response = cashFlowService.getCashFlowById(cashFlowId, user);
         return response.map(ResponseEntity::ok)
@@ -108,29 +231,118 @@ public class CashFlowController {
     @Operation(summary = "Listar fluxos de caixa", description = "Retorna uma lista paginada de fluxos de caixa do usuário")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de fluxos de caixa obtida com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Lista inalterada desde o ETag informado em If-None-Match"),
             @ApiResponse(responseCode = "401", description = "Não autorizado")
     })
     public ResponseEntity<Page<CashFlowResponse>> getCashFlows(
             @PageableDefault(size = 20) Pageable pageable,
-            Authentication authentication) {
+            Authentication authentication,
+            WebRequest webRequest) {
         try {
-            String username = authentication.getName();
-            // Buscar o usuário pelo username no banco de dados
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            Page<CashFlowResponse> response = cashFlowService.getCashFlowsByUser(user, pageable);
-            return ResponseEntity.ok(response);
+            User user = currentUserResolver.resolve(authentication);
+            String etag = eTagSupport.cashFlowsETag(user.getId());
+            if (eTagSupport.notModified(webRequest, etag)) {
+                return null;
+            }
+            return eTagSupport.cashFlowsOk(user.getId(), () -> cashFlowService.getCashFlowsByUser(user, pageable));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @GetMapping(params = "pagination=cursor")
+    @Operation(summary = "Listar fluxos de caixa por cursor", description = "Paginação por cursor (keyset) ordenada por data e ID, com tempo constante em qualquer profundidade. " +
+            "Use o nextCursor retornado para obter a próxima página; o total só é calculado com includeTotal=true")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página obtida com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Página inalterada desde o ETag informado em If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<CursorPage<CashFlowResponse>> getCashFlowsByCursor(
+            @Parameter(description = "Cursor opaco retornado pela página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamanho da página (máximo 100)")
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Incluir o total de registros (executa COUNT)")
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            Authentication authentication,
+            WebRequest webRequest) {
+        User user = currentUserResolver.resolve(authentication);
+        String etag = eTagSupport.cashFlowsETag(user.getId());
+        if (eTagSupport.notModified(webRequest, etag)) {
+            return null;
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        try {
+            return eTagSupport.cashFlowsOk(user.getId(),
+                    () -> cashFlowService.getCashFlowsByUserAfter(user, cursor, pageSize, includeTotal));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Sincronizar alterações", description = "Retorna apenas os fluxos de caixa criados, alterados ou excluídos desde o watermark informado, " +
+            "em ordem de alteração. Exclusões vêm com isActive=false. Sem since, começa do início; guarde o watermark retornado para a próxima chamada")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Alterações obtidas com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Watermark inválido"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<?> getChanges(
+            @Parameter(description = "Watermark retornado pela sincronização anterior")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Máximo de alterações por chamada (máximo 1000)")
+            @RequestParam(defaultValue = "500") int size,
+            Authentication authentication) {
+        User user = currentUserResolver.resolve(authentication);
+        int batchSize = Math.max(1, Math.min(size, MAX_CHANGES_SIZE));
+        try {
+            CashFlowChanges changes = cashFlowService.getChangesSince(user, since, batchSize);
+            return ResponseEntity.ok(changes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Exportar fluxos de caixa", description = "Exporta os fluxos de caixa do usuário em NDJSON ou CSV, transmitidos direto do banco sem carregar tudo em memória")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportação iniciada"),
+            @ApiResponse(responseCode = "400", description = "Formato inválido"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<StreamingResponseBody> exportCashFlows(
+            @Parameter(description = "Formato: ndjson (padrão) ou csv")
+            @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Data de início opcional (formato: YYYY-MM-DD)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "Data de fim opcional (formato: YYYY-MM-DD)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            Authentication authentication) {
+        CashFlowExportService.Format exportFormat;
+        try {
+            exportFormat = CashFlowExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        User user = currentUserResolver.resolve(authentication);
+
+        StreamingResponseBody body = out -> cashFlowExportService.export(user, startDate, endDate, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"cashflows." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
     @GetMapping("/date-range")
     public ResponseEntity<List<CashFlowResponse>> getCashFlowsByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        User user = currentUserResolver.resolve(authentication);
         List<CashFlowResponse> response = cashFlowService.getCashFlowsByDateRange(user, startDate, endDate);
         return ResponseEntity.ok(response);
     }
@@ -139,33 +351,60 @@ public class CashFlowController {
     public ResponseEntity<List<CashFlowResponse>> getCashFlowsByType(
             @PathVariable CashFlow.CashFlowType type,
             Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        User user = currentUserResolver.resolve(authentication);
         List<CashFlowResponse> response = cashFlowService.getCashFlowsByType(user, type);
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/search")
+    @Operation(summary = "Buscar fluxos de caixa", description = "Busca por trecho da descrição ou das observações, ordenada por relevância e paginada")
     public ResponseEntity<List<CashFlowResponse>> searchCashFlows(
             @RequestParam String term,
+            @Parameter(description = "Página (começa em 0)")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Tamanho da página (máximo 100)")
+            @RequestParam(defaultValue = "50") int size,
             Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
-        List<CashFlowResponse> response = cashFlowService.searchCashFlows(user, term);
+        User user = currentUserResolver.resolve(authentication);
+        int pageNumber = Math.max(0, page);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Índice em memória primeiro; usuários grandes demais para indexar caem na busca no banco
+        Optional<List<CashFlowResponse>> indexed = searchIndexEnabled
+                ? cashFlowSearchIndex.search(user, term, pageNumber, pageSize)
+                : Optional.empty();
+        List<CashFlowResponse> response = indexed.orElseGet(() ->
+                cashFlowService.searchCashFlows(user, term, pageNumber, pageSize));
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/search/suggest")
+    @Operation(summary = "Sugestões de busca", description = "Autocompletar: termos das descrições e observações do usuário que começam com o prefixo informado, sem acesso ao banco")
+    public ResponseEntity<List<String>> suggestSearchTerms(
+            @RequestParam String prefix,
+            @Parameter(description = "Número máximo de sugestões (máximo 50)")
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+        if (!searchIndexEnabled) {
+            return ResponseEntity.ok(List.of());
+        }
+        User user = currentUserResolver.resolve(authentication);
+        return ResponseEntity.ok(cashFlowSearchIndex.suggest(user, prefix, Math.max(1, Math.min(limit, 50)))
+                .orElse(List.of()));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<CashFlowResponse> updateCashFlow(
             @PathVariable String id,
             @Valid @RequestBody CashFlowRequest request,
             Authentication authentication) {
         try {
-            String username = authentication.getName();
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            User user = currentUserResolver.resolve(authentication);
             Long cashFlowId = Long.parseLong(id);
             CashFlowResponse response = cashFlowService.updateCashFlow(cashFlowId, request, user);
             cashFlowUpdatedCounter.increment();
             return ResponseEntity.ok(response);
+        } catch (ShardMoveInProgressException e) {
+            return shardMoveInProgress();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -176,13 +415,13 @@ public class CashFlowController {
             @PathVariable String id,
             Authentication authentication) {
         try {
-            String username = authentication.getName();
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
+            User user = currentUserResolver.resolve(authentication);
             Long cashFlowId = Long.parseLong(id);
             cashFlowService.deleteCashFlow(cashFlowId, user);
             cashFlowDeletedCounter.increment();
             return ResponseEntity.noContent().build();
+        } catch (ShardMoveInProgressException e) {
+            return shardMoveInProgress();
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
@@ -193,21 +432,16 @@ public class CashFlowController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
-        
-        BigDecimal totalIncome = cashFlowService.getTotalIncome(user, startDate, endDate);
-        BigDecimal totalExpenses = cashFlowService.getTotalExpenses(user, startDate, endDate);
-        BigDecimal balance = cashFlowService.getBalance(user, startDate, endDate);
+        User user = currentUserResolver.resolve(authentication);
         
-        long incomeCount = cashFlowService.getTransactionCount(user, CashFlow.CashFlowType.INCOME, startDate, endDate);
-        long expenseCount = cashFlowService.getTransactionCount(user, CashFlow.CashFlowType.EXPENSE, startDate, endDate);
+        CashFlowSummary totals = cashFlowService.getSummary(user, startDate, endDate);
         
         Map<String, Object> summary = new HashMap<>();
-        summary.put("totalIncome", totalIncome != null ? totalIncome : BigDecimal.ZERO);
-        summary.put("totalExpenses", totalExpenses != null ? totalExpenses : BigDecimal.ZERO);
-        summary.put("balance", balance);
-        summary.put("incomeCount", incomeCount);
-        summary.put("expenseCount", expenseCount);
+        summary.put("totalIncome", totals.getTotalIncome());
+        summary.put("totalExpenses", totals.getTotalExpenses());
+        summary.put("balance", totals.getBalance());
+        summary.put("incomeCount", totals.getIncomeCount());
+        summary.put("expenseCount", totals.getExpenseCount());
         summary.put("startDate", startDate);
         summary.put("endDate", endDate);
         
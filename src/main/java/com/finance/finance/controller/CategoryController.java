@@ -1,5 +1,6 @@
 package com.finance.finance.controller;
 
+import com.finance.finance.config.ETagSupport;
 import com.finance.finance.dto.CategoryResponse;
 import com.finance.finance.entity.Category;
 import com.finance.finance.service.CategoryService;
@@ -15,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -32,6 +34,9 @@ public class CategoryController {
     @Autowired
     private MeterRegistry meterRegistry;
 
+    @Autowired
+    private ETagSupport eTagSupport;
+
     private final Counter categoryCreatedCounter;
     private final Counter categoryUpdatedCounter;
     private final Counter categoryDeletedCounter;
@@ -73,23 +78,34 @@ public class CategoryController {
     @GetMapping
     @Operation(summary = "Listar todas as categorias", description = "Retorna todas as categorias disponíveis")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Lista de categorias obtida com sucesso")
+            @ApiResponse(responseCode = "200", description = "Lista de categorias obtida com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Lista inalterada desde o ETag informado em If-None-Match")
     })
-    public ResponseEntity<List<CategoryResponse>> getAllCategories() {
+    public ResponseEntity<List<CategoryResponse>> getAllCategories(WebRequest webRequest) {
+        String etag = eTagSupport.categoriesETag();
+        if (eTagSupport.notModified(webRequest, etag)) {
+            return null;
+        }
         List<CategoryResponse> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        return eTagSupport.ok(etag, categories);
     }
 
     @GetMapping("/type/{type}")
     @Operation(summary = "Listar categorias por tipo", description = "Retorna categorias filtradas por tipo (INCOME ou EXPENSE)")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Categorias obtidas com sucesso")
+            @ApiResponse(responseCode = "200", description = "Categorias obtidas com sucesso"),
+            @ApiResponse(responseCode = "304", description = "Lista inalterada desde o ETag informado em If-None-Match")
     })
     public ResponseEntity<List<CategoryResponse>> getCategoriesByType(
             @Parameter(description = "Tipo da categoria (INCOME ou EXPENSE)")
-            @PathVariable Category.CategoryType type) {
+            @PathVariable Category.CategoryType type,
+            WebRequest webRequest) {
+        String etag = eTagSupport.categoriesETag();
+        if (eTagSupport.notModified(webRequest, etag)) {
+            return null;
+        }
         List<CategoryResponse> categories = categoryService.getCategoriesByType(type);
-        return ResponseEntity.ok(categories);
+        return eTagSupport.ok(etag, categories);
     }
 
     @GetMapping("/{id}")
@@ -1,7 +1,11 @@
 package com.finance.finance.controller;
 
-import com.finance.finance.entity.CashFlow;
+import com.finance.finance.config.CurrentUserResolver;
+import com.finance.finance.dto.CashFlowForecast;
+import com.finance.finance.dto.CashFlowSummary;
 import com.finance.finance.entity.User;
+import com.finance.finance.service.CashFlowForecastService;
+import com.finance.finance.service.CashFlowRollupService;
 import com.finance.finance.service.CashFlowService;
 import com.finance.finance.service.CategoryService;
 import io.micrometer.core.instrument.Counter;
@@ -15,6 +19,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
@@ -36,6 +41,15 @@ public class DashboardController {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    @Autowired
+    private CashFlowRollupService rollupService;
+
+    @Autowired
+    private CashFlowForecastService forecastService;
+
     @Autowired
     private MeterRegistry meterRegistry;
 
@@ -63,7 +77,7 @@ public class DashboardController {
         
         dashboardAccessCounter.increment();
         
-        User user = (User) authentication.getPrincipal();
+        User user = currentUserResolver.resolve(authentication);
         
         // Default to current month if no dates provided
         if (startDate == null) {
@@ -73,12 +87,13 @@ public class DashboardController {
             endDate = LocalDate.now();
         }
         
-        BigDecimal totalIncome = cashFlowService.getTotalIncome(user, startDate, endDate);
-        BigDecimal totalExpenses = cashFlowService.getTotalExpenses(user, startDate, endDate);
-        BigDecimal balance = cashFlowService.getBalance(user, startDate, endDate);
+        CashFlowSummary summary = cashFlowService.getSummary(user, startDate, endDate);
+        BigDecimal totalIncome = summary.getTotalIncome();
+        BigDecimal totalExpenses = summary.getTotalExpenses();
+        BigDecimal balance = summary.getBalance();
         
-        long incomeCount = cashFlowService.getTransactionCount(user, CashFlow.CashFlowType.INCOME, startDate, endDate);
-        long expenseCount = cashFlowService.getTransactionCount(user, CashFlow.CashFlowType.EXPENSE, startDate, endDate);
+        long incomeCount = summary.getIncomeCount();
+        long expenseCount = summary.getExpenseCount();
         
         Map<String, Object> overview = new HashMap<>();
         overview.put("period", Map.of(
@@ -87,8 +102,8 @@ public class DashboardController {
             "days", ChronoUnit.DAYS.between(startDate, endDate) + 1
         ));
         overview.put("totals", Map.of(
-            "income", totalIncome != null ? totalIncome : BigDecimal.ZERO,
-            "expenses", totalExpenses != null ? totalExpenses : BigDecimal.ZERO,
+            "income", totalIncome,
+            "expenses", totalExpenses,
             "balance", balance
         ));
         overview.put("counts", Map.of(
@@ -116,7 +131,7 @@ public class DashboardController {
             @RequestParam(required = false) Integer year,
             Authentication authentication) {
         
-        User user = (User) authentication.getPrincipal();
+        User user = currentUserResolver.resolve(authentication);
         
         if (year == null) {
             year = LocalDate.now().getYear();
@@ -125,15 +140,15 @@ public class DashboardController {
         LocalDate startDate = LocalDate.of(year, 1, 1);
         LocalDate endDate = LocalDate.of(year, 12, 31);
         
-        BigDecimal totalIncome = cashFlowService.getTotalIncome(user, startDate, endDate);
-        BigDecimal totalExpenses = cashFlowService.getTotalExpenses(user, startDate, endDate);
-        BigDecimal balance = cashFlowService.getBalance(user, startDate, endDate);
+        CashFlowSummary yearSummary = cashFlowService.getSummary(user, startDate, endDate);
+        BigDecimal totalIncome = yearSummary.getTotalIncome();
+        BigDecimal totalExpenses = yearSummary.getTotalExpenses();
         
         Map<String, Object> summary = new HashMap<>();
         summary.put("year", year);
-        summary.put("totalIncome", totalIncome != null ? totalIncome : BigDecimal.ZERO);
-        summary.put("totalExpenses", totalExpenses != null ? totalExpenses : BigDecimal.ZERO);
-        summary.put("balance", balance);
+        summary.put("totalIncome", totalIncome);
+        summary.put("totalExpenses", totalExpenses);
+        summary.put("balance", yearSummary.getBalance());
         summary.put("savingsRate", calculateSavingsRate(totalIncome, totalExpenses));
         
         return ResponseEntity.ok(summary);
@@ -146,37 +161,60 @@ public class DashboardController {
             @ApiResponse(responseCode = "401", description = "Não autorizado")
     })
     public ResponseEntity<Map<String, Object>> getQuickStats(Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
+        User user = currentUserResolver.resolve(authentication);
         
         LocalDate today = LocalDate.now();
         LocalDate monthStart = today.withDayOfMonth(1);
         LocalDate weekStart = today.minusDays(7);
         
         // This month
-        BigDecimal monthIncome = cashFlowService.getTotalIncome(user, monthStart, today);
-        BigDecimal monthExpenses = cashFlowService.getTotalExpenses(user, monthStart, today);
+        CashFlowSummary month = cashFlowService.getSummary(user, monthStart, today);
         
         // Last 7 days
-        BigDecimal weekIncome = cashFlowService.getTotalIncome(user, weekStart, today);
-        BigDecimal weekExpenses = cashFlowService.getTotalExpenses(user, weekStart, today);
+        CashFlowSummary week = cashFlowService.getSummary(user, weekStart, today);
         
         Map<String, Object> stats = new HashMap<>();
         stats.put("thisMonth", Map.of(
-            "income", monthIncome != null ? monthIncome : BigDecimal.ZERO,
-            "expenses", monthExpenses != null ? monthExpenses : BigDecimal.ZERO,
-            "balance", (monthIncome != null ? monthIncome : BigDecimal.ZERO)
-                .subtract(monthExpenses != null ? monthExpenses : BigDecimal.ZERO)
+            "income", month.getTotalIncome(),
+            "expenses", month.getTotalExpenses(),
+            "balance", month.getBalance()
         ));
         stats.put("last7Days", Map.of(
-            "income", weekIncome != null ? weekIncome : BigDecimal.ZERO,
-            "expenses", weekExpenses != null ? weekExpenses : BigDecimal.ZERO,
-            "balance", (weekIncome != null ? weekIncome : BigDecimal.ZERO)
-                .subtract(weekExpenses != null ? weekExpenses : BigDecimal.ZERO)
+            "income", week.getTotalIncome(),
+            "expenses", week.getTotalExpenses(),
+            "balance", week.getBalance()
         ));
         
         return ResponseEntity.ok(stats);
     }
 
+    @GetMapping("/forecast")
+    @Operation(summary = "Projetar saldo futuro", description = "Projeta o saldo mês a mês a partir dos lançamentos recorrentes, dos lançamentos já agendados " +
+            "e da média histórica dos demais lançamentos. O primeiro mês é o atual (apenas os dias restantes)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Projeção obtida com sucesso"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<CashFlowForecast> getForecast(
+            @Parameter(description = "Quantidade de meses projetados, incluindo o atual (máximo configurado em finance.forecast.max-months)")
+            @RequestParam(defaultValue = "12") int months,
+            Authentication authentication) {
+        User user = currentUserResolver.resolve(authentication);
+        return ResponseEntity.ok(forecastService.forecast(user, months));
+    }
+
+    @PostMapping("/rollup/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Reconstruir agregados diários", description = "Recalcula a tabela de agregados diários a partir dos lançamentos (backfill)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Agregados reconstruídos com sucesso"),
+            @ApiResponse(responseCode = "403", description = "Acesso restrito a administradores")
+    })
+    public ResponseEntity<Map<String, Object>> rebuildRollup() {
+        int rows = rollupService.rebuildAll();
+        return ResponseEntity.ok(Map.of("message", "Rollup rebuilt successfully", "rows", rows));
+    }
+
     private BigDecimal calculateDailyAverage(BigDecimal amount, LocalDate startDate, LocalDate endDate) {
         if (amount == null || amount.equals(BigDecimal.ZERO)) {
             return BigDecimal.ZERO;
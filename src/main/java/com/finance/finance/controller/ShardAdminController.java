@@ -0,0 +1,79 @@
+package com.finance.finance.controller;
+
+import com.finance.finance.config.ShardMap;
+import com.finance.finance.service.ShardRebalancer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/auth/admin/shards")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Shards", description = "Endpoints administrativos de distribuição dos dados entre shards")
+@SecurityRequirement(name = "bearerAuth")
+public class ShardAdminController {
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @GetMapping
+    @Operation(summary = "Estatísticas dos shards", description = "Consulta todos os shards em paralelo e retorna as contagens de lançamentos e usuários de cada um")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estatísticas obtidas com sucesso"),
+            @ApiResponse(responseCode = "403", description = "Acesso restrito a administradores")
+    })
+    public ResponseEntity<Map<String, Object>> getShards() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("enabled", shardMap.isEnabled());
+        response.put("shards", shardRebalancer.shardStats());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/users/{userId}")
+    @Operation(summary = "Shard do usuário", description = "Retorna o shard que atende o usuário e o shard indicado pelo anel de hash")
+    public ResponseEntity<Map<String, Object>> getUserShard(@PathVariable Long userId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("userId", userId);
+        response.put("shard", shardMap.shardFor(userId));
+        response.put("ringShard", shardMap.ringShardFor(userId));
+        response.put("moving", shardMap.isMoving(userId));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/users/{userId}/move")
+    @Operation(summary = "Mover usuário de shard", description = "Copia os lançamentos, o arquivo e os agregados do usuário para o shard de destino e remove-os do shard de origem. " +
+            "As escritas do usuário ficam bloqueadas durante a migração")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Usuário movido com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Shard de destino inválido ou migração já em andamento"),
+            @ApiResponse(responseCode = "403", description = "Acesso restrito a administradores")
+    })
+    public ResponseEntity<Map<String, Object>> moveUser(
+            @PathVariable Long userId,
+            @Parameter(description = "Shard de destino (ex.: shard-1)")
+            @RequestParam String target) {
+        try {
+            int rows = shardRebalancer.moveUser(userId, target);
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "User moved successfully");
+            response.put("shard", shardMap.shardFor(userId));
+            response.put("rows", rows);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.finance.finance.dto;
+
+import java.util.List;
+
+public class BulkCashFlowResponse {
+
+    private int received;
+    private int created;
+    private int rejected;
+    private List<BulkCashFlowResult> results;
+
+    // Constructors
+    public BulkCashFlowResponse() {}
+
+    public BulkCashFlowResponse(List<BulkCashFlowResult> results) {
+        this.results = results;
+        this.received = results.size();
+        this.created = (int) results.stream()
+                .filter(result -> result.getStatus() == BulkCashFlowResult.Status.CREATED)
+                .count();
+        this.rejected = received - created;
+    }
+
+    // Getters and Setters
+    public int getReceived() {
+        return received;
+    }
+
+    public void setReceived(int received) {
+        this.received = received;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<BulkCashFlowResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BulkCashFlowResult> results) {
+        this.results = results;
+    }
+}
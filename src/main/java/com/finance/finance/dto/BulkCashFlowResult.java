@@ -0,0 +1,70 @@
+package com.finance.finance.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of one row of a bulk create, identified by its position in the
+ * request body.
+ */
+public class BulkCashFlowResult {
+
+    public enum Status {
+        CREATED, REJECTED
+    }
+
+    private int index;
+    private Status status;
+    private Long id;
+    private List<String> errors;
+
+    // Constructors
+    public BulkCashFlowResult() {}
+
+    public BulkCashFlowResult(int index, Status status, Long id, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public static BulkCashFlowResult created(int index, Long id) {
+        return new BulkCashFlowResult(index, Status.CREATED, id, List.of());
+    }
+
+    public static BulkCashFlowResult rejected(int index, List<String> errors) {
+        return new BulkCashFlowResult(index, Status.REJECTED, null, errors);
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,48 @@
+package com.finance.finance.dto;
+
+import com.finance.finance.entity.CashFlow;
+import com.finance.finance.entity.Category;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One change feed row: the cash flow and the change sequence it was read
+ * with, which the next watermark is built from. Only the cash flow is sent to
+ * clients.
+ */
+public class CashFlowChange {
+
+    private final long changeSeq;
+    private final CashFlowResponse cashFlow;
+
+    // Constructors
+    public CashFlowChange(long changeSeq, CashFlowResponse cashFlow) {
+        this.changeSeq = changeSeq;
+        this.cashFlow = cashFlow;
+    }
+
+    // Flat constructor used by JPQL constructor expressions (CashFlowRepository.CHANGE_PROJECTION)
+    public CashFlowChange(Long changeSeq, Long id, String description, BigDecimal amount,
+                          LocalDate transactionDate, CashFlow.CashFlowType type,
+                          Long categoryId, String categoryName, String categoryDescription,
+                          Category.CategoryType categoryType, Boolean categoryIsActive,
+                          LocalDateTime categoryCreatedAt, LocalDateTime categoryUpdatedAt,
+                          String notes, Boolean isRecurring, String recurringFrequency,
+                          Boolean isActive, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(changeSeq, new CashFlowResponse(id, description, amount, transactionDate, type,
+                categoryId, categoryName, categoryDescription, categoryType, categoryIsActive,
+                categoryCreatedAt, categoryUpdatedAt, notes, isRecurring, recurringFrequency,
+                isActive, createdAt, updatedAt));
+    }
+
+    // Getters and Setters
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public CashFlowResponse getCashFlow() {
+        return cashFlow;
+    }
+}
@@ -0,0 +1,51 @@
+package com.finance.finance.dto;
+
+import java.util.List;
+
+/**
+ * One batch of the change feed: cash flows created, updated or deleted after
+ * the client's watermark, oldest change first. Deleted rows come back as
+ * tombstones with isActive=false. The client stores the returned watermark and
+ * sends it as {@code since} next time; while hasMore is true it should call
+ * again straight away.
+ */
+public class CashFlowChanges {
+
+    private List<CashFlowResponse> changes;
+    private String watermark;
+    private boolean hasMore;
+
+    // Constructors
+    public CashFlowChanges() {}
+
+    public CashFlowChanges(List<CashFlowResponse> changes, String watermark, boolean hasMore) {
+        this.changes = changes;
+        this.watermark = watermark;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<CashFlowResponse> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<CashFlowResponse> changes) {
+        this.changes = changes;
+    }
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(String watermark) {
+        this.watermark = watermark;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
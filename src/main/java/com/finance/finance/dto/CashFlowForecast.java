@@ -0,0 +1,164 @@
+package com.finance.finance.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Projected month-by-month balance, starting from the balance on {@code asOf}.
+ * Each month adds the occurrences of recurring templates, entries already
+ * dated in that month, and the historical average of the non-recurring
+ * income and expenses (prorated for the rest of the current month).
+ */
+public class CashFlowForecast {
+
+    private LocalDate asOf;
+    private BigDecimal startingBalance;
+    private int historyMonths;
+    private BigDecimal averageMonthlyIncome;
+    private BigDecimal averageMonthlyExpenses;
+    private List<Month> months;
+
+    // Constructors
+    public CashFlowForecast() {}
+
+    public CashFlowForecast(LocalDate asOf, BigDecimal startingBalance, int historyMonths,
+                            BigDecimal averageMonthlyIncome, BigDecimal averageMonthlyExpenses, List<Month> months) {
+        this.asOf = asOf;
+        this.startingBalance = startingBalance;
+        this.historyMonths = historyMonths;
+        this.averageMonthlyIncome = averageMonthlyIncome;
+        this.averageMonthlyExpenses = averageMonthlyExpenses;
+        this.months = months;
+    }
+
+    // The first {@code count} months of this forecast
+    public CashFlowForecast firstMonths(int count) {
+        if (count >= months.size()) {
+            return this;
+        }
+        return new CashFlowForecast(asOf, startingBalance, historyMonths, averageMonthlyIncome,
+                averageMonthlyExpenses, months.subList(0, count));
+    }
+
+    // Getters and Setters
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(LocalDate asOf) {
+        this.asOf = asOf;
+    }
+
+    public BigDecimal getStartingBalance() {
+        return startingBalance;
+    }
+
+    public void setStartingBalance(BigDecimal startingBalance) {
+        this.startingBalance = startingBalance;
+    }
+
+    public int getHistoryMonths() {
+        return historyMonths;
+    }
+
+    public void setHistoryMonths(int historyMonths) {
+        this.historyMonths = historyMonths;
+    }
+
+    public BigDecimal getAverageMonthlyIncome() {
+        return averageMonthlyIncome;
+    }
+
+    public void setAverageMonthlyIncome(BigDecimal averageMonthlyIncome) {
+        this.averageMonthlyIncome = averageMonthlyIncome;
+    }
+
+    public BigDecimal getAverageMonthlyExpenses() {
+        return averageMonthlyExpenses;
+    }
+
+    public void setAverageMonthlyExpenses(BigDecimal averageMonthlyExpenses) {
+        this.averageMonthlyExpenses = averageMonthlyExpenses;
+    }
+
+    public List<Month> getMonths() {
+        return months;
+    }
+
+    public void setMonths(List<Month> months) {
+        this.months = months;
+    }
+
+    public static class Month {
+
+        private String month;
+        private BigDecimal income;
+        private BigDecimal expenses;
+        private BigDecimal recurringIncome;
+        private BigDecimal recurringExpenses;
+        private BigDecimal balance;
+
+        // Constructors
+        public Month() {}
+
+        public Month(String month, BigDecimal income, BigDecimal expenses, BigDecimal recurringIncome,
+                     BigDecimal recurringExpenses, BigDecimal balance) {
+            this.month = month;
+            this.income = income;
+            this.expenses = expenses;
+            this.recurringIncome = recurringIncome;
+            this.recurringExpenses = recurringExpenses;
+            this.balance = balance;
+        }
+
+        // Getters and Setters
+        public String getMonth() {
+            return month;
+        }
+
+        public void setMonth(String month) {
+            this.month = month;
+        }
+
+        public BigDecimal getIncome() {
+            return income;
+        }
+
+        public void setIncome(BigDecimal income) {
+            this.income = income;
+        }
+
+        public BigDecimal getExpenses() {
+            return expenses;
+        }
+
+        public void setExpenses(BigDecimal expenses) {
+            this.expenses = expenses;
+        }
+
+        public BigDecimal getRecurringIncome() {
+            return recurringIncome;
+        }
+
+        public void setRecurringIncome(BigDecimal recurringIncome) {
+            this.recurringIncome = recurringIncome;
+        }
+
+        public BigDecimal getRecurringExpenses() {
+            return recurringExpenses;
+        }
+
+        public void setRecurringExpenses(BigDecimal recurringExpenses) {
+            this.recurringExpenses = recurringExpenses;
+        }
+
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        public void setBalance(BigDecimal balance) {
+            this.balance = balance;
+        }
+    }
+}
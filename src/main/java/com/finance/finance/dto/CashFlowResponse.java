@@ -44,13 +44,31 @@ public class CashFlowResponse {
         this.updatedAt = updatedAt;
     }
 
+    // Flat constructor used by JPQL constructor expressions (CashFlowRepository.RESPONSE_PROJECTION)
+    public CashFlowResponse(Long id, String description, BigDecimal amount,
+                           LocalDate transactionDate, CashFlow.CashFlowType type,
+                           Long categoryId, String categoryName, String categoryDescription,
+                           Category.CategoryType categoryType, Boolean categoryIsActive,
+                           LocalDateTime categoryCreatedAt, LocalDateTime categoryUpdatedAt,
+                           String notes, Boolean isRecurring, String recurringFrequency,
+                           Boolean isActive, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, description, amount, transactionDate, type,
+             new CategoryResponse(categoryId, categoryName, categoryDescription, categoryType,
+                                  categoryIsActive, categoryCreatedAt, categoryUpdatedAt),
+             notes, isRecurring, recurringFrequency, isActive, createdAt, updatedAt);
+    }
+
     // Static factory method to create from entity
     public static CashFlowResponse fromEntity(CashFlow cashFlow) {
         CategoryResponse categoryResponse = null;
         if (cashFlow.getCategory() != null) {
             categoryResponse = CategoryResponse.fromEntity(cashFlow.getCategory());
         }
+        return fromEntity(cashFlow, categoryResponse);
+    }
 
+    // Category supplied by the caller, so an uninitialized category proxy is never loaded
+    public static CashFlowResponse fromEntity(CashFlow cashFlow, CategoryResponse categoryResponse) {
         return new CashFlowResponse(
             cashFlow.getId(),
             cashFlow.getDescription(),
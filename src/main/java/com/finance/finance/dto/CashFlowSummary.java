@@ -0,0 +1,82 @@
+package com.finance.finance.dto;
+
+import com.finance.finance.entity.CashFlow;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sum and count of active cash flows per {@link CashFlow.CashFlowType} for a date range,
+ * built from a single GROUP BY query. Types with no rows report zero.
+ */
+public class CashFlowSummary {
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final Map<CashFlow.CashFlowType, CashFlowTypeTotal> totals;
+
+    public CashFlowSummary(LocalDate startDate, LocalDate endDate, List<CashFlowTypeTotal> rows) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        Map<CashFlow.CashFlowType, CashFlowTypeTotal> byType = new EnumMap<>(CashFlow.CashFlowType.class);
+        for (CashFlow.CashFlowType type : CashFlow.CashFlowType.values()) {
+            byType.put(type, new CashFlowTypeTotal(type, BigDecimal.ZERO, 0L));
+        }
+        for (CashFlowTypeTotal row : rows) {
+            byType.put(row.getType(), row);
+        }
+        this.totals = Collections.unmodifiableMap(byType);
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public Map<CashFlow.CashFlowType, CashFlowTypeTotal> getTotals() {
+        return totals;
+    }
+
+    public BigDecimal getTotal(CashFlow.CashFlowType type) {
+        return totals.get(type).getTotal();
+    }
+
+    public long getCount(CashFlow.CashFlowType type) {
+        return totals.get(type).getCount();
+    }
+
+    public BigDecimal getTotalIncome() {
+        return getTotal(CashFlow.CashFlowType.INCOME);
+    }
+
+    public BigDecimal getTotalExpenses() {
+        return getTotal(CashFlow.CashFlowType.EXPENSE);
+    }
+
+    public BigDecimal getBalance() {
+        return getTotalIncome().subtract(getTotalExpenses());
+    }
+
+    public long getIncomeCount() {
+        return getCount(CashFlow.CashFlowType.INCOME);
+    }
+
+    public long getExpenseCount() {
+        return getCount(CashFlow.CashFlowType.EXPENSE);
+    }
+
+    public long getTotalCount() {
+        long count = 0;
+        for (CashFlowTypeTotal total : totals.values()) {
+            count += total.getCount();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+package com.finance.finance.dto;
+
+import com.finance.finance.entity.CashFlow;
+
+import java.math.BigDecimal;
+
+public class CashFlowTypeTotal {
+
+    private CashFlow.CashFlowType type;
+    private BigDecimal total;
+    private long count;
+
+    // Constructors
+    public CashFlowTypeTotal() {}
+
+    // Used by JPQL constructor expressions (SUM/COUNT ... GROUP BY type)
+    public CashFlowTypeTotal(CashFlow.CashFlowType type, BigDecimal total, Long count) {
+        this.type = type;
+        this.total = total != null ? total : BigDecimal.ZERO;
+        this.count = count != null ? count : 0L;
+    }
+
+    // Getters and Setters
+    public CashFlow.CashFlowType getType() {
+        return type;
+    }
+
+    public void setType(CashFlow.CashFlowType type) {
+        this.type = type;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,47 @@
+package com.finance.finance.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Sync position: the (changeSeq, id) of the last change a client has applied,
+ * the key the change feed is ordered by. Sent to clients as an opaque
+ * base64url token, like CashFlowCursor.
+ */
+public class CashFlowWatermark {
+
+    private final long changeSeq;
+    private final Long id;
+
+    public CashFlowWatermark(long changeSeq, Long id) {
+        this.changeSeq = changeSeq;
+        this.id = id;
+    }
+
+    public String encode() {
+        String raw = changeSeq + "/" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CashFlowWatermark decode(String watermark) {
+        String raw = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8);
+        int separator = raw.indexOf('/');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid watermark");
+        }
+        try {
+            return new CashFlowWatermark(Long.parseLong(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid watermark", e);
+        }
+    }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,95 @@
+package com.finance.finance.dto;
+
+import java.util.List;
+
+public class StatementImportResult {
+
+    private String importId;
+    private String format;
+    private long staged;
+    private long imported;
+    private long duplicates;
+    private long uncategorized;
+    private long rejected;
+    private List<String> errors;
+
+    // Constructors
+    public StatementImportResult() {}
+
+    public StatementImportResult(String importId, String format, long staged, long imported, long duplicates,
+                                 long uncategorized, long rejected, List<String> errors) {
+        this.importId = importId;
+        this.format = format;
+        this.staged = staged;
+        this.imported = imported;
+        this.duplicates = duplicates;
+        this.uncategorized = uncategorized;
+        this.rejected = rejected;
+        this.errors = errors;
+    }
+
+    // Getters and Setters
+    public String getImportId() {
+        return importId;
+    }
+
+    public void setImportId(String importId) {
+        this.importId = importId;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public long getStaged() {
+        return staged;
+    }
+
+    public void setStaged(long staged) {
+        this.staged = staged;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(long duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public long getUncategorized() {
+        return uncategorized;
+    }
+
+    public void setUncategorized(long uncategorized) {
+        this.uncategorized = uncategorized;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
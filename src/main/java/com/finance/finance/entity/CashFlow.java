@@ -14,12 +14,17 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+// Indexes (partial/covering) are owned by the Flyway migrations in db/migration.
+// The table is range-partitioned by transaction_date month (V4); its primary key is
+// (id, transaction_date), but id alone stays unique through cash_flows_seq.
 @Table(name = "cash_flows")
 @EntityListeners(AuditingEntityListener.class)
 public class CashFlow {
 
+    // Sequence (not IDENTITY) so Hibernate can batch inserts; ids are handed out in blocks of 50
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cash_flows_seq")
+    @SequenceGenerator(name = "cash_flows_seq", sequenceName = "cash_flows_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -63,6 +68,10 @@ public class CashFlow {
     @Column(name = "is_active")
     private Boolean isActive = true;
 
+    // Set by statement imports (bank FITID or a content hash); used to skip re-imported rows
+    @Column(name = "import_key", length = 255)
+    private String importKey;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -71,6 +80,10 @@ public class CashFlow {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Position in the user's change feed; NULL until CashFlowVersionService stamps the writing transaction
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
     // Constructors
     public CashFlow() {
     }
@@ -174,6 +187,14 @@ public class CashFlow {
         this.isActive = isActive;
     }
 
+    public String getImportKey() {
+        return importKey;
+    }
+
+    public void setImportKey(String importKey) {
+        this.importKey = importKey;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -190,6 +211,21 @@ public class CashFlow {
         this.updatedAt = updatedAt;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    // Every write moves the row to the end of the change feed once its transaction stamps it
+    @PrePersist
+    @PreUpdate
+    void clearChangeSeq() {
+        changeSeq = null;
+    }
+
     // Enum for Cash Flow Type
     public enum CashFlowType {
         INCOME("Receita"),
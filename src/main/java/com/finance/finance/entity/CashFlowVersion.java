@@ -0,0 +1,46 @@
+package com.finance.finance.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Data version of one user's cash flows, bumped in every transaction that
+ * writes them (see CashFlowVersionService). Lives next to the rows, on the
+ * user's shard.
+ */
+@Entity
+@Table(name = "cash_flow_versions")
+public class CashFlowVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long version;
+
+    // Constructors
+    public CashFlowVersion() {
+    }
+
+    public CashFlowVersion(Long userId, Long version) {
+        this.userId = userId;
+        this.version = version;
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,45 @@
+package com.finance.finance.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Change counter of an in-memory catalog (see CategoryCatalog). Bumped after each
+ * committed change so other nodes can tell their copy is stale.
+ */
+@Entity
+@Table(name = "catalog_versions")
+public class CatalogVersion {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(nullable = false)
+    private Long version;
+
+    // Constructors
+    public CatalogVersion() {
+    }
+
+    public CatalogVersion(String name, Long version) {
+        this.name = name;
+        this.version = version;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -1,5 +1,7 @@
 package com.finance.finance.entity;
 
+import com.finance.finance.config.CategoryChangeListener;
+import com.finance.finance.config.ShardReferenceListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -13,7 +15,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "categories")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, CategoryChangeListener.class, ShardReferenceListener.class})
 public class Category {
 
     @Id
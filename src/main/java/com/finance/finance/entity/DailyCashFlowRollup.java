@@ -0,0 +1,115 @@
+package com.finance.finance.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated active cash flows per user, day, type and category.
+ * Maintained transactionally by CashFlowService so range summaries read
+ * at most one row per day and type instead of every transaction.
+ */
+@Entity
+@Table(name = "daily_cash_flow_rollup",
+       uniqueConstraints = @UniqueConstraint(
+               name = "uk_daily_rollup_user_date_type_category",
+               columnNames = {"user_id", "rollup_date", "type", "category_id"}))
+public class DailyCashFlowRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CashFlow.CashFlowType type;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "category_id", nullable = false)
+    private Category category;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount = 0L;
+
+    // Constructors
+    public DailyCashFlowRollup() {
+    }
+
+    public DailyCashFlowRollup(User user, LocalDate rollupDate, CashFlow.CashFlowType type,
+                               Category category, BigDecimal totalAmount, Long transactionCount) {
+        this.user = user;
+        this.rollupDate = rollupDate;
+        this.type = type;
+        this.category = category;
+        this.totalAmount = totalAmount;
+        this.transactionCount = transactionCount;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public LocalDate getRollupDate() {
+        return rollupDate;
+    }
+
+    public void setRollupDate(LocalDate rollupDate) {
+        this.rollupDate = rollupDate;
+    }
+
+    public CashFlow.CashFlowType getType() {
+        return type;
+    }
+
+    public void setType(CashFlow.CashFlowType type) {
+        this.type = type;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public void setCategory(Category category) {
+        this.category = category;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public Long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(Long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+}
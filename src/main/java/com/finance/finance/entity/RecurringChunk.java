@@ -0,0 +1,82 @@
+package com.finance.finance.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Lease and progress of one range of users for RecurringCashFlowMaterializer.
+ * Claimed, renewed and released through conditional updates in
+ * RecurringChunkRepository, never by loading and saving the row.
+ */
+@Entity
+@Table(name = "recurring_chunks")
+public class RecurringChunk {
+
+    @Id
+    private Long chunk;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    // Last day whose occurrences are all written for this range
+    @Column(name = "materialized_through")
+    private LocalDate materializedThrough;
+
+    // Start of the last completed run; templates changed since then get their full window
+    @Column(name = "last_started_at")
+    private LocalDateTime lastStartedAt;
+
+    // Constructors
+    public RecurringChunk() {
+    }
+
+    public RecurringChunk(Long chunk) {
+        this.chunk = chunk;
+    }
+
+    // Getters and Setters
+    public Long getChunk() {
+        return chunk;
+    }
+
+    public void setChunk(Long chunk) {
+        this.chunk = chunk;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public LocalDate getMaterializedThrough() {
+        return materializedThrough;
+    }
+
+    public void setMaterializedThrough(LocalDate materializedThrough) {
+        this.materializedThrough = materializedThrough;
+    }
+
+    public LocalDateTime getLastStartedAt() {
+        return lastStartedAt;
+    }
+
+    public void setLastStartedAt(LocalDateTime lastStartedAt) {
+        this.lastStartedAt = lastStartedAt;
+    }
+}
@@ -0,0 +1,76 @@
+package com.finance.finance.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A JWT revoked before its natural expiry, keyed by its jti claim.
+ * Rows are only needed until expires_at; after that the token is rejected
+ * by its own expiration and the row is purged.
+ */
+@Entity
+@Table(name = "revoked_tokens",
+       indexes = {
+               @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at"),
+               @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at")
+       })
+public class RevokedToken {
+
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    @Column(nullable = false, length = 50)
+    private String username;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    // Constructors
+    public RevokedToken() {
+    }
+
+    public RevokedToken(String jti, String username, Instant expiresAt, Instant revokedAt) {
+        this.jti = jti;
+        this.username = username;
+        this.expiresAt = expiresAt;
+        this.revokedAt = revokedAt;
+    }
+
+    // Getters and Setters
+    public String getJti() {
+        return jti;
+    }
+
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(Instant revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+}
@@ -0,0 +1,93 @@
+package com.finance.finance.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pins a user to a shard, overriding the consistent-hash placement. Written by
+ * ShardRebalancer; lives on the home shard only.
+ */
+@Entity
+@Table(name = "shard_assignments")
+@EntityListeners(AuditingEntityListener.class)
+public class ShardAssignment {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // Shard that currently holds and serves the user's rows
+    @Column(nullable = false, length = 50)
+    private String shard;
+
+    // Destination while MOVING
+    @Column(name = "target_shard", length = 50)
+    private String targetShard;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private State state = State.ACTIVE;
+
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum State {
+        ACTIVE, MOVING
+    }
+
+    // Constructors
+    public ShardAssignment() {
+    }
+
+    public ShardAssignment(Long userId, String shard, String targetShard, State state) {
+        this.userId = userId;
+        this.shard = shard;
+        this.targetShard = targetShard;
+        this.state = state;
+    }
+
+    // Getters and Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getShard() {
+        return shard;
+    }
+
+    public void setShard(String shard) {
+        this.shard = shard;
+    }
+
+    public String getTargetShard() {
+        return targetShard;
+    }
+
+    public void setTargetShard(String targetShard) {
+        this.targetShard = targetShard;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
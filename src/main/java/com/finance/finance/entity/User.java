@@ -1,5 +1,7 @@
 package com.finance.finance.entity;
 
+import com.finance.finance.config.ShardReferenceListener;
+import com.finance.finance.config.UserCacheEvictionListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -8,11 +10,13 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 @Entity
 @Table(name = "users")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, UserCacheEvictionListener.class, ShardReferenceListener.class})
 public class User {
 
     @Id
@@ -52,6 +56,10 @@ public class User {
     @Column(name = "roles")
     private String roles = "USER";
 
+    // Tokens issued before this instant are rejected (role, password or status change)
+    @Column(name = "tokens_valid_after")
+    private Instant tokensValidAfter;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -60,6 +68,9 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Transient
+    private String loadedSecurityState;
+
     // Constructors
     public User() {
     }
@@ -166,4 +177,26 @@ public class User {
     public void setWhatsapp(String whatsapp) {
         this.whatsapp = whatsapp;
     }
+
+    public Instant getTokensValidAfter() {
+        return tokensValidAfter;
+    }
+
+    public void setTokensValidAfter(Instant tokensValidAfter) {
+        this.tokensValidAfter = tokensValidAfter;
+    }
+
+    // Security-relevant state, compared on update to decide whether issued tokens must be revoked
+    public void rememberSecurityState() {
+        this.loadedSecurityState = securityState();
+    }
+
+    public boolean hasSecurityStateChanged() {
+        return !Objects.equals(loadedSecurityState, securityState());
+    }
+
+    private String securityState() {
+        return String.join("\u0000", String.valueOf(username), String.valueOf(password),
+                String.valueOf(roles), String.valueOf(enabled), String.valueOf(isActive));
+    }
 }
@@ -0,0 +1,70 @@
+package com.finance.finance.event;
+
+import com.finance.finance.dto.CashFlowResponse;
+
+/**
+ * Published by CashFlowService (and the statement import) whenever a user's
+ * cash flows change. Listeners that keep derived in-memory state should use
+ * an after-commit transactional listener so rolled back writes are ignored.
+ */
+public class CashFlowChangedEvent {
+
+    public enum Kind {
+        // One entry created or updated; snapshot holds the new state
+        UPSERTED,
+        // One entry deleted (deactivated)
+        DELETED,
+        // Many entries changed at once (bulk create, statement import)
+        BULK
+    }
+
+    private final Long userId;
+    private final Kind kind;
+    private final Long cashFlowId;
+    private final CashFlowResponse snapshot;
+    // Data version the writer's transaction bumped the user to; 0 when it was not bumped
+    private long version;
+
+    private CashFlowChangedEvent(Long userId, Kind kind, Long cashFlowId, CashFlowResponse snapshot) {
+        this.userId = userId;
+        this.kind = kind;
+        this.cashFlowId = cashFlowId;
+        this.snapshot = snapshot;
+    }
+
+    public static CashFlowChangedEvent upserted(Long userId, CashFlowResponse snapshot) {
+        return new CashFlowChangedEvent(userId, Kind.UPSERTED, snapshot.getId(), snapshot);
+    }
+
+    public static CashFlowChangedEvent deleted(Long userId, Long cashFlowId) {
+        return new CashFlowChangedEvent(userId, Kind.DELETED, cashFlowId, null);
+    }
+
+    public static CashFlowChangedEvent bulk(Long userId) {
+        return new CashFlowChangedEvent(userId, Kind.BULK, null, null);
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Long getCashFlowId() {
+        return cashFlowId;
+    }
+
+    public CashFlowResponse getSnapshot() {
+        return snapshot;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
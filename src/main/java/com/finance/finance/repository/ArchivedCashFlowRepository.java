@@ -0,0 +1,128 @@
+package com.finance.finance.repository;
+
+import com.finance.finance.dto.CashFlowChange;
+import com.finance.finance.dto.CashFlowResponse;
+import com.finance.finance.entity.ArchivedCashFlow;
+import com.finance.finance.entity.CashFlow;
+import com.finance.finance.entity.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedCashFlowRepository extends JpaRepository<ArchivedCashFlow, Long> {
+
+    // Same columns and order as CashFlowRepository.RESPONSE_PROJECTION
+    String RESPONSE_PROJECTION =
+           "SELECT new com.finance.finance.dto.CashFlowResponse(a.id, a.description, a.amount, " +
+           "a.transactionDate, a.type, c.id, c.name, c.description, c.type, c.isActive, c.createdAt, " +
+           "c.updatedAt, a.notes, a.isRecurring, a.recurringFrequency, a.isActive, a.createdAt, " +
+           "a.updatedAt) FROM ArchivedCashFlow a JOIN a.category c ";
+
+    // Same columns and order as CashFlowRepository.CHANGE_PROJECTION
+    String CHANGE_PROJECTION =
+           "SELECT new com.finance.finance.dto.CashFlowChange(a.changeSeq, a.id, a.description, a.amount, " +
+           "a.transactionDate, a.type, c.id, c.name, c.description, c.type, c.isActive, c.createdAt, " +
+           "c.updatedAt, a.notes, a.isRecurring, a.recurringFrequency, a.isActive, a.createdAt, " +
+           "a.updatedAt) FROM ArchivedCashFlow a JOIN a.category c ";
+
+    // Moves rows in by copy; the caller deletes them from cash_flows in the same transaction
+    @Modifying
+    @Query("INSERT INTO ArchivedCashFlow (id, description, amount, transactionDate, type, category, user, " +
+           "notes, isRecurring, recurringFrequency, isActive, importKey, createdAt, updatedAt, archivedAt, " +
+           "changeSeq) SELECT cf.id, cf.description, cf.amount, cf.transactionDate, cf.type, cf.category, " +
+           "cf.user, cf.notes, cf.isRecurring, cf.recurringFrequency, cf.isActive, cf.importKey, cf.createdAt, " +
+           "cf.updatedAt, :archivedAt, cf.changeSeq FROM CashFlow cf WHERE cf.id IN :ids")
+    int copyFromCashFlows(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    // Newest archived transaction date; everything active in the archive is on or before it
+    @Query("SELECT MAX(a.transactionDate) FROM ArchivedCashFlow a WHERE a.isActive = true")
+    LocalDate findLatestActiveTransactionDate();
+
+    @Query(RESPONSE_PROJECTION + "WHERE a.id = :id AND a.user = :user AND a.isActive = true")
+    Optional<CashFlowResponse> findResponseByIdAndUser(@Param("id") Long id, @Param("user") User user);
+
+    @Query(RESPONSE_PROJECTION + "WHERE a.user = :user AND a.isActive = true AND " +
+           "a.transactionDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY a.transactionDate DESC, a.createdAt DESC")
+    List<CashFlowResponse> findResponsesByUserAndDateRange(
+        @Param("user") User user,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate);
+
+    @Query(RESPONSE_PROJECTION + "WHERE a.user = :user AND a.isActive = true " +
+           "ORDER BY a.transactionDate DESC, a.id DESC")
+    List<CashFlowResponse> findFirstPageByUser(@Param("user") User user, Limit limit);
+
+    @Query(RESPONSE_PROJECTION + "WHERE a.user = :user AND a.isActive = true AND " +
+           "(a.transactionDate < :transactionDate OR (a.transactionDate = :transactionDate AND a.id < :id)) " +
+           "ORDER BY a.transactionDate DESC, a.id DESC")
+    List<CashFlowResponse> findPageByUserAfter(
+        @Param("user") User user,
+        @Param("transactionDate") LocalDate transactionDate,
+        @Param("id") Long id,
+        Limit limit);
+
+    long countByUserAndIsActiveTrue(User user);
+
+    @Query(value = RESPONSE_PROJECTION + "WHERE a.user = :user AND a.isActive = true",
+           countQuery = "SELECT COUNT(a) FROM ArchivedCashFlow a WHERE a.user = :user AND a.isActive = true")
+    Page<CashFlowResponse> findResponsesByUser(@Param("user") User user, Pageable pageable);
+
+    @Query(RESPONSE_PROJECTION + "WHERE a.user = :user AND a.isActive = true")
+    List<CashFlowResponse> findAllResponsesByUser(@Param("user") User user);
+
+    @Query(RESPONSE_PROJECTION + "WHERE a.user = :user AND a.type = :type AND a.isActive = true")
+    List<CashFlowResponse> findResponsesByUserAndType(
+        @Param("user") User user,
+        @Param("type") CashFlow.CashFlowType type);
+
+    // Same predicate as CashFlowRepository.findByUserAndSearchTerm; the archive has no trigram index
+    @Query(RESPONSE_PROJECTION + "WHERE a.user = :user AND a.isActive = true AND " +
+           "(LOWER(a.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')) ESCAPE '\\' OR " +
+           "LOWER(a.notes) LIKE LOWER(CONCAT('%', :searchTerm, '%')) ESCAPE '\\') " +
+           "ORDER BY a.transactionDate DESC, a.id DESC")
+    List<CashFlowResponse> findByUserAndSearchTerm(
+        @Param("user") User user,
+        @Param("searchTerm") String searchTerm,
+        Limit limit);
+
+    // The other half of a write-back; CashFlowRepository.copyFromArchive copies the row first
+    @Modifying
+    @Query("DELETE FROM ArchivedCashFlow a WHERE a.id = :id AND a.user = :user AND a.isActive = true")
+    int deleteActiveByIdAndUser(@Param("id") Long id, @Param("user") User user);
+
+    // Change feed over the archive, same order and bounds as CashFlowRepository
+    @Query(CHANGE_PROJECTION + "WHERE a.user = :user AND a.changeSeq <= :version " +
+           "ORDER BY a.changeSeq, a.id")
+    List<CashFlowChange> findFirstChangesByUser(
+        @Param("user") User user,
+        @Param("version") long version,
+        Limit limit);
+
+    @Query(CHANGE_PROJECTION + "WHERE a.user = :user AND a.changeSeq <= :version AND " +
+           "(a.changeSeq > :changeSeq OR (a.changeSeq = :changeSeq AND a.id > :id)) " +
+           "ORDER BY a.changeSeq, a.id")
+    List<CashFlowChange> findChangesByUserAfter(
+        @Param("user") User user,
+        @Param("changeSeq") long changeSeq,
+        @Param("id") Long id,
+        @Param("version") long version,
+        Limit limit);
+
+    // Rollup rebuilds: archived rows still count towards the daily totals
+    @Query("SELECT a.transactionDate, a.type, a.category, SUM(a.amount), COUNT(a) FROM ArchivedCashFlow a " +
+           "WHERE a.user = :user AND a.isActive = true GROUP BY a.transactionDate, a.type, a.category")
+    List<Object[]> sumAndCountByUserGroupedByDay(@Param("user") User user);
+}
@@ -1,34 +1,141 @@
 package com.finance.finance.repository;
 
+import com.finance.finance.dto.CashFlowChange;
+import com.finance.finance.dto.CashFlowResponse;
 import com.finance.finance.entity.CashFlow;
 import com.finance.finance.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CashFlowRepository extends JpaRepository<CashFlow, Long> {
     
-    Page<CashFlow> findByUserAndIsActiveTrue(User user, Pageable pageable);
+    // Flat DTO projection: only the columns CashFlowResponse needs, category joined in the same statement
+    String RESPONSE_PROJECTION =
+           "SELECT new com.finance.finance.dto.CashFlowResponse(cf.id, cf.description, cf.amount, " +
+           "cf.transactionDate, cf.type, c.id, c.name, c.description, c.type, c.isActive, c.createdAt, " +
+           "c.updatedAt, cf.notes, cf.isRecurring, cf.recurringFrequency, cf.isActive, cf.createdAt, " +
+           "cf.updatedAt) FROM CashFlow cf JOIN cf.category c ";
+
+    // RESPONSE_PROJECTION led by the change sequence, for the change feed
+    String CHANGE_PROJECTION =
+           "SELECT new com.finance.finance.dto.CashFlowChange(cf.changeSeq, cf.id, cf.description, cf.amount, " +
+           "cf.transactionDate, cf.type, c.id, c.name, c.description, c.type, c.isActive, c.createdAt, " +
+           "c.updatedAt, cf.notes, cf.isRecurring, cf.recurringFrequency, cf.isActive, cf.createdAt, " +
+           "cf.updatedAt) FROM CashFlow cf JOIN cf.category c ";
+    
+    long countByUserAndIsActiveTrue(User user);
+    
+    @Query(value = RESPONSE_PROJECTION + "WHERE cf.user = :user AND cf.isActive = true",
+           countQuery = "SELECT COUNT(cf) FROM CashFlow cf WHERE cf.user = :user AND cf.isActive = true")
+    Page<CashFlowResponse> findResponsesByUser(@Param("user") User user, Pageable pageable);
+    
+    @Query(RESPONSE_PROJECTION + "WHERE cf.id = :id AND cf.user = :user AND cf.isActive = true")
+    Optional<CashFlowResponse> findResponseByIdAndUser(@Param("id") Long id, @Param("user") User user);
+    
+    // Write paths: ownership and liveness are part of the lookup, not a check after loading
+    Optional<CashFlow> findByIdAndUserAndIsActiveTrue(Long id, User user);
+    
+    @Modifying
+    @Query("UPDATE CashFlow cf SET cf.isActive = false, cf.updatedAt = :now, cf.changeSeq = null " +
+           "WHERE cf.id = :id AND cf.user = :user AND cf.isActive = true")
+    int softDelete(@Param("id") Long id, @Param("user") User user, @Param("now") LocalDateTime now);
+    
+    // Archival: old rows, and soft-deleted rows past their grace period. Active recurring templates
+    // stay: the materializer and the forecast read them from cash_flows
+    @Query("SELECT cf.id FROM CashFlow cf WHERE (cf.transactionDate < :cutoff AND " +
+           "(cf.isRecurring IS NULL OR cf.isRecurring = false OR cf.isActive = false)) OR " +
+           "(cf.isActive = false AND cf.updatedAt < :deletedBefore) ORDER BY cf.id")
+    List<Long> findArchivableIds(
+        @Param("cutoff") LocalDate cutoff,
+        @Param("deletedBefore") LocalDateTime deletedBefore,
+        Limit limit);
+    
+    // Brings an archived row back so it can be written; change_seq stays NULL, so the write is stamped
+    @Modifying
+    @Query("INSERT INTO CashFlow (id, description, amount, transactionDate, type, category, user, notes, " +
+           "isRecurring, recurringFrequency, isActive, importKey, createdAt, updatedAt) SELECT a.id, " +
+           "a.description, a.amount, a.transactionDate, a.type, a.category, a.user, a.notes, a.isRecurring, " +
+           "a.recurringFrequency, a.isActive, a.importKey, a.createdAt, a.updatedAt FROM ArchivedCashFlow a " +
+           "WHERE a.id = :id AND a.user = :user AND a.isActive = true")
+    int copyFromArchive(@Param("id") Long id, @Param("user") User user);
+    
+    @Query("SELECT DISTINCT cf.user.id FROM CashFlow cf WHERE cf.id IN :ids")
+    List<Long> findUserIdsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("DELETE FROM CashFlow cf WHERE cf.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT COUNT(DISTINCT cf.user.id) FROM CashFlow cf")
+    long countDistinctUsers();
     
-    List<CashFlow> findByUserAndTypeAndIsActiveTrue(User user, CashFlow.CashFlowType type);
+    @Query(RESPONSE_PROJECTION + "WHERE cf.id IN :ids")
+    List<CashFlowResponse> findResponsesByIds(@Param("ids") Collection<Long> ids);
+    
+    // Keyset pagination: first page, newest first
+    @Query(RESPONSE_PROJECTION + "WHERE cf.user = :user AND cf.isActive = true " +
+           "ORDER BY cf.transactionDate DESC, cf.id DESC")
+    List<CashFlowResponse> findFirstPageByUser(@Param("user") User user, Limit limit);
+    
+    // Keyset pagination: rows strictly after the (transactionDate, id) of the previous page
+    @Query(RESPONSE_PROJECTION + "WHERE cf.user = :user AND cf.isActive = true AND " +
+           "(cf.transactionDate < :transactionDate OR (cf.transactionDate = :transactionDate AND cf.id < :id)) " +
+           "ORDER BY cf.transactionDate DESC, cf.id DESC")
+    List<CashFlowResponse> findPageByUserAfter(
+        @Param("user") User user,
+        @Param("transactionDate") LocalDate transactionDate,
+        @Param("id") Long id,
+        Limit limit);
+    
+    // Change feed: every row including tombstones, in (changeSeq, id) order up to the user's data version.
+    // Rows still waiting for their transaction's stamp (NULL) are left out.
+    @Query(CHANGE_PROJECTION + "WHERE cf.user = :user AND cf.changeSeq <= :version " +
+           "ORDER BY cf.changeSeq, cf.id")
+    List<CashFlowChange> findFirstChangesByUser(
+        @Param("user") User user,
+        @Param("version") long version,
+        Limit limit);
+    
+    @Query(CHANGE_PROJECTION + "WHERE cf.user = :user AND cf.changeSeq <= :version AND " +
+           "(cf.changeSeq > :changeSeq OR (cf.changeSeq = :changeSeq AND cf.id > :id)) " +
+           "ORDER BY cf.changeSeq, cf.id")
+    List<CashFlowChange> findChangesByUserAfter(
+        @Param("user") User user,
+        @Param("changeSeq") long changeSeq,
+        @Param("id") Long id,
+        @Param("version") long version,
+        Limit limit);
+    
+    @Query(RESPONSE_PROJECTION + "WHERE cf.user = :user AND cf.isActive = true")
+    List<CashFlowResponse> findAllResponsesByUser(@Param("user") User user);
+    
+    @Query(RESPONSE_PROJECTION + "WHERE cf.user = :user AND cf.type = :type AND cf.isActive = true")
+    List<CashFlowResponse> findResponsesByUserAndType(
+        @Param("user") User user,
+        @Param("type") CashFlow.CashFlowType type);
     
     List<CashFlow> findByUserAndTransactionDateBetweenAndIsActiveTrue(
         User user, LocalDate startDate, LocalDate endDate);
     
-    @Query("SELECT cf FROM CashFlow cf WHERE cf.user = :user AND cf.isActive = true AND " +
+    @Query(RESPONSE_PROJECTION + "WHERE cf.user = :user AND cf.isActive = true AND " +
            "cf.transactionDate BETWEEN :startDate AND :endDate " +
            "ORDER BY cf.transactionDate DESC, cf.createdAt DESC")
-    List<CashFlow> findByUserAndDateRangeOrdered(
-        @Param("user") User user, 
-        @Param("startDate") LocalDate startDate, 
+    List<CashFlowResponse> findResponsesByUserAndDateRange(
+        @Param("user") User user,
+        @Param("startDate") LocalDate startDate,
         @Param("endDate") LocalDate endDate);
     
     @Query("SELECT cf FROM CashFlow cf WHERE cf.user = :user AND cf.isActive = true AND " +
@@ -40,30 +147,69 @@ public interface CashFlowRepository extends JpaRepository<CashFlow, Long> {
         @Param("startDate") LocalDate startDate, 
         @Param("endDate") LocalDate endDate);
     
-    @Query("SELECT SUM(cf.amount) FROM CashFlow cf WHERE cf.user = :user AND " +
-           "cf.type = :type AND cf.transactionDate BETWEEN :startDate AND :endDate " +
-           "AND cf.isActive = true")
-    BigDecimal sumAmountByUserAndTypeAndDateRange(
-        @Param("user") User user,
-        @Param("type") CashFlow.CashFlowType type,
-        @Param("startDate") LocalDate startDate,
-        @Param("endDate") LocalDate endDate);
-    
-    @Query("SELECT cf FROM CashFlow cf WHERE cf.user = :user AND cf.isActive = true AND " +
-           "(LOWER(cf.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(cf.notes) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) " +
-           "ORDER BY cf.transactionDate DESC")
-    List<CashFlow> findByUserAndSearchTerm(
+    // Portable fallback (H2, or PostgreSQL without pg_trgm); :searchTerm must have LIKE wildcards escaped
+    @Query(RESPONSE_PROJECTION + "WHERE cf.user = :user AND cf.isActive = true AND " +
+           "(LOWER(cf.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')) ESCAPE '\\' OR " +
+           "LOWER(cf.notes) LIKE LOWER(CONCAT('%', :searchTerm, '%')) ESCAPE '\\') " +
+           "ORDER BY cf.transactionDate DESC, cf.id DESC")
+    List<CashFlowResponse> findByUserAndSearchTerm(
         @Param("user") User user, 
-        @Param("searchTerm") String searchTerm);
+        @Param("searchTerm") String searchTerm,
+        Pageable pageable);
+    
+    @Query("SELECT COUNT(cf) FROM CashFlow cf WHERE cf.user = :user AND cf.isActive = true AND " +
+           "(LOWER(cf.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')) ESCAPE '\\' OR " +
+           "LOWER(cf.notes) LIKE LOWER(CONCAT('%', :searchTerm, '%')) ESCAPE '\\')")
+    long countByUserAndSearchTerm(@Param("user") User user, @Param("searchTerm") String searchTerm);
+    
+    // PostgreSQL: served by the pg_trgm GIN index idx_cash_flows_search_trgm (V2 migration),
+    // ranked by trigram word similarity. The search expression must match the index expression.
+    // Returns ids only; rows are then loaded with findResponsesByIds.
+    @Query(value = "SELECT cf.id FROM cash_flows cf WHERE cf.user_id = :userId AND cf.is_active = true AND " +
+                   "lower(coalesce(cf.description, '') || ' ' || coalesce(cf.notes, '')) LIKE '%' || lower(:searchTerm) || '%' " +
+                   "ORDER BY word_similarity(lower(:searchTerm), " +
+                   "lower(coalesce(cf.description, '') || ' ' || coalesce(cf.notes, ''))) DESC, " +
+                   "cf.transaction_date DESC, cf.id DESC",
+           nativeQuery = true)
+    List<Long> searchRankedIdsByTrigram(
+        @Param("userId") Long userId,
+        @Param("searchTerm") String searchTerm,
+        Pageable pageable);
+    
+    @Query(value = "SELECT COUNT(*) FROM cash_flows cf WHERE cf.user_id = :userId AND cf.is_active = true AND " +
+                   "lower(coalesce(cf.description, '') || ' ' || coalesce(cf.notes, '')) LIKE '%' || lower(:searchTerm) || '%'",
+           nativeQuery = true)
+    long countTrigramMatches(@Param("userId") Long userId, @Param("searchTerm") String searchTerm);
+    
+    List<CashFlow> findByUserAndIsRecurringTrueAndIsActiveTrue(User user);
+    
+    // Recurring materializer: templates of one user range, keyset on (user id, id)
+    @Query("SELECT cf FROM CashFlow cf WHERE cf.isRecurring = true AND cf.isActive = true AND " +
+           "cf.user.id >= :fromUserId AND cf.user.id < :toUserId AND " +
+           "(cf.user.id > :afterUserId OR (cf.user.id = :afterUserId AND cf.id > :afterId)) " +
+           "ORDER BY cf.user.id, cf.id")
+    List<CashFlow> findRecurringTemplates(
+        @Param("fromUserId") Long fromUserId,
+        @Param("toUserId") Long toUserId,
+        @Param("afterUserId") Long afterUserId,
+        @Param("afterId") Long afterId,
+        Limit limit);
+    
+    @Query("SELECT MAX(cf.user.id) FROM CashFlow cf WHERE cf.isRecurring = true AND cf.isActive = true")
+    Long findMaxRecurringUserId();
     
-    @Query("SELECT COUNT(cf) FROM CashFlow cf WHERE cf.user = :user AND cf.type = :type " +
-           "AND cf.transactionDate BETWEEN :startDate AND :endDate AND cf.isActive = true")
-    long countByUserAndTypeAndDateRange(
+    // Forecast: (importKey, type, amount) of the materialized occurrences in a date range
+    @Query("SELECT cf.importKey, cf.type, cf.amount FROM CashFlow cf WHERE cf.user = :user AND cf.isActive = true AND " +
+           "cf.importKey LIKE :keyPattern AND cf.transactionDate BETWEEN :startDate AND :endDate")
+    List<Object[]> findOccurrencesByUserAndDateRange(
         @Param("user") User user,
-        @Param("type") CashFlow.CashFlowType type,
+        @Param("keyPattern") String keyPattern,
         @Param("startDate") LocalDate startDate,
         @Param("endDate") LocalDate endDate);
     
-    List<CashFlow> findByUserAndIsRecurringTrueAndIsActiveTrue(User user);
+    // Deleted rows count too: an occurrence the user removed is not written again
+    @Query("SELECT cf.importKey FROM CashFlow cf WHERE cf.user.id IN :userIds AND cf.importKey IN :importKeys")
+    List<String> findExistingImportKeys(
+        @Param("userIds") Collection<Long> userIds,
+        @Param("importKeys") Collection<String> importKeys);
 }
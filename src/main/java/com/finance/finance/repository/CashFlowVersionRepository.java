@@ -0,0 +1,41 @@
+package com.finance.finance.repository;
+
+import com.finance.finance.entity.CashFlowVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CashFlowVersionRepository extends JpaRepository<CashFlowVersion, Long> {
+
+    @Query("SELECT v.version FROM CashFlowVersion v WHERE v.userId = :userId")
+    Optional<Long> findVersion(@Param("userId") Long userId);
+
+    // Creates the row on a user's first write; the row lock is held until commit
+    @Modifying
+    @Query(value = "INSERT INTO cash_flow_versions (user_id, version) VALUES (:userId, 1) " +
+           "ON CONFLICT (user_id) DO UPDATE SET version = cash_flow_versions.version + 1",
+           nativeQuery = true)
+    int upsertIncrement(@Param("userId") Long userId);
+
+    // Same increment for H2 (tests), which has no ON CONFLICT ... DO UPDATE
+    @Modifying
+    @Query(value = "MERGE INTO cash_flow_versions v USING (SELECT CAST(:userId AS BIGINT) AS user_id) s " +
+           "ON v.user_id = s.user_id " +
+           "WHEN MATCHED THEN UPDATE SET version = v.version + 1 " +
+           "WHEN NOT MATCHED THEN INSERT (user_id, version) VALUES (s.user_id, 1)",
+           nativeQuery = true)
+    int mergeIncrement(@Param("userId") Long userId);
+
+    // Stamps the rows this transaction wrote (change_seq still NULL) with the version it just bumped
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE cash_flows SET change_seq = " +
+           "(SELECT version FROM cash_flow_versions WHERE user_id = :userId) " +
+           "WHERE user_id = :userId AND change_seq IS NULL",
+           nativeQuery = true)
+    int stampChanges(@Param("userId") Long userId);
+}
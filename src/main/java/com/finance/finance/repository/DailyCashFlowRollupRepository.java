@@ -0,0 +1,101 @@
+package com.finance.finance.repository;
+
+import com.finance.finance.dto.CashFlowTypeTotal;
+import com.finance.finance.entity.CashFlow;
+import com.finance.finance.entity.Category;
+import com.finance.finance.entity.DailyCashFlowRollup;
+import com.finance.finance.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyCashFlowRollupRepository extends JpaRepository<DailyCashFlowRollup, Long> {
+
+    @Query("SELECT new com.finance.finance.dto.CashFlowTypeTotal(r.type, SUM(r.totalAmount), SUM(r.transactionCount)) " +
+           "FROM DailyCashFlowRollup r WHERE r.user = :user AND " +
+           "r.rollupDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.type")
+    List<CashFlowTypeTotal> sumAndCountByUserAndDateRangeGroupedByType(
+        @Param("user") User user,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.finance.finance.dto.CashFlowTypeTotal(r.type, SUM(r.totalAmount), SUM(r.transactionCount)) " +
+           "FROM DailyCashFlowRollup r WHERE r.user = :user AND r.rollupDate <= :endDate " +
+           "GROUP BY r.type")
+    List<CashFlowTypeTotal> sumAndCountByUserUpToGroupedByType(
+        @Param("user") User user,
+        @Param("endDate") LocalDate endDate);
+
+    // Forecast input: (date, type, amount) per day, categories folded together
+    @Query("SELECT r.rollupDate, r.type, SUM(r.totalAmount) FROM DailyCashFlowRollup r " +
+           "WHERE r.user = :user AND r.rollupDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.rollupDate, r.type")
+    List<Object[]> sumByUserAndDateRangeGroupedByDay(
+        @Param("user") User user,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate);
+
+    // Adds a delta in one statement, so concurrent first writes to a row cannot both insert it.
+    // PostgreSQL: INSERT ... ON CONFLICT on the unique key
+    @Modifying
+    @Query(value = "INSERT INTO daily_cash_flow_rollup (user_id, rollup_date, type, category_id, total_amount, transaction_count) " +
+           "VALUES (:userId, :rollupDate, :type, :categoryId, :amount, :count) " +
+           "ON CONFLICT (user_id, rollup_date, type, category_id) DO UPDATE SET " +
+           "total_amount = daily_cash_flow_rollup.total_amount + EXCLUDED.total_amount, " +
+           "transaction_count = daily_cash_flow_rollup.transaction_count + EXCLUDED.transaction_count",
+           nativeQuery = true)
+    int upsertDelta(
+        @Param("userId") Long userId,
+        @Param("rollupDate") LocalDate rollupDate,
+        @Param("type") String type,
+        @Param("categoryId") Long categoryId,
+        @Param("amount") BigDecimal amount,
+        @Param("count") long count);
+
+    // Same delta for H2 (tests), which has no ON CONFLICT ... DO UPDATE
+    @Modifying
+    @Query(value = "MERGE INTO daily_cash_flow_rollup r USING (SELECT CAST(:userId AS BIGINT) AS user_id, " +
+           "CAST(:rollupDate AS DATE) AS rollup_date, CAST(:type AS VARCHAR(255)) AS type, " +
+           "CAST(:categoryId AS BIGINT) AS category_id) s " +
+           "ON r.user_id = s.user_id AND r.rollup_date = s.rollup_date AND r.type = s.type AND r.category_id = s.category_id " +
+           "WHEN MATCHED THEN UPDATE SET total_amount = r.total_amount + :amount, " +
+           "transaction_count = r.transaction_count + :count " +
+           "WHEN NOT MATCHED THEN INSERT (user_id, rollup_date, type, category_id, total_amount, transaction_count) " +
+           "VALUES (s.user_id, s.rollup_date, s.type, s.category_id, :amount, :count)",
+           nativeQuery = true)
+    int mergeDelta(
+        @Param("userId") Long userId,
+        @Param("rollupDate") LocalDate rollupDate,
+        @Param("type") String type,
+        @Param("categoryId") Long categoryId,
+        @Param("amount") BigDecimal amount,
+        @Param("count") long count);
+
+    // Backs one cash flow out of its rollup row without loading it
+    @Modifying
+    @Query("UPDATE DailyCashFlowRollup r SET " +
+           "r.totalAmount = r.totalAmount - (SELECT cf.amount FROM CashFlow cf WHERE cf.id = :cashFlowId), " +
+           "r.transactionCount = r.transactionCount - 1 " +
+           "WHERE r.user = :user AND EXISTS (SELECT 1 FROM CashFlow cf WHERE cf.id = :cashFlowId AND " +
+           "cf.user = r.user AND cf.transactionDate = r.rollupDate AND cf.type = r.type AND cf.category = r.category)")
+    int subtractCashFlow(@Param("user") User user, @Param("cashFlowId") Long cashFlowId);
+
+    @Modifying
+    @Query("DELETE FROM DailyCashFlowRollup r WHERE r.user = :user")
+    int deleteByUser(@Param("user") User user);
+
+    @Modifying
+    @Query("INSERT INTO DailyCashFlowRollup (user, rollupDate, type, category, totalAmount, transactionCount) " +
+           "SELECT cf.user, cf.transactionDate, cf.type, cf.category, SUM(cf.amount), COUNT(cf) " +
+           "FROM CashFlow cf WHERE cf.user = :user AND cf.isActive = true " +
+           "GROUP BY cf.user, cf.transactionDate, cf.type, cf.category")
+    int insertAggregatesForUser(@Param("user") User user);
+}
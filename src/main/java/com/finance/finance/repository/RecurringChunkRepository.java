@@ -0,0 +1,43 @@
+package com.finance.finance.repository;
+
+import com.finance.finance.entity.RecurringChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface RecurringChunkRepository extends JpaRepository<RecurringChunk, Long> {
+
+    // Takes the chunk when its lease is free or expired; 1 when this owner now holds it
+    @Modifying
+    @Query("UPDATE RecurringChunk c SET c.leaseOwner = :owner, c.leaseUntil = :until " +
+           "WHERE c.chunk = :chunk AND (c.leaseUntil IS NULL OR c.leaseUntil < :now)")
+    int claim(@Param("chunk") Long chunk, @Param("owner") String owner,
+              @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // Extends the lease and locks the row for the rest of the caller's transaction; 0 when it was lost
+    @Modifying
+    @Query("UPDATE RecurringChunk c SET c.leaseUntil = :until WHERE c.chunk = :chunk AND c.leaseOwner = :owner")
+    int renew(@Param("chunk") Long chunk, @Param("owner") String owner, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE RecurringChunk c SET c.leaseOwner = null, c.leaseUntil = null, " +
+           "c.materializedThrough = :through, c.lastStartedAt = :startedAt " +
+           "WHERE c.chunk = :chunk AND c.leaseOwner = :owner")
+    int complete(@Param("chunk") Long chunk, @Param("owner") String owner,
+                 @Param("through") LocalDate through, @Param("startedAt") LocalDateTime startedAt);
+
+    @Modifying
+    @Query("UPDATE RecurringChunk c SET c.leaseOwner = null, c.leaseUntil = null " +
+           "WHERE c.chunk = :chunk AND c.leaseOwner = :owner")
+    int release(@Param("chunk") Long chunk, @Param("owner") String owner);
+
+    // Start of the most recent completed chunk run; null before the materializer first ran
+    @Query("SELECT MAX(c.lastStartedAt) FROM RecurringChunk c")
+    LocalDateTime findLatestStartedAt();
+}
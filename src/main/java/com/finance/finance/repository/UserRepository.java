@@ -2,8 +2,12 @@ package com.finance.finance.repository;
 
 import com.finance.finance.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +20,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
     
     boolean existsByEmail(String email);
+    
+    @Query("SELECT u.id FROM User u ORDER BY u.id")
+    List<Long> findAllIds();
+    
+    @Query("SELECT u.username AS username, u.tokensValidAfter AS tokensValidAfter FROM User u " +
+           "WHERE u.tokensValidAfter > :since")
+    List<TokenCutoff> findTokenCutoffsAfter(@Param("since") Instant since);
+    
+    interface TokenCutoff {
+        String getUsername();
+        
+        Instant getTokensValidAfter();
+    }
 }
@@ -0,0 +1,169 @@
+package com.finance.finance.service;
+
+import com.finance.finance.entity.User;
+import com.finance.finance.event.CashFlowChangedEvent;
+import com.finance.finance.repository.ArchivedCashFlowRepository;
+import com.finance.finance.repository.CashFlowRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Moves cold cash flows out of the hot table into cash_flows_archive:
+ * rows dated before the archive window and soft-deleted rows past their grace
+ * period. Each batch is copied and deleted in its own transaction, so the job
+ * can stop at any point without losing or duplicating rows.
+ *
+ * Also tracks the newest active archived date, which lets readers skip the
+ * archive entirely for ranges that do not reach back that far. Every read of a
+ * user's cash flows reads through to the archive; writes to an archived row
+ * first move it back (see restore).
+ */
+@Service
+public class CashFlowArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CashFlowArchiveService.class);
+
+    @Autowired
+    private CashFlowRepository cashFlowRepository;
+
+    @Autowired
+    private ArchivedCashFlowRepository archivedCashFlowRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ShardFanOut shardFanOut;
+
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int afterMonths;
+    private final int deletedGraceDays;
+    private final int batchSize;
+
+    private final Counter archivedCounter;
+
+    // Newest active transaction date in the archive; null while it holds no active rows
+    private volatile LocalDate latestArchivedDate;
+
+    public CashFlowArchiveService(PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${finance.archive.enabled:false}") boolean enabled,
+                                  @Value("${finance.archive.after-months:24}") int afterMonths,
+                                  @Value("${finance.archive.deleted-grace-days:30}") int deletedGraceDays,
+                                  @Value("${finance.archive.batch-size:1000}") int batchSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.afterMonths = afterMonths;
+        this.deletedGraceDays = deletedGraceDays;
+        this.batchSize = batchSize;
+        this.archivedCounter = Counter.builder("finance.cashflow.archived")
+                .description("Cash flows moved to the archive table")
+                .register(meterRegistry);
+    }
+
+    // Periodic so nodes that did not run the job see new archive contents too
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${finance.archive.boundary-refresh-ms:60000}")
+    public void refreshBoundary() {
+        // Newest across shards: the boundary only decides whether the archive is worth querying
+        latestArchivedDate = shardFanOut.onEachShard(shard -> archivedCashFlowRepository.findLatestActiveTransactionDate())
+                .values().stream()
+                .filter(Objects::nonNull)
+                .max(LocalDate::compareTo)
+                .orElse(null);
+    }
+
+    @Scheduled(cron = "${finance.archive.cron:0 45 2 * * *}")
+    public void archiveScheduled() {
+        if (enabled) {
+            archive(LocalDate.now().minusMonths(afterMonths).withDayOfMonth(1),
+                    LocalDateTime.now().minusDays(deletedGraceDays));
+        }
+    }
+
+    /**
+     * Archives every cash flow dated before {@code cutoff} and every soft-deleted
+     * one last updated before {@code deletedBefore}, on every shard in parallel.
+     * Returns the number moved.
+     */
+    public int archive(LocalDate cutoff, LocalDateTime deletedBefore) {
+        int total = shardFanOut.onEachShard(shard -> archiveShard(cutoff, deletedBefore))
+                .values().stream().mapToInt(Integer::intValue).sum();
+        refreshBoundary();
+        if (total > 0) {
+            logger.info("Archived {} cash flows dated before {} or deleted before {}", total, cutoff, deletedBefore);
+        }
+        return total;
+    }
+
+    private int archiveShard(LocalDate cutoff, LocalDateTime deletedBefore) {
+        int total = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff, deletedBefore));
+            if (moved == null || moved == 0) {
+                break;
+            }
+            total += moved;
+            archivedCounter.increment(moved);
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDate cutoff, LocalDateTime deletedBefore) {
+        List<Long> ids = cashFlowRepository.findArchivableIds(cutoff, deletedBefore, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> userIds = cashFlowRepository.findUserIdsByIdIn(ids);
+        archivedCashFlowRepository.copyFromCashFlows(ids, LocalDateTime.now());
+        int deleted = cashFlowRepository.deleteByIdIn(ids);
+        // Hot-data caches (search index) drop their copy once the batch commits
+        userIds.forEach(userId -> eventPublisher.publishEvent(CashFlowChangedEvent.bulk(userId)));
+        return deleted;
+    }
+
+    /**
+     * Moves an active archived row back into cash_flows, in the caller's
+     * transaction, so it can be updated or deleted like any other row. The next
+     * run archives it again if it still qualifies. False when the user has no
+     * such row in the archive.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean restore(Long id, User user) {
+        if (cashFlowRepository.copyFromArchive(id, user) == 0) {
+            return false;
+        }
+        archivedCashFlowRepository.deleteActiveByIdAndUser(id, user);
+        return true;
+    }
+
+    // True when a read starting at this date may find active rows in the archive
+    public boolean reachesArchive(LocalDate startDate) {
+        LocalDate latest = latestArchivedDate;
+        return latest != null && (startDate == null || !startDate.isAfter(latest));
+    }
+
+    public LocalDate getLatestArchivedDate() {
+        return latestArchivedDate;
+    }
+}
@@ -0,0 +1,247 @@
+package com.finance.finance.service;
+
+import com.finance.finance.config.ShardContext;
+import com.finance.finance.config.ShardMap;
+import com.finance.finance.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a user's active cash flows, archived ones included, straight from
+ * a JDBC cursor to the response. Rows are written as they are fetched (fetch size bounded), so
+ * memory stays flat no matter how many rows the export covers; no entities
+ * or DTO lists are built.
+ */
+@Service
+public class CashFlowExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String[] COLUMNS = {
+            "id", "transactionDate", "type", "amount", "description", "category",
+            "notes", "isRecurring", "recurringFrequency", "createdAt"
+    };
+
+    // %s is cash_flows or cash_flows_archive
+    private static final String EXPORT_SQL =
+            "SELECT cf.id, cf.transaction_date, cf.type, cf.amount, cf.description, c.name AS category_name, " +
+            "cf.notes, cf.is_recurring, cf.recurring_frequency, cf.created_at " +
+            "FROM %s cf JOIN categories c ON c.id = cf.category_id " +
+            "WHERE cf.user_id = ? AND cf.is_active = true";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private CashFlowArchiveService archiveService;
+
+    @Autowired
+    public CashFlowExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                 @Value("${finance.export.fetch-size:1000}") int fetchSize) {
+        // Dedicated template: the fetch size must not leak into other JDBC users
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL only uses a server-side cursor inside a transaction (autocommit off)
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void export(User user, LocalDate startDate, LocalDate endDate, Format format, OutputStream out) {
+        List<Object> args = new ArrayList<>();
+        String hot = select("cash_flows", user, startDate, endDate, args);
+        String sql;
+        // Archived history is exported too; the boundary skips the archive for ranges it cannot reach
+        if (archiveService.reachesArchive(startDate)) {
+            String archived = select("cash_flows_archive", user, startDate, endDate, args);
+            sql = "SELECT * FROM (" + hot + " UNION ALL " + archived + ") e ORDER BY e.transaction_date, e.id";
+        } else {
+            sql = hot + " ORDER BY cf.transaction_date, cf.id";
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            if (format == Format.CSV) {
+                writer.write(String.join(",", COLUMNS));
+                writer.write("\r\n");
+            }
+            RowCallbackHandler rowWriter = format == Format.CSV
+                    ? rs -> writeCsvRow(rs, writer)
+                    : rs -> writeJsonRow(rs, writer);
+            // Runs on an async thread, outside the request's shard routing
+            ShardContext.runOn(shardMap.shardFor(user.getId()), () ->
+                    readOnlyTransaction.executeWithoutResult(status ->
+                            jdbcTemplate.query(sql, rowWriter, args.toArray())));
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String select(String table, User user, LocalDate startDate, LocalDate endDate, List<Object> args) {
+        StringBuilder sql = new StringBuilder(String.format(EXPORT_SQL, table));
+        args.add(user.getId());
+        if (startDate != null) {
+            sql.append(" AND cf.transaction_date >= ?");
+            args.add(Date.valueOf(startDate));
+        }
+        if (endDate != null) {
+            sql.append(" AND cf.transaction_date <= ?");
+            args.add(Date.valueOf(endDate));
+        }
+        return sql.toString();
+    }
+
+    private void writeJsonRow(ResultSet rs, Writer writer) throws SQLException {
+        Object[] values = readRow(rs);
+        try {
+            writer.write('{');
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write('"');
+                writer.write(COLUMNS[i]);
+                writer.write("\":");
+                Object value = values[i];
+                if (value == null) {
+                    writer.write("null");
+                } else if (value instanceof Number || value instanceof Boolean) {
+                    writer.write(value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString());
+                } else {
+                    writeJsonString(value.toString(), writer);
+                }
+            }
+            writer.write("}\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsvRow(ResultSet rs, Writer writer) throws SQLException {
+        Object[] values = readRow(rs);
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                if (value instanceof BigDecimal decimal) {
+                    writer.write(decimal.toPlainString());
+                } else if (value instanceof Number || value instanceof Boolean) {
+                    writer.write(value.toString());
+                } else {
+                    writeCsvString(value.toString(), writer);
+                }
+            }
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Object[] readRow(ResultSet rs) throws SQLException {
+        Date transactionDate = rs.getDate("transaction_date");
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        Boolean isRecurring = rs.getBoolean("is_recurring");
+        if (rs.wasNull()) {
+            isRecurring = null;
+        }
+        return new Object[] {
+                rs.getLong("id"),
+                transactionDate != null ? transactionDate.toLocalDate().toString() : null,
+                rs.getString("type"),
+                rs.getBigDecimal("amount"),
+                rs.getString("description"),
+                rs.getString("category_name"),
+                rs.getString("notes"),
+                isRecurring,
+                rs.getString("recurring_frequency"),
+                createdAt != null ? createdAt.toLocalDateTime().toString() : null
+        };
+    }
+
+    private static void writeJsonString(String value, Writer writer) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    private static void writeCsvString(String value, Writer writer) throws IOException {
+        // Neutralize spreadsheet formulas in user-supplied text
+        if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,290 @@
+package com.finance.finance.service;
+
+import com.finance.finance.dto.CashFlowForecast;
+import com.finance.finance.dto.CashFlowSummary;
+import com.finance.finance.entity.CashFlow;
+import com.finance.finance.entity.User;
+import com.finance.finance.event.CashFlowChangedEvent;
+import com.finance.finance.repository.CashFlowRepository;
+import com.finance.finance.repository.DailyCashFlowRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Projects a user's balance month by month without writing any rows: the
+ * occurrences of their recurring templates are expanded in memory, entries
+ * already dated in the future come from the daily rollup, and non-recurring
+ * activity is estimated from the average of the last history-months. Template
+ * rows and the occurrences the materializer actually wrote in that window are
+ * taken out so they are not counted twice; occurrences it never wrote (before
+ * its first run, past its backfill limit, or while it is disabled) are not in
+ * the history and so are not taken out either.
+ * Amounts are summed in cents over long arrays indexed by month.
+ *
+ * The forecast is always computed for max-months and sliced per request. It is
+ * cached per user in an LRU map until a CashFlowChangedEvent for that user, the
+ * day changes, or cache-ttl-ms passes (which bounds staleness from writes on
+ * other nodes). Inputs are read from the primary, so a forecast requested right
+ * after a write sees it even when replicas lag, and concurrent requests for a
+ * user share one computation.
+ */
+@Service
+public class CashFlowForecastService {
+
+    private static final int INCOME = 0;
+    private static final int EXPENSE = 1;
+
+    @Autowired
+    private CashFlowRepository cashFlowRepository;
+
+    @Autowired
+    private DailyCashFlowRollupRepository rollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final int maxMonths;
+    private final int historyMonths;
+    private final long cacheTtlMs;
+    private final Map<Long, CachedForecast> forecasts;
+    // Computations in progress, at most one per user; guarded by the forecasts monitor
+    private final Map<Long, Computation> computations = new HashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter computeCounter;
+
+    public CashFlowForecastService(MeterRegistry meterRegistry,
+                                   @Value("${finance.forecast.max-months:36}") int maxMonths,
+                                   @Value("${finance.forecast.history-months:6}") int historyMonths,
+                                   @Value("${finance.forecast.cache-ttl-ms:300000}") long cacheTtlMs,
+                                   @Value("${finance.forecast.cache-max-users:10000}") int maxUsers) {
+        this.maxMonths = maxMonths;
+        this.historyMonths = historyMonths;
+        this.cacheTtlMs = cacheTtlMs;
+        this.forecasts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedForecast> eldest) {
+                return size() > maxUsers;
+            }
+        };
+        this.hitCounter = Counter.builder("finance.forecast.requests")
+                .description("Forecast requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.computeCounter = Counter.builder("finance.forecast.requests")
+                .description("Forecast requests")
+                .tag("result", "compute")
+                .register(meterRegistry);
+        Gauge.builder("finance.forecast.cached_users", this, CashFlowForecastService::size)
+                .description("Users with a cached forecast")
+                .register(meterRegistry);
+    }
+
+    // Forecast for the current month and the following months - 1, clamped to max-months
+    public CashFlowForecast forecast(User user, int months) {
+        int count = Math.max(1, Math.min(months, maxMonths));
+        Long userId = user.getId();
+        LocalDate today = LocalDate.now();
+        Computation computation;
+        boolean owner = false;
+        synchronized (forecasts) {
+            CachedForecast cached = forecasts.get(userId);
+            if (cached != null && cached.asOf().equals(today)
+                    && System.currentTimeMillis() - cached.computedAt() < cacheTtlMs) {
+                hitCounter.increment();
+                return cached.forecast().firstMonths(count);
+            }
+            computation = computations.get(userId);
+            if (computation == null || !computation.asOf.equals(today)) {
+                computation = new Computation(today);
+                computations.put(userId, computation);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            return computation.result.join().firstMonths(count);
+        }
+
+        CashFlowForecast forecast;
+        try {
+            computeCounter.increment();
+            // Not read-only, so the routing data source sends it to the primary
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            forecast = transactionTemplate.execute(status -> compute(user, today));
+        } catch (RuntimeException e) {
+            synchronized (forecasts) {
+                computations.remove(userId, computation);
+            }
+            computation.result.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (forecasts) {
+            computations.remove(userId, computation);
+            // A write landed while computing: answer from this result but do not keep it
+            if (!computation.stale) {
+                forecasts.put(userId, new CachedForecast(today, System.currentTimeMillis(), forecast));
+            }
+        }
+        computation.result.complete(forecast);
+        return forecast.firstMonths(count);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        synchronized (forecasts) {
+            // A computation that raced with this change must not be published or joined
+            Computation computation = computations.remove(event.getUserId());
+            if (computation != null) {
+                computation.stale = true;
+            }
+            forecasts.remove(event.getUserId());
+        }
+    }
+
+    public int size() {
+        synchronized (forecasts) {
+            return forecasts.size();
+        }
+    }
+
+    private CashFlowForecast compute(User user, LocalDate today) {
+        YearMonth current = YearMonth.from(today);
+        LocalDate historyStart = current.minusMonths(historyMonths).atDay(1);
+        LocalDate historyEnd = current.atDay(1).minusDays(1);
+        LocalDate end = current.plusMonths(maxMonths - 1).atEndOfMonth();
+
+        long startingBalance = cents(new CashFlowSummary(null, today,
+                rollupRepository.sumAndCountByUserUpToGroupedByType(user, today)).getBalance());
+
+        // [INCOME|EXPENSE][month]: past months for the averages, coming months for entries already dated
+        long[][] history = new long[2][historyMonths];
+        long[][] scheduled = new long[2][maxMonths];
+        for (Object[] day : rollupRepository.sumByUserAndDateRangeGroupedByDay(user, historyStart, end)) {
+            LocalDate date = (LocalDate) day[0];
+            int kind = day[1] == CashFlow.CashFlowType.INCOME ? INCOME : EXPENSE;
+            long amount = cents((BigDecimal) day[2]);
+            if (!date.isAfter(historyEnd)) {
+                history[kind][monthIndex(historyStart, date)] += amount;
+            } else if (date.isAfter(today)) {
+                scheduled[kind][monthIndex(current.atDay(1), date)] += amount;
+            }
+        }
+
+        // Months before the user's first entry would only dilute the average
+        int firstMonth = 0;
+        while (firstMonth < historyMonths && history[INCOME][firstMonth] == 0 && history[EXPENSE][firstMonth] == 0) {
+            firstMonth++;
+        }
+        int observedMonths = historyMonths - firstMonth;
+        LocalDate observedStart = historyStart.plusMonths(firstMonth);
+
+        long[] recurringHistory = new long[2];
+        long[][] recurring = new long[2][maxMonths];
+        Set<Long> templateIds = new HashSet<>();
+        for (CashFlow template : cashFlowRepository.findByUserAndIsRecurringTrueAndIsActiveTrue(user)) {
+            RecurringFrequency frequency = RecurringFrequency.parse(template.getRecurringFrequency());
+            if (frequency == null) {
+                continue;
+            }
+            templateIds.add(template.getId());
+            int kind = template.getType() == CashFlow.CashFlowType.INCOME ? INCOME : EXPENSE;
+            long amount = cents(template.getAmount());
+            LocalDate start = template.getTransactionDate();
+            // The template row is an occurrence too; when dated in the future the rollup already has it
+            if (!start.isBefore(observedStart) && !start.isAfter(historyEnd)) {
+                recurringHistory[kind] += amount;
+            }
+            for (long n = frequency.firstAfter(start, today); ; n++) {
+                LocalDate date = frequency.nth(start, n);
+                if (date.isAfter(end)) {
+                    break;
+                }
+                recurring[kind][monthIndex(current.atDay(1), date)] += amount;
+            }
+        }
+        // Only the occurrences that exist as rows are in the history
+        for (Object[] occurrence : cashFlowRepository.findOccurrencesByUserAndDateRange(
+                user, RecurringCashFlowMaterializer.KEY_PREFIX + "%", observedStart, historyEnd)) {
+            if (templateIds.contains(RecurringCashFlowMaterializer.templateIdOf((String) occurrence[0]))) {
+                int kind = occurrence[1] == CashFlow.CashFlowType.INCOME ? INCOME : EXPENSE;
+                recurringHistory[kind] += cents((BigDecimal) occurrence[2]);
+            }
+        }
+
+        long[] average = new long[2];
+        if (observedMonths > 0) {
+            for (int kind = INCOME; kind <= EXPENSE; kind++) {
+                long total = 0;
+                for (int month = firstMonth; month < historyMonths; month++) {
+                    total += history[kind][month];
+                }
+                average[kind] = Math.max(0, total - recurringHistory[kind]) / observedMonths;
+            }
+        }
+
+        List<CashFlowForecast.Month> months = new ArrayList<>(maxMonths);
+        long balance = startingBalance;
+        int daysInMonth = current.lengthOfMonth();
+        int daysLeft = daysInMonth - today.getDayOfMonth();
+        for (int month = 0; month < maxMonths; month++) {
+            long[] flows = new long[2];
+            for (int kind = INCOME; kind <= EXPENSE; kind++) {
+                long estimated = month == 0 ? average[kind] * daysLeft / daysInMonth : average[kind];
+                flows[kind] = recurring[kind][month] + scheduled[kind][month] + estimated;
+            }
+            balance += flows[INCOME] - flows[EXPENSE];
+            months.add(new CashFlowForecast.Month(current.plusMonths(month).toString(),
+                    amount(flows[INCOME]), amount(flows[EXPENSE]),
+                    amount(recurring[INCOME][month]), amount(recurring[EXPENSE][month]), amount(balance)));
+        }
+        return new CashFlowForecast(today, amount(startingBalance), observedMonths,
+                amount(average[INCOME]), amount(average[EXPENSE]), months);
+    }
+
+    private static int monthIndex(LocalDate firstDay, LocalDate date) {
+        return (int) ChronoUnit.MONTHS.between(YearMonth.from(firstDay), YearMonth.from(date));
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal amount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private record CachedForecast(LocalDate asOf, long computedAt, CashFlowForecast forecast) {
+    }
+
+    private static final class Computation {
+
+        private final LocalDate asOf;
+        private final CompletableFuture<CashFlowForecast> result = new CompletableFuture<>();
+        private volatile boolean stale;
+
+        private Computation(LocalDate asOf) {
+            this.asOf = asOf;
+        }
+    }
+}
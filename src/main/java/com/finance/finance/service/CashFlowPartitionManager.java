@@ -0,0 +1,209 @@
+package com.finance.finance.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly range partitions of cash_flows (V4 migration).
+ *
+ * Partitions are created a few months ahead so inserts never fall into
+ * cash_flows_default. Rows that did land there (back-dated imports, far
+ * future entries) are moved into their month's partition when it is created.
+ * Optionally, partitions older than a retention window are detached and kept
+ * as standalone cash_flows_detached_YYYY_MM tables for archiving; their rows
+ * then no longer appear in listings or searches.
+ *
+ * Does nothing when cash_flows is not a partitioned table (H2, or a database
+ * that has not run the migration yet). With sharding, every shard is maintained.
+ */
+@Service
+public class CashFlowPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(CashFlowPartitionManager.class);
+
+    private static final String PARENT = "cash_flows";
+    private static final String DEFAULT_PARTITION = "cash_flows_default";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("cash_flows_p(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int detachAfterMonths;
+
+    private final Counter createdCounter;
+    private final Counter detachedCounter;
+
+    // Not set when constructed outside Spring (benchmarks against a single database)
+    @Autowired
+    private ShardFanOut shardFanOut;
+
+    public CashFlowPartitionManager(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${finance.partitioning.enabled:true}") boolean enabled,
+                                    @Value("${finance.partitioning.months-ahead:3}") int monthsAhead,
+                                    @Value("${finance.partitioning.detach-after-months:0}") int detachAfterMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.detachAfterMonths = detachAfterMonths;
+        this.createdCounter = Counter.builder("finance.cashflow.partitions")
+                .description("cash_flows partition maintenance operations")
+                .tag("operation", "created")
+                .register(meterRegistry);
+        this.detachedCounter = Counter.builder("finance.cashflow.partitions")
+                .description("cash_flows partition maintenance operations")
+                .tag("operation", "detached")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${finance.partitioning.cron:0 15 2 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        if (shardFanOut != null) {
+            shardFanOut.onEachShard(shard -> {
+                maintainShard();
+                return null;
+            });
+        } else {
+            maintainShard();
+        }
+    }
+
+    private void maintainShard() {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        ensurePartitions(current, current.plusMonths(monthsAhead));
+        if (detachAfterMonths > 0) {
+            detachOlderThan(current.minusMonths(detachAfterMonths));
+        }
+    }
+
+    // Creates any missing monthly partition in [from, to], inclusive
+    public int ensurePartitions(YearMonth from, YearMonth to) {
+        int created = 0;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            String name = partitionName(month);
+            if (exists(name)) {
+                continue;
+            }
+            try {
+                createPartition(month, name);
+                createdCounter.increment();
+                created++;
+                logger.info("Created cash_flows partition {}", name);
+            } catch (DataAccessException e) {
+                logger.warn("Could not create cash_flows partition {}: {}", name, e.getMessage());
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Builds the month as a plain table, moves any rows for it out of the default
+     * partition and attaches it, in one transaction. Creating the partition
+     * directly would fail whenever the default partition already holds rows for
+     * that range.
+     */
+    private void createPartition(YearMonth month, String name) {
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.plusMonths(1).atDay(1);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE " + name +
+                    " (LIKE " + PARENT + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            jdbcTemplate.update("INSERT INTO " + name + " SELECT * FROM " + DEFAULT_PARTITION +
+                    " WHERE transaction_date >= ? AND transaction_date < ?", start, end);
+            jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION +
+                    " WHERE transaction_date >= ? AND transaction_date < ?", start, end);
+            jdbcTemplate.execute("ALTER TABLE " + PARENT + " ATTACH PARTITION " + name +
+                    " FOR VALUES FROM ('" + start + "') TO ('" + end + "')");
+        });
+    }
+
+    // Detaches every monthly partition that ends on or before the start of the cutoff month
+    public List<String> detachOlderThan(YearMonth cutoff) {
+        List<String> detached = new ArrayList<>();
+        for (String name : attachedPartitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(cutoff)) {
+                continue;
+            }
+            String archived = "cash_flows_detached_" + month.format(SUFFIX);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + name);
+                    jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + archived);
+                });
+                detachedCounter.increment();
+                detached.add(archived);
+                logger.info("Detached cash_flows partition {} as {}", name, archived);
+            } catch (DataAccessException e) {
+                logger.warn("Could not detach cash_flows partition {}: {}", name, e.getMessage());
+            }
+        }
+        return detached;
+    }
+
+    public boolean isPartitioned() {
+        try {
+            Boolean partitioned = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+                    "WHERE c.relname = ? AND pg_table_is_visible(c.oid))", Boolean.class, PARENT);
+            return Boolean.TRUE.equals(partitioned);
+        } catch (DataAccessException e) {
+            // Not PostgreSQL
+            return false;
+        }
+    }
+
+    public List<String> attachedPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ? AND pg_table_is_visible(p.oid) " +
+                "ORDER BY c.relname", String.class, PARENT);
+    }
+
+    private boolean exists(String name) {
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+    }
+
+    static String partitionName(YearMonth month) {
+        return "cash_flows_p" + month.format(SUFFIX);
+    }
+}
@@ -0,0 +1,165 @@
+package com.finance.finance.service;
+
+import com.finance.finance.config.DatabaseDialect;
+import com.finance.finance.config.ShardMap;
+import com.finance.finance.dto.CashFlowSummary;
+import com.finance.finance.entity.CashFlow;
+import com.finance.finance.entity.Category;
+import com.finance.finance.entity.User;
+import com.finance.finance.repository.ArchivedCashFlowRepository;
+import com.finance.finance.repository.DailyCashFlowRollupRepository;
+import com.finance.finance.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the daily_cash_flow_rollup table in step with cash_flows and serves
+ * range summaries from it. Deltas join the caller's transaction so a cash flow
+ * write and its rollup update commit or roll back together.
+ */
+@Service
+@Transactional
+public class CashFlowRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CashFlowRollupService.class);
+
+    @Autowired
+    private DailyCashFlowRollupRepository rollupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ArchivedCashFlowRepository archivedCashFlowRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ShardFanOut shardFanOut;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    @Value("${finance.rollup.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Transactional(readOnly = true)
+    public CashFlowSummary getSummary(User user, LocalDate startDate, LocalDate endDate) {
+        return new CashFlowSummary(startDate, endDate,
+                rollupRepository.sumAndCountByUserAndDateRangeGroupedByType(user, startDate, endDate));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(CashFlow cashFlow) {
+        applyDelta(cashFlow.getUser(), cashFlow.getTransactionDate(), cashFlow.getType(),
+                cashFlow.getCategory(), cashFlow.getAmount(), 1);
+    }
+
+    // Bulk variant: one delta per (day, type, category) instead of one per row
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addAll(User user, List<CashFlow> cashFlows) {
+        Map<RollupKey, BigDecimal> amounts = new LinkedHashMap<>();
+        Map<RollupKey, Long> counts = new HashMap<>();
+        Map<RollupKey, Category> categories = new HashMap<>();
+        for (CashFlow cashFlow : cashFlows) {
+            RollupKey key = new RollupKey(cashFlow.getTransactionDate(), cashFlow.getType(),
+                    cashFlow.getCategory().getId());
+            amounts.merge(key, cashFlow.getAmount(), BigDecimal::add);
+            counts.merge(key, 1L, Long::sum);
+            categories.putIfAbsent(key, cashFlow.getCategory());
+        }
+        amounts.forEach((key, amount) -> applyDelta(user, key.date(), key.type(),
+                categories.get(key), amount, counts.get(key)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(CashFlow cashFlow) {
+        applyDelta(cashFlow.getUser(), cashFlow.getTransactionDate(), cashFlow.getType(),
+                cashFlow.getCategory(), cashFlow.getAmount().negate(), -1);
+    }
+
+    // Id-only variant for writes that never load the cash flow (soft delete)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(User user, Long cashFlowId) {
+        rollupRepository.subtractCashFlow(user, cashFlowId);
+    }
+
+    private record RollupKey(LocalDate date, CashFlow.CashFlowType type, Long categoryId) {
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDelta(User user, LocalDate date, CashFlow.CashFlowType type, Category category,
+                           BigDecimal amount, long count) {
+        if (databaseDialect.isH2()) {
+            rollupRepository.mergeDelta(user.getId(), date, type.name(), category.getId(), amount, count);
+        } else {
+            rollupRepository.upsertDelta(user.getId(), date, type.name(), category.getId(), amount, count);
+        }
+    }
+
+    // Recomputes one user's rollup rows from cash_flows with a single INSERT ... SELECT,
+    // then folds in the archived days (usually disjoint, so mostly plain inserts)
+    public int rebuildForUser(User user) {
+        rollupRepository.deleteByUser(user);
+        int rows = rollupRepository.insertAggregatesForUser(user);
+        for (Object[] day : archivedCashFlowRepository.sumAndCountByUserGroupedByDay(user)) {
+            applyDelta(user, (LocalDate) day[0], (CashFlow.CashFlowType) day[1], (Category) day[2],
+                    (BigDecimal) day[3], (Long) day[4]);
+            rows++;
+        }
+        return rows;
+    }
+
+    /**
+     * Backfill job: rebuilds every user's rollup, one transaction per user so a
+     * long run never holds locks on more than one user's rows at a time. Shards
+     * are rebuilt in parallel, each for the users it holds.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int rebuildAll() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Long> userIds = userRepository.findAllIds();
+        Map<String, List<Long>> userIdsByShard = userIds.stream().collect(Collectors.groupingBy(shardMap::shardFor));
+        Map<String, Integer> rowsByShard = shardFanOut.onEachShard(shard -> {
+            int inserted = 0;
+            for (Long userId : userIdsByShard.getOrDefault(shard, List.of())) {
+                Integer userRows = transactionTemplate.execute(status ->
+                        rebuildForUser(userRepository.getReferenceById(userId)));
+                inserted += userRows != null ? userRows : 0;
+            }
+            return inserted;
+        });
+        int rows = rowsByShard.values().stream().mapToInt(Integer::intValue).sum();
+        logger.info("Rebuilt daily cash flow rollup for {} users ({} rows)", userIds.size(), rows);
+        return rows;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuildAll();
+        }
+    }
+}
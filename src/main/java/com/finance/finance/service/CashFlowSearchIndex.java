@@ -0,0 +1,425 @@
+package com.finance.finance.service;
+
+import com.finance.finance.dto.CashFlowResponse;
+import com.finance.finance.entity.User;
+import com.finance.finance.event.CashFlowChangedEvent;
+import com.finance.finance.repository.ArchivedCashFlowRepository;
+import com.finance.finance.repository.CashFlowRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.ref.SoftReference;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Per-user in-memory inverted index over cash flow descriptions and notes,
+ * archived ones included, for search-as-you-type and autocomplete without database round trips.
+ *
+ * Terms are lower-cased and accent-folded ("Pão" and "pao" match). A user's
+ * index is built on their first search and then kept current from
+ * CashFlowChangedEvents after commit; bulk changes drop it so it is rebuilt
+ * lazily. Indexes live in an LRU map of soft references, so the least
+ * recently used users go first and the GC can reclaim any of them under
+ * memory pressure.
+ *
+ * Each index records the user's data version (cash_flow_versions) it
+ * reflects. An event is applied only when it is the next version; anything
+ * else means a change was missed and the index is dropped. Writes made on
+ * other nodes (or by jobs running there) raise the version without an event
+ * here, so every search reads the current version first and rebuilds an index
+ * that is behind.
+ *
+ * Concurrent first searches for the same user share one build, which reads
+ * from the primary so it cannot miss writes a lagging replica has not applied.
+ */
+@Service
+public class CashFlowSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Comparator<CashFlowResponse> NEWEST_FIRST =
+            Comparator.comparing(CashFlowResponse::getTransactionDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(CashFlowResponse::getId, Comparator.reverseOrder());
+
+    @Autowired
+    private CashFlowRepository cashFlowRepository;
+
+    @Autowired
+    private ArchivedCashFlowRepository archivedCashFlowRepository;
+
+    @Autowired
+    private CashFlowVersionService cashFlowVersionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final int maxDocumentsPerUser;
+    private final Map<Long, SoftReference<UserIndex>> indexes;
+    // Builds in progress, at most one per user; guarded by the indexes monitor
+    private final Map<Long, Build> builds = new HashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter buildCounter;
+
+    public CashFlowSearchIndex(MeterRegistry meterRegistry,
+                               @Value("${finance.search.index.max-users:1000}") int maxUsers,
+                               @Value("${finance.search.index.max-documents-per-user:200000}") int maxDocumentsPerUser) {
+        this.maxDocumentsPerUser = maxDocumentsPerUser;
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SoftReference<UserIndex>> eldest) {
+                return size() > maxUsers;
+            }
+        };
+        this.hitCounter = Counter.builder("finance.search.index.requests")
+                .description("Searches served from the in-memory index")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.buildCounter = Counter.builder("finance.search.index.requests")
+                .description("Searches served from the in-memory index")
+                .tag("result", "build")
+                .register(meterRegistry);
+        Gauge.builder("finance.search.index.users", this, CashFlowSearchIndex::size)
+                .description("Users with an in-memory search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Entries whose description or notes contain every query term; the last
+     * term is matched as a prefix so partially typed words already match.
+     * Empty when the user's data is too large to index (callers fall back to
+     * the database search).
+     */
+    public Optional<List<CashFlowResponse>> search(User user, String query, int page, int size) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Optional.of(List.of());
+        }
+        return indexFor(user).map(index -> index.search(terms, page, size));
+    }
+
+    // Indexed terms starting with the (folded) prefix, most frequent first
+    public Optional<List<String>> suggest(User user, String prefix, int limit) {
+        String folded = fold(prefix == null ? "" : prefix.trim());
+        if (folded.isEmpty()) {
+            return Optional.of(List.of());
+        }
+        return indexFor(user).map(index -> index.suggest(folded, limit));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        UserIndex index;
+        synchronized (indexes) {
+            // A build that raced with this change must not be published or joined
+            Build build = builds.remove(event.getUserId());
+            if (build != null) {
+                build.stale = true;
+            }
+            if (event.getKind() == CashFlowChangedEvent.Kind.BULK) {
+                indexes.remove(event.getUserId());
+                return;
+            }
+            SoftReference<UserIndex> reference = indexes.get(event.getUserId());
+            index = reference != null ? reference.get() : null;
+        }
+        if (index != null && !index.apply(event)) {
+            discard(event.getUserId(), index);
+        }
+    }
+
+    public void evict(Long userId) {
+        synchronized (indexes) {
+            indexes.remove(userId);
+        }
+    }
+
+    public int size() {
+        synchronized (indexes) {
+            return indexes.size();
+        }
+    }
+
+    private Optional<UserIndex> indexFor(User user) {
+        Long userId = user.getId();
+        UserIndex cached = cached(userId);
+        if (cached != null) {
+            // A replica behind the index reports an older version; the index is then the fresher of the two
+            if (cashFlowVersionService.current(userId) <= cached.version()) {
+                hitCounter.increment();
+                return Optional.of(cached);
+            }
+            discard(userId, cached);
+        }
+
+        Build build;
+        boolean owner = false;
+        synchronized (indexes) {
+            SoftReference<UserIndex> reference = indexes.get(userId);
+            UserIndex index = reference != null ? reference.get() : null;
+            if (index != null) {
+                hitCounter.increment();
+                return Optional.of(index);
+            }
+            build = builds.get(userId);
+            if (build == null) {
+                build = new Build();
+                builds.put(userId, build);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            return build.result.join();
+        }
+
+        Optional<UserIndex> result = Optional.empty();
+        try {
+            buildCounter.increment();
+            result = load(user);
+        } finally {
+            synchronized (indexes) {
+                builds.remove(userId, build);
+                // A write landed while loading: serve this search from the fresh load but do not keep it
+                if (!build.stale && result.isPresent()) {
+                    indexes.put(userId, new SoftReference<>(result.get()));
+                }
+            }
+            build.result.complete(result);
+        }
+        return result;
+    }
+
+    private UserIndex cached(Long userId) {
+        synchronized (indexes) {
+            SoftReference<UserIndex> reference = indexes.get(userId);
+            return reference != null ? reference.get() : null;
+        }
+    }
+
+    // Only if it is still the published one; a newer build may have replaced it
+    private void discard(Long userId, UserIndex index) {
+        synchronized (indexes) {
+            SoftReference<UserIndex> reference = indexes.get(userId);
+            if (reference != null && (reference.get() == index || reference.get() == null)) {
+                indexes.remove(userId);
+            }
+        }
+    }
+
+    // Not read-only, so the routing data source sends it to the primary
+    private Optional<UserIndex> load(User user) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long[] version = new long[1];
+        List<CashFlowResponse> rows = transactionTemplate.execute(status -> {
+            // Read before the rows: rows newer than the version only cost one extra rebuild
+            version[0] = cashFlowVersionService.current(user.getId());
+            // Counting is an index-only scan; users too large to index never have their rows loaded
+            if (cashFlowRepository.countByUserAndIsActiveTrue(user)
+                    + archivedCashFlowRepository.countByUserAndIsActiveTrue(user) > maxDocumentsPerUser) {
+                return null;
+            }
+            List<CashFlowResponse> all = new ArrayList<>(cashFlowRepository.findAllResponsesByUser(user));
+            all.addAll(archivedCashFlowRepository.findAllResponsesByUser(user));
+            return all;
+        });
+        if (rows == null || rows.size() > maxDocumentsPerUser) {
+            return Optional.empty();
+        }
+        UserIndex index = new UserIndex(version[0]);
+        rows.forEach(index::put);
+        return Optional.of(index);
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String token : NON_WORD.split(fold(text))) {
+            if (!token.isEmpty()) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Build {
+
+        private final CompletableFuture<Optional<UserIndex>> result = new CompletableFuture<>();
+        private volatile boolean stale;
+    }
+
+    private static final class UserIndex {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, CashFlowResponse> documents = new HashMap<>();
+        private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+        private final TreeMap<String, Set<Long>> postings = new TreeMap<>();
+        // Data version the documents reflect; guarded by lock
+        private long version;
+
+        UserIndex(long version) {
+            this.version = version;
+        }
+
+        long version() {
+            lock.readLock().lock();
+            try {
+                return version;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // False when a change between the index and this event was missed
+        boolean apply(CashFlowChangedEvent event) {
+            lock.writeLock().lock();
+            try {
+                // Built after this change committed: already reflected
+                if (event.getVersion() > 0 && event.getVersion() <= version) {
+                    return true;
+                }
+                if (event.getVersion() != version + 1) {
+                    return false;
+                }
+                if (event.getKind() == CashFlowChangedEvent.Kind.UPSERTED) {
+                    put(event.getSnapshot());
+                } else {
+                    remove(event.getCashFlowId());
+                }
+                version = event.getVersion();
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void put(CashFlowResponse document) {
+            Set<String> terms = new HashSet<>(tokenize(document.getDescription()));
+            terms.addAll(tokenize(document.getNotes()));
+            lock.writeLock().lock();
+            try {
+                removeLocked(document.getId());
+                documents.put(document.getId(), document);
+                documentTerms.put(document.getId(), terms);
+                for (String term : terms) {
+                    postings.computeIfAbsent(term, key -> new HashSet<>()).add(document.getId());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long id) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(Long id) {
+            documents.remove(id);
+            Set<String> terms = documentTerms.remove(id);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                Set<Long> ids = postings.get(term);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        List<CashFlowResponse> search(List<String> terms, int page, int size) {
+            lock.readLock().lock();
+            try {
+                Set<Long> matches = null;
+                for (int i = 0; i < terms.size(); i++) {
+                    boolean last = i == terms.size() - 1;
+                    Set<Long> ids = last ? prefixMatches(terms.get(i)) : postings.getOrDefault(terms.get(i), Set.of());
+                    if (matches == null) {
+                        matches = new HashSet<>(ids);
+                    } else {
+                        matches.retainAll(ids);
+                    }
+                    if (matches.isEmpty()) {
+                        return List.of();
+                    }
+                }
+                List<CashFlowResponse> results = new ArrayList<>(matches.size());
+                for (Long id : matches) {
+                    results.add(documents.get(id));
+                }
+                results.sort(NEWEST_FIRST);
+                int from = Math.min(page * size, results.size());
+                int to = Math.min(from + size, results.size());
+                return new ArrayList<>(results.subList(from, to));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<String> suggest(String prefix, int limit) {
+            lock.readLock().lock();
+            try {
+                List<Map.Entry<String, Set<Long>>> candidates = new ArrayList<>(prefixRange(prefix).entrySet());
+                candidates.sort(Comparator.comparingInt((Map.Entry<String, Set<Long>> entry) -> entry.getValue().size())
+                        .reversed()
+                        .thenComparing(Map.Entry::getKey));
+                return candidates.stream()
+                        .limit(limit)
+                        .map(Map.Entry::getKey)
+                        .toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private Set<Long> prefixMatches(String prefix) {
+            Set<Long> ids = new HashSet<>();
+            for (Set<Long> posting : prefixRange(prefix).values()) {
+                ids.addAll(posting);
+            }
+            return ids;
+        }
+
+        private NavigableMap<String, Set<Long>> prefixRange(String prefix) {
+            return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+    }
+}
@@ -1,36 +1,105 @@
 package com.finance.finance.service;
 
+import com.finance.finance.config.ShardMap;
+import com.finance.finance.dto.BulkCashFlowResponse;
+import com.finance.finance.dto.BulkCashFlowResult;
+import com.finance.finance.dto.CashFlowChange;
+import com.finance.finance.dto.CashFlowChanges;
+import com.finance.finance.dto.CashFlowCursor;
 import com.finance.finance.dto.CashFlowRequest;
 import com.finance.finance.dto.CashFlowResponse;
+import com.finance.finance.dto.CashFlowSummary;
+import com.finance.finance.dto.CashFlowWatermark;
+import com.finance.finance.dto.CategoryResponse;
+import com.finance.finance.dto.CursorPage;
 import com.finance.finance.entity.CashFlow;
 import com.finance.finance.entity.Category;
 import com.finance.finance.entity.User;
+import com.finance.finance.event.CashFlowChangedEvent;
+import com.finance.finance.repository.ArchivedCashFlowRepository;
 import com.finance.finance.repository.CashFlowRepository;
 import com.finance.finance.repository.CategoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class CashFlowService {
 
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 50;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "transactionDate", "id");
+
     @Autowired
     private CashFlowRepository cashFlowRepository;
 
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CashFlowRollupService rollupService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CashFlowArchiveService archiveService;
+
+    @Autowired
+    private ArchivedCashFlowRepository archivedCashFlowRepository;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    @Autowired
+    private CashFlowVersionService cashFlowVersionService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${finance.search.mode:like}")
+    private String searchMode;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+
     public CashFlowResponse createCashFlow(CashFlowRequest request, User user) {
-        Category category = categoryRepository.findById(request.getCategoryId())
+        shardMap.ensureWritable(user.getId());
+        CategoryResponse category = categoryCatalog.find(request.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Category not found"));
 
         CashFlow cashFlow = new CashFlow();
@@ -38,100 +107,433 @@ public class CashFlowService {
         cashFlow.setAmount(request.getAmount());
         cashFlow.setTransactionDate(request.getTransactionDate());
         cashFlow.setType(request.getType());
-        cashFlow.setCategory(category);
+        cashFlow.setCategory(categoryRepository.getReferenceById(category.getId()));
         cashFlow.setUser(user);
         cashFlow.setNotes(request.getNotes());
         cashFlow.setIsRecurring(request.getIsRecurring());
         cashFlow.setRecurringFrequency(request.getRecurringFrequency());
 
         CashFlow savedCashFlow = cashFlowRepository.save(cashFlow);
-        return CashFlowResponse.fromEntity(savedCashFlow);
+        rollupService.add(savedCashFlow);
+        CashFlowResponse response = CashFlowResponse.fromEntity(savedCashFlow, category);
+        eventPublisher.publishEvent(CashFlowChangedEvent.upserted(user.getId(), response));
+        return response;
     }
 
+    /**
+     * Bulk import: validates every row up front, resolves all categories with one
+     * query and inserts the valid rows with JDBC batching (sequence ids), flushing
+     * and clearing the persistence context per batch. Invalid rows are reported
+     * and skipped; the valid ones commit together.
+     */
+    public BulkCashFlowResponse createCashFlows(List<CashFlowRequest> requests, User user) {
+        shardMap.ensureWritable(user.getId());
+        Set<Long> categoryIds = requests.stream()
+                .map(CashFlowRequest::getCategoryId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        // Validated against the in-memory catalog; rows only carry a reference to the category
+        Map<Long, Category> categories = categoryIds.stream()
+                .filter(id -> categoryCatalog.find(id).isPresent())
+                .collect(Collectors.toMap(Function.identity(), id -> categoryRepository.getReferenceById(id)));
+
+        List<BulkCashFlowResult> results = new ArrayList<>(requests.size());
+        List<CashFlow> created = new ArrayList<>();
+        int pending = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            CashFlowRequest request = requests.get(i);
+            List<String> errors = validate(request, categories);
+            if (!errors.isEmpty()) {
+                results.add(BulkCashFlowResult.rejected(i, errors));
+                continue;
+            }
+
+            CashFlow cashFlow = new CashFlow();
+            cashFlow.setDescription(request.getDescription());
+            cashFlow.setAmount(request.getAmount());
+            cashFlow.setTransactionDate(request.getTransactionDate());
+            cashFlow.setType(request.getType());
+            cashFlow.setCategory(categories.get(request.getCategoryId()));
+            cashFlow.setUser(user);
+            cashFlow.setNotes(request.getNotes());
+            cashFlow.setIsRecurring(request.getIsRecurring());
+            cashFlow.setRecurringFrequency(request.getRecurringFrequency());
+            entityManager.persist(cashFlow);
+            created.add(cashFlow);
+            results.add(BulkCashFlowResult.created(i, cashFlow.getId()));
+
+            if (++pending == batchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        rollupService.addAll(user, created);
+        if (!created.isEmpty()) {
+            eventPublisher.publishEvent(CashFlowChangedEvent.bulk(user.getId()));
+        }
+        return new BulkCashFlowResponse(results);
+    }
+
+    private List<String> validate(CashFlowRequest request, Map<Long, Category> categories) {
+        List<String> errors = new ArrayList<>();
+        if (request == null) {
+            errors.add("Row is empty");
+            return errors;
+        }
+        for (ConstraintViolation<CashFlowRequest> violation : validator.validate(request)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        if (request.getCategoryId() != null && !categories.containsKey(request.getCategoryId())) {
+            errors.add("categoryId: Category not found");
+        }
+        return errors;
+    }
+
+    // Read paths project straight into CashFlowResponse: one statement per page, category joined,
+    // no managed entities to hydrate or dirty-check
+    @Transactional(readOnly = true)
     public Optional<CashFlowResponse> getCashFlowById(Long id, User user) {
-        return cashFlowRepository.findById(id)
-                .filter(cf -> cf.getUser().equals(user) && cf.getIsActive())
-                .map(CashFlowResponse::fromEntity);
+        Optional<CashFlowResponse> hot = cashFlowRepository.findResponseByIdAndUser(id, user);
+        if (hot.isPresent() || !archiveService.reachesArchive(null)) {
+            return hot;
+        }
+        return archivedCashFlowRepository.findResponseByIdAndUser(id, user);
     }
 
+    /**
+     * Offset page over the hot table and, once the user may have archived rows,
+     * the archive: the first offset + size rows of each are read in the page's
+     * order (newest first when it has none) and merged.
+     */
+    @Transactional(readOnly = true)
     public Page<CashFlowResponse> getCashFlowsByUser(User user, Pageable pageable) {
-        return cashFlowRepository.findByUserAndIsActiveTrue(user, pageable)
-                .map(CashFlowResponse::fromEntity);
+        if (!archiveService.reachesArchive(null)) {
+            return cashFlowRepository.findResponsesByUser(user, pageable);
+        }
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : NEWEST_FIRST;
+        if (sort.getOrderFor("id") == null) {
+            sort = sort.and(Sort.by(Sort.Direction.DESC, "id"));
+        }
+        int limit = (int) pageable.getOffset() + pageable.getPageSize();
+        Pageable head = PageRequest.of(0, limit, sort);
+        Page<CashFlowResponse> hot = cashFlowRepository.findResponsesByUser(user, head);
+        Page<CashFlowResponse> archived = archivedCashFlowRepository.findResponsesByUser(user, head);
+        List<CashFlowResponse> rows = merge(hot.getContent(), archived.getContent(), comparatorFor(sort), limit);
+        int from = (int) Math.min(pageable.getOffset(), rows.size());
+        return new PageImpl<>(new ArrayList<>(rows.subList(from, rows.size())), pageable,
+                hot.getTotalElements() + archived.getTotalElements());
     }
 
+    /**
+     * Changes after a watermark, seeking on (changeSeq, id) so the cost follows
+     * the number of changes, not the size of the history. The user's data version
+     * is read first and bounds the batch: a version commits together with the
+     * rows stamped with it, and the next writer waits on the version row, so
+     * every row at or below it has committed and none can show up there later.
+     * Archived rows keep their sequence, so the archive is read as well and a
+     * full sync (no since) covers the whole history.
+     */
+    @Transactional(readOnly = true)
+    public CashFlowChanges getChangesSince(User user, String since, int size) {
+        long version = cashFlowVersionService.current(user.getId());
+        Limit limit = Limit.of(size + 1);
+        CashFlowWatermark position = null;
+        List<CashFlowChange> rows;
+        // Hot table first: a row archived in between is then read twice rather than missed
+        if (since == null || since.isBlank()) {
+            List<CashFlowChange> hot = cashFlowRepository.findFirstChangesByUser(user, version, limit);
+            rows = mergeByChangeSeq(hot, archivedCashFlowRepository.findFirstChangesByUser(user, version, limit),
+                    size + 1);
+        } else {
+            position = CashFlowWatermark.decode(since);
+            List<CashFlowChange> hot = cashFlowRepository.findChangesByUserAfter(
+                    user, position.getChangeSeq(), position.getId(), version, limit);
+            rows = mergeByChangeSeq(hot, archivedCashFlowRepository.findChangesByUserAfter(
+                    user, position.getChangeSeq(), position.getId(), version, limit), size + 1);
+        }
+
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        CashFlowWatermark watermark;
+        if (hasMore) {
+            CashFlowChange last = rows.get(rows.size() - 1);
+            watermark = new CashFlowWatermark(last.getChangeSeq(), last.getCashFlow().getId());
+        } else if (position != null && position.getChangeSeq() > version) {
+            // Read from a replica behind the one that issued the watermark; do not move back
+            watermark = position;
+        } else {
+            // Everything up to the version has been returned
+            watermark = new CashFlowWatermark(version, Long.MAX_VALUE);
+        }
+        List<CashFlowResponse> changes = rows.stream().map(CashFlowChange::getCashFlow).toList();
+        return new CashFlowChanges(changes, watermark.encode(), hasMore);
+    }
+
+    // Seek pagination over (transactionDate, id): cost does not grow with page depth
+    @Transactional(readOnly = true)
+    public CursorPage<CashFlowResponse> getCashFlowsByUserAfter(User user, String cursor, int size,
+                                                                boolean includeTotal) {
+        Limit limit = Limit.of(size + 1);
+        List<CashFlowResponse> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = cashFlowRepository.findFirstPageByUser(user, limit);
+            if (needsArchive(rows, size)) {
+                rows = mergeNewestFirst(rows, archivedCashFlowRepository.findFirstPageByUser(user, limit), size + 1);
+            }
+        } else {
+            CashFlowCursor position = CashFlowCursor.decode(cursor);
+            rows = cashFlowRepository.findPageByUserAfter(
+                    user, position.getTransactionDate(), position.getId(), limit);
+            if (needsArchive(rows, size)) {
+                rows = mergeNewestFirst(rows, archivedCashFlowRepository.findPageByUserAfter(
+                        user, position.getTransactionDate(), position.getId(), limit), size + 1);
+            }
+        }
+
+        // One extra row tells whether there is a next page without counting
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows = rows.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            CashFlowResponse last = rows.get(rows.size() - 1);
+            nextCursor = new CashFlowCursor(last.getTransactionDate(), last.getId()).encode();
+        }
+        Long total = null;
+        if (includeTotal) {
+            total = cashFlowRepository.countByUserAndIsActiveTrue(user);
+            if (archiveService.reachesArchive(null)) {
+                total += archivedCashFlowRepository.countByUserAndIsActiveTrue(user);
+            }
+        }
+        return new CursorPage<>(rows, size, hasNext, nextCursor, total);
+    }
+
+    @Transactional(readOnly = true)
     public List<CashFlowResponse> getCashFlowsByDateRange(User user, LocalDate startDate, LocalDate endDate) {
-        return cashFlowRepository.findByUserAndDateRangeOrdered(user, startDate, endDate)
-                .stream()
-                .map(CashFlowResponse::fromEntity)
-                .collect(Collectors.toList());
+        List<CashFlowResponse> hot = cashFlowRepository.findResponsesByUserAndDateRange(user, startDate, endDate);
+        if (!archiveService.reachesArchive(startDate)) {
+            return hot;
+        }
+        List<CashFlowResponse> rows = new ArrayList<>(hot);
+        rows.addAll(archivedCashFlowRepository.findResponsesByUserAndDateRange(user, startDate, endDate));
+        rows.sort(Comparator.comparing(CashFlowResponse::getTransactionDate)
+                .thenComparing(CashFlowResponse::getCreatedAt)
+                .reversed());
+        return rows;
+    }
+
+    /**
+     * A hot page can only be missing archived rows when it is short, or when it
+     * reaches back to dates the archive holds (every archived row is dated on or
+     * before the archive boundary).
+     */
+    private boolean needsArchive(List<CashFlowResponse> hotRows, int size) {
+        if (hotRows.size() <= size) {
+            return archiveService.reachesArchive(null);
+        }
+        return archiveService.reachesArchive(hotRows.get(hotRows.size() - 1).getTransactionDate());
+    }
+
+    // Both inputs are ordered by (transactionDate DESC, id DESC)
+    private static List<CashFlowResponse> mergeNewestFirst(List<CashFlowResponse> a, List<CashFlowResponse> b,
+                                                           int limit) {
+        Comparator<CashFlowResponse> newestFirst = Comparator.comparing(CashFlowResponse::getTransactionDate)
+                .thenComparing(CashFlowResponse::getId)
+                .reversed();
+        return merge(a, b, newestFirst, limit);
+    }
+
+    // Both inputs are ordered by the comparator
+    private static List<CashFlowResponse> merge(List<CashFlowResponse> a, List<CashFlowResponse> b,
+                                                Comparator<CashFlowResponse> order, int limit) {
+        List<CashFlowResponse> merged = new ArrayList<>(Math.min(limit, a.size() + b.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < a.size() || j < b.size())) {
+            if (j >= b.size() || (i < a.size() && order.compare(a.get(i), b.get(j)) <= 0)) {
+                merged.add(a.get(i++));
+            } else {
+                merged.add(b.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    // The in-memory equivalent of a Sort the database applied, for merging two sorted pages.
+    // Nulls sort as PostgreSQL sorts them: last ascending, first descending
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<CashFlowResponse> comparatorFor(Sort sort) {
+        Comparator<CashFlowResponse> comparator = (x, y) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<CashFlowResponse> byProperty = Comparator.comparing(
+                    row -> (Comparable) new BeanWrapperImpl(row).getPropertyValue(order.getProperty()),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator;
+    }
+
+    // Both inputs are ordered by (changeSeq, id); a row read from both tables is kept once
+    private static List<CashFlowChange> mergeByChangeSeq(List<CashFlowChange> a, List<CashFlowChange> b, int limit) {
+        Comparator<CashFlowChange> oldestFirst = Comparator.comparingLong(CashFlowChange::getChangeSeq)
+                .thenComparing(change -> change.getCashFlow().getId());
+        List<CashFlowChange> merged = new ArrayList<>(Math.min(limit, a.size() + b.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < a.size() || j < b.size())) {
+            int order = i >= a.size() ? 1 : j >= b.size() ? -1 : oldestFirst.compare(a.get(i), b.get(j));
+            if (order == 0) {
+                j++;
+            }
+            merged.add(order <= 0 ? a.get(i++) : b.get(j++));
+        }
+        return merged;
     }
 
+    @Transactional(readOnly = true)
     public List<CashFlowResponse> getCashFlowsByType(User user, CashFlow.CashFlowType type) {
-        return cashFlowRepository.findByUserAndTypeAndIsActiveTrue(user, type)
-                .stream()
-                .map(CashFlowResponse::fromEntity)
-                .collect(Collectors.toList());
+        List<CashFlowResponse> hot = cashFlowRepository.findResponsesByUserAndType(user, type);
+        if (!archiveService.reachesArchive(null)) {
+            return hot;
+        }
+        List<CashFlowResponse> rows = new ArrayList<>(hot);
+        rows.addAll(archivedCashFlowRepository.findResponsesByUserAndType(user, type));
+        return rows;
     }
 
+    @Transactional(readOnly = true)
     public List<CashFlowResponse> searchCashFlows(User user, String searchTerm) {
-        return cashFlowRepository.findByUserAndSearchTerm(user, searchTerm)
-                .stream()
-                .map(CashFlowResponse::fromEntity)
+        return searchCashFlows(user, searchTerm, 0, DEFAULT_SEARCH_PAGE_SIZE);
+    }
+
+    /**
+     * Ranked (trigram) or date-ordered (LIKE fallback) search, one page at a time.
+     * Archived matches follow the hot ones, newest first: they are the oldest
+     * rows and the archive has no trigram index. Only a page past the end of the
+     * hot matches needs their COUNT, to know where in the archive it starts.
+     */
+    @Transactional(readOnly = true)
+    public List<CashFlowResponse> searchCashFlows(User user, String searchTerm, int page, int size) {
+        if (searchTerm == null || searchTerm.isBlank()) {
+            return List.of();
+        }
+        String term = escapeLike(searchTerm.trim());
+        List<CashFlowResponse> hot = searchHot(user, term, PageRequest.of(page, size));
+        if (hot.size() == size || !archiveService.reachesArchive(null)) {
+            return hot;
+        }
+        long pageStart = (long) page * size;
+        long hotMatches = hot.isEmpty() && page > 0 ? countHotMatches(user, term) : pageStart + hot.size();
+        int archiveStart = (int) (pageStart + hot.size() - hotMatches);
+        List<CashFlowResponse> archived = archivedCashFlowRepository.findByUserAndSearchTerm(
+                user, term, Limit.of(archiveStart + size - hot.size()));
+        List<CashFlowResponse> rows = new ArrayList<>(hot);
+        rows.addAll(archived.subList(Math.min(archiveStart, archived.size()), archived.size()));
+        return rows;
+    }
+
+    private List<CashFlowResponse> searchHot(User user, String term, Pageable pageable) {
+        if (!"trigram".equalsIgnoreCase(searchMode)) {
+            return cashFlowRepository.findByUserAndSearchTerm(user, term, pageable);
+        }
+        // Rank on ids in SQL, then load the page by primary key and restore the ranking
+        List<Long> ids = cashFlowRepository.searchRankedIdsByTrigram(user.getId(), term, pageable);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, CashFlowResponse> byId = cashFlowRepository.findResponsesByIds(ids).stream()
+                .collect(Collectors.toMap(CashFlowResponse::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
+    private long countHotMatches(User user, String term) {
+        if (!"trigram".equalsIgnoreCase(searchMode)) {
+            return cashFlowRepository.countByUserAndSearchTerm(user, term);
+        }
+        return cashFlowRepository.countTrigramMatches(user.getId(), term);
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     public CashFlowResponse updateCashFlow(Long id, CashFlowRequest request, User user) {
-        CashFlow cashFlow = cashFlowRepository.findById(id)
-                .filter(cf -> cf.getUser().equals(user) && cf.getIsActive())
+        shardMap.ensureWritable(user.getId());
+        CashFlow cashFlow = cashFlowRepository.findByIdAndUserAndIsActiveTrue(id, user)
+                .or(() -> archiveService.restore(id, user)
+                        ? cashFlowRepository.findByIdAndUserAndIsActiveTrue(id, user)
+                        : Optional.empty())
                 .orElseThrow(() -> new RuntimeException("Cash flow not found"));
 
-        Category category = categoryRepository.findById(request.getCategoryId())
+        CategoryResponse category = categoryCatalog.find(request.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Category not found"));
 
+        // Back the old values out of the rollup before they are overwritten
+        rollupService.remove(cashFlow);
+
         cashFlow.setDescription(request.getDescription());
         cashFlow.setAmount(request.getAmount());
         cashFlow.setTransactionDate(request.getTransactionDate());
         cashFlow.setType(request.getType());
-        cashFlow.setCategory(category);
+        cashFlow.setCategory(categoryRepository.getReferenceById(category.getId()));
         cashFlow.setNotes(request.getNotes());
         cashFlow.setIsRecurring(request.getIsRecurring());
         cashFlow.setRecurringFrequency(request.getRecurringFrequency());
 
         CashFlow savedCashFlow = cashFlowRepository.save(cashFlow);
-        return CashFlowResponse.fromEntity(savedCashFlow);
+        rollupService.add(savedCashFlow);
+        CashFlowResponse response = CashFlowResponse.fromEntity(savedCashFlow, category);
+        eventPublisher.publishEvent(CashFlowChangedEvent.upserted(user.getId(), response));
+        return response;
     }
 
     public void deleteCashFlow(Long id, User user) {
-        CashFlow cashFlow = cashFlowRepository.findById(id)
-                .filter(cf -> cf.getUser().equals(user) && cf.getIsActive())
-                .orElseThrow(() -> new RuntimeException("Cash flow not found"));
-
-        cashFlow.setIsActive(false);
-        cashFlowRepository.save(cashFlow);
+        shardMap.ensureWritable(user.getId());
+        // Soft delete in one UPDATE scoped to the owner; no row is read first.
+        // An archived row is moved back first, so the deletion reaches the change feed and the rollup
+        if (cashFlowRepository.softDelete(id, user, LocalDateTime.now()) == 0
+                && (!archiveService.restore(id, user) || cashFlowRepository.softDelete(id, user, LocalDateTime.now()) == 0)) {
+            throw new RuntimeException("Cash flow not found");
+        }
+        rollupService.remove(user, id);
+        eventPublisher.publishEvent(CashFlowChangedEvent.deleted(user.getId(), id));
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalIncome(User user, LocalDate startDate, LocalDate endDate) {
-        return cashFlowRepository.sumAmountByUserAndTypeAndDateRange(
-                user, CashFlow.CashFlowType.INCOME, startDate, endDate);
+        return getSummary(user, startDate, endDate).getTotalIncome();
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalExpenses(User user, LocalDate startDate, LocalDate endDate) {
-        return cashFlowRepository.sumAmountByUserAndTypeAndDateRange(
-                user, CashFlow.CashFlowType.EXPENSE, startDate, endDate);
+        return getSummary(user, startDate, endDate).getTotalExpenses();
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getBalance(User user, LocalDate startDate, LocalDate endDate) {
-        BigDecimal income = getTotalIncome(user, startDate, endDate);
-        BigDecimal expenses = getTotalExpenses(user, startDate, endDate);
-        
-        if (income == null) income = BigDecimal.ZERO;
-        if (expenses == null) expenses = BigDecimal.ZERO;
-        
-        return income.subtract(expenses);
+        return getSummary(user, startDate, endDate).getBalance();
+    }
+
+    // Sum and count for every type in a single GROUP BY over the daily rollup
+    @Transactional(readOnly = true)
+    public CashFlowSummary getSummary(User user, LocalDate startDate, LocalDate endDate) {
+        return rollupService.getSummary(user, startDate, endDate);
     }
 
+    @Transactional(readOnly = true)
     public long getTransactionCount(User user, CashFlow.CashFlowType type, 
                                    LocalDate startDate, LocalDate endDate) {
-        return cashFlowRepository.countByUserAndTypeAndDateRange(user, type, startDate, endDate);
+        return getSummary(user, startDate, endDate).getCount(type);
     }
 }
@@ -0,0 +1,159 @@
+package com.finance.finance.service;
+
+import com.finance.finance.config.DatabaseDialect;
+import com.finance.finance.event.CashFlowChangedEvent;
+import com.finance.finance.repository.CashFlowVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-user data version of cash flows, stored in cash_flow_versions. Every
+ * writer publishes a CashFlowChangedEvent inside its transaction; the version
+ * is bumped right there, so it commits (or rolls back) with the rows and is
+ * the same on every node and, once replicated, on every replica.
+ *
+ * The bump also stamps the rows the transaction wrote (change_seq still NULL)
+ * with the new version, right away and again just before commit for rows
+ * written after the event. The version row stays locked until commit, so a
+ * user's change sequence values commit in increasing order, which is what the
+ * change feed relies on.
+ *
+ * Each node also keeps the versions it has recently seen (recent), so
+ * conditional GETs can be answered without a query: an entry is read again
+ * once it is older than finance.etag.version-check-ms, and this node's own
+ * writes move it forward as soon as they commit.
+ */
+@Service
+public class CashFlowVersionService {
+
+    @Autowired
+    private CashFlowVersionRepository versionRepository;
+
+    @Autowired
+    private DatabaseDialect databaseDialect;
+
+    private final long checkIntervalMs;
+    // LRU of recently seen versions; guarded by itself
+    private final Map<Long, Checked> checked;
+
+    public CashFlowVersionService(@Value("${finance.etag.version-check-ms:2000}") long checkIntervalMs,
+                                  @Value("${finance.etag.version-cache.max-users:100000}") int maxUsers) {
+        this.checkIntervalMs = checkIntervalMs;
+        this.checked = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Checked> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    // 0 until the user's first write
+    @Transactional(readOnly = true)
+    public long current(Long userId) {
+        return versionRepository.findVersion(userId).orElse(0L);
+    }
+
+    /**
+     * The version as this node last read it, at most version-check-ms old, or
+     * newer when a write on this node has committed since. Only committed
+     * versions get here: a version a rolled back write had bumped to would later
+     * be reused for different rows.
+     */
+    public long recent(Long userId) {
+        long now = System.currentTimeMillis();
+        synchronized (checked) {
+            Checked entry = checked.get(userId);
+            if (entry != null && now - entry.checkedAt() < checkIntervalMs) {
+                return entry.version();
+            }
+        }
+        long version = versionRepository.findVersion(userId).orElse(0L);
+        synchronized (checked) {
+            Checked entry = checked.get(userId);
+            // A replica that has not caught up with this node's own writes must not move it back
+            if (entry != null && entry.version() > version) {
+                version = entry.version();
+            }
+            checked.put(userId, new Checked(version, now));
+        }
+        return version;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long bump(Long userId) {
+        if (databaseDialect.isH2()) {
+            versionRepository.mergeIncrement(userId);
+        } else {
+            versionRepository.upsertIncrement(userId);
+        }
+        versionRepository.stampChanges(userId);
+        stampBeforeCommit(userId);
+        return versionRepository.findVersion(userId).orElseThrow();
+    }
+
+    // Synchronous, in the writer's transaction (not after commit)
+    @EventListener
+    public void onCashFlowChanged(CashFlowChangedEvent event) {
+        // Outside a transaction nothing was written through the routed DataSource:
+        // ShardRebalancer copies between shard pools and carries the version over itself
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        // After-commit listeners use it to tell whether they saw every change in between
+        event.setVersion(bump(event.getUserId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCashFlowCommitted(CashFlowChangedEvent event) {
+        synchronized (checked) {
+            Checked entry = checked.get(event.getUserId());
+            if (entry == null) {
+                return;
+            }
+            if (event.getVersion() == 0) {
+                // Not bumped here (a shard move carries the version over): read it again
+                checked.remove(event.getUserId());
+            } else if (event.getVersion() > entry.version()) {
+                checked.put(event.getUserId(), new Checked(event.getVersion(), entry.checkedAt()));
+            }
+        }
+    }
+
+    // One synchronization per transaction, covering every user it bumped
+    private void stampBeforeCommit(Long userId) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof ChangeStamp stamp) {
+                stamp.userIds.add(userId);
+                return;
+            }
+        }
+        ChangeStamp stamp = new ChangeStamp();
+        stamp.userIds.add(userId);
+        TransactionSynchronizationManager.registerSynchronization(stamp);
+    }
+
+    private class ChangeStamp implements TransactionSynchronization {
+
+        private final Set<Long> userIds = new LinkedHashSet<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            userIds.forEach(versionRepository::stampChanges);
+        }
+    }
+
+    private record Checked(long version, long checkedAt) {
+    }
+}
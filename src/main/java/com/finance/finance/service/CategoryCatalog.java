@@ -0,0 +1,206 @@
+package com.finance.finance.service;
+
+import com.finance.finance.config.ShardContext;
+import com.finance.finance.config.ShardMap;
+import com.finance.finance.dto.CategoryResponse;
+import com.finance.finance.entity.CatalogVersion;
+import com.finance.finance.entity.Category;
+import com.finance.finance.repository.CatalogVersionRepository;
+import com.finance.finance.repository.CategoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of the categories table, indexed by id and by type. Categories
+ * are global and change a few times a year, so reads (listings, categoryId
+ * validation on every cash flow write) are served from an immutable snapshot
+ * that is replaced as a whole.
+ *
+ * Every committed category change bumps the 'categories' row of catalog_versions
+ * and reloads the snapshot on the node that made it; other nodes poll that
+ * version every finance.categories.version-check-ms and reload when it moved.
+ * Inside a transaction that has itself changed categories, reads go to the
+ * database so the transaction sees its own writes.
+ *
+ * The CategoryResponse instances are shared between callers and must not be modified.
+ */
+@Service
+public class CategoryCatalog {
+
+    static final String VERSION_NAME = "categories";
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CatalogVersionRepository catalogVersionRepository;
+
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final Counter reloadCounter;
+
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(long version,
+                            Map<Long, CategoryResponse> byId,
+                            List<CategoryResponse> active,
+                            Map<Category.CategoryType, List<CategoryResponse>> activeByType) {
+
+        static Snapshot of(long version, List<Category> categories) {
+            List<CategoryResponse> all = categories.stream()
+                    .map(CategoryResponse::fromEntity)
+                    .sorted(Comparator.comparing(CategoryResponse::getId))
+                    .toList();
+            List<CategoryResponse> active = all.stream()
+                    .filter(category -> Boolean.TRUE.equals(category.getIsActive()))
+                    .toList();
+            Map<Category.CategoryType, List<CategoryResponse>> activeByType = new EnumMap<>(Category.CategoryType.class);
+            for (Category.CategoryType type : Category.CategoryType.values()) {
+                activeByType.put(type, active.stream().filter(category -> category.getType() == type).toList());
+            }
+            return new Snapshot(version,
+                    all.stream().collect(Collectors.toUnmodifiableMap(CategoryResponse::getId, Function.identity())),
+                    active,
+                    Map.copyOf(activeByType));
+        }
+    }
+
+    public CategoryCatalog(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        // Own transactions: loads must not see, or wait for, the caller's uncommitted work
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reloadCounter = Counter.builder("finance.categories.catalog.reloads")
+                .description("Category catalog snapshot reloads")
+                .register(meterRegistry);
+        Gauge.builder("finance.categories.catalog.version", this, catalog -> {
+                    Snapshot current = catalog.snapshot;
+                    return current != null ? current.version() : -1;
+                })
+                .description("Category catalog version held by this node")
+                .register(meterRegistry);
+    }
+
+    // Any category, active or not
+    public Optional<CategoryResponse> find(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        if (!hasLocalChanges()) {
+            CategoryResponse category = current().byId().get(id);
+            if (category != null) {
+                return Optional.of(category);
+            }
+        }
+        // Changed in this transaction, or created on another node since the last version check
+        return categoryRepository.findById(id).map(CategoryResponse::fromEntity);
+    }
+
+    public List<CategoryResponse> getActiveCategories() {
+        if (hasLocalChanges()) {
+            return categoryRepository.findByIsActiveTrue().stream().map(CategoryResponse::fromEntity).toList();
+        }
+        return current().active();
+    }
+
+    public List<CategoryResponse> getActiveCategories(Category.CategoryType type) {
+        if (hasLocalChanges()) {
+            return categoryRepository.findByTypeAndIsActiveTrue(type).stream().map(CategoryResponse::fromEntity).toList();
+        }
+        return current().activeByType().get(type);
+    }
+
+    public long getVersion() {
+        return current().version();
+    }
+
+    // True when the current transaction has written categories not yet in the snapshot
+    public boolean hasLocalChanges() {
+        return TransactionSynchronizationManager.hasResource(this);
+    }
+
+    /**
+     * Called by CategoryChangeListener for every category insert, update or delete.
+     * Marks the transaction so its own reads bypass the snapshot, and publishes
+     * the change once it commits.
+     */
+    public void categoryChanged() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishChange();
+            return;
+        }
+        if (hasLocalChanges()) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishChange();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CategoryCatalog.this);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${finance.categories.version-check-ms:5000}")
+    public void checkVersion() {
+        Snapshot current = snapshot;
+        if (current != null && readVersion() != current.version()) {
+            reload();
+        }
+    }
+
+    // Reads the version before the rows: a change committing in between only causes one more reload later
+    public synchronized void reload() {
+        snapshot = ShardContext.callOn(ShardMap.HOME, () -> readTransaction.execute(status ->
+                Snapshot.of(catalogVersionRepository.findVersion(VERSION_NAME).orElse(0L), categoryRepository.findAll())));
+        reloadCounter.increment();
+    }
+
+    private void publishChange() {
+        ShardContext.runOn(ShardMap.HOME, () -> writeTransaction.executeWithoutResult(status -> {
+            if (catalogVersionRepository.increment(VERSION_NAME) == 0) {
+                catalogVersionRepository.save(new CatalogVersion(VERSION_NAME, 1L));
+            }
+        }));
+        reload();
+    }
+
+    private long readVersion() {
+        Long version = ShardContext.callOn(ShardMap.HOME, () -> readTransaction.execute(status ->
+                catalogVersionRepository.findVersion(VERSION_NAME).orElse(0L)));
+        return version != null ? version : 0L;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            reload();
+            current = snapshot;
+        }
+        return current;
+    }
+}
@@ -5,6 +5,7 @@ import com.finance.finance.entity.Category;
 import com.finance.finance.repository.CategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -18,6 +19,9 @@ public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
     public CategoryResponse createCategory(String name, String description, Category.CategoryType type) {
         if (categoryRepository.existsByNameAndType(name, type)) {
             throw new RuntimeException("Category with this name and type already exists");
@@ -33,26 +37,24 @@ public class CategoryService {
         return CategoryResponse.fromEntity(savedCategory);
     }
 
+    // Served from the in-memory catalog; SUPPORTS so no transaction (or connection) is opened for it
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<CategoryResponse> getAllCategories() {
-        return categoryRepository.findByIsActiveTrue()
-                .stream()
-                .map(CategoryResponse::fromEntity)
-                .collect(Collectors.toList());
+        return categoryCatalog.getActiveCategories();
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<CategoryResponse> getCategoriesByType(Category.CategoryType type) {
-        return categoryRepository.findByTypeAndIsActiveTrue(type)
-                .stream()
-                .map(CategoryResponse::fromEntity)
-                .collect(Collectors.toList());
+        return categoryCatalog.getActiveCategories(type);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<CategoryResponse> getCategoryById(Long id) {
-        return categoryRepository.findById(id)
-                .filter(Category::getIsActive)
-                .map(CategoryResponse::fromEntity);
+        return categoryCatalog.find(id)
+                .filter(CategoryResponse::getIsActive);
     }
 
+    @Transactional(readOnly = true)
     public List<CategoryResponse> searchCategories(String searchTerm) {
         return categoryRepository.findBySearchTerm(searchTerm)
                 .stream()
@@ -87,8 +89,9 @@ public class CategoryService {
         categoryRepository.save(category);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public long getCategoryCountByType(Category.CategoryType type) {
-        return categoryRepository.countByTypeAndActive(type);
+        return categoryCatalog.getActiveCategories(type).size();
     }
 
     public void initializeDefaultCategories() {
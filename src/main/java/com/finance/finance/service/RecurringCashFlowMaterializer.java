@@ -0,0 +1,402 @@
+package com.finance.finance.service;
+
+import com.finance.finance.config.ShardContext;
+import com.finance.finance.config.ShardMap;
+import com.finance.finance.entity.CashFlow;
+import com.finance.finance.entity.RecurringChunk;
+import com.finance.finance.entity.User;
+import com.finance.finance.event.CashFlowChangedEvent;
+import com.finance.finance.repository.CashFlowRepository;
+import com.finance.finance.repository.RecurringChunkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the occurrences of recurring cash flows. Every active row with
+ * isRecurring is a template; its transaction date is the first occurrence and
+ * each later one due by today becomes a plain row (isRecurring=false) carrying
+ * the import key "rec:{templateId}:{date}".
+ *
+ * Users are split into chunks of consecutive ids, worked on in parallel. A node
+ * claims a chunk through a lease in recurring_chunks and renews it in every
+ * batch transaction: the renewal locks the chunk row until the batch commits,
+ * so a node whose lease expired mid-run fails its next batch instead of writing
+ * alongside the new owner. Existing import keys, including soft-deleted rows,
+ * are skipped, so a chunk interrupted at any point is simply redone.
+ *
+ * Once a chunk is done through a day, later runs only look past that day, except
+ * for templates created since the previous run, which get their whole window back
+ * to max-backfill-days (kept below the archive window so archived occurrences
+ * are not written again). Edited templates are not backfilled: with a new date or
+ * frequency that would write a second series next to the one already there.
+ * Templates that predate the first run start at that day.
+ */
+@Service
+public class RecurringCashFlowMaterializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurringCashFlowMaterializer.class);
+
+    static final String KEY_PREFIX = "rec:";
+    private static final int KEY_LOOKUP_SIZE = 1000;
+
+    @Autowired
+    private CashFlowRepository cashFlowRepository;
+
+    @Autowired
+    private RecurringChunkRepository recurringChunkRepository;
+
+    @Autowired
+    private CashFlowRollupService rollupService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ShardFanOut shardFanOut;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int insertBatchSize;
+
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long usersPerChunk;
+    private final int templateBatchSize;
+    private final int maxBackfillDays;
+    private final long leaseMs;
+    private final int threads;
+    private final ExecutorService executor;
+
+    private final Counter materializedCounter;
+    private final Counter chunkCounter;
+    private final Counter leaseLostCounter;
+
+    public RecurringCashFlowMaterializer(PlatformTransactionManager transactionManager,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${finance.recurring.enabled:true}") boolean enabled,
+                                         @Value("${finance.recurring.users-per-chunk:1000}") long usersPerChunk,
+                                         @Value("${finance.recurring.template-batch-size:500}") int templateBatchSize,
+                                         @Value("${finance.recurring.max-backfill-days:366}") int maxBackfillDays,
+                                         @Value("${finance.recurring.lease-ms:300000}") long leaseMs,
+                                         @Value("${finance.recurring.threads:4}") int threads) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.usersPerChunk = usersPerChunk;
+        this.templateBatchSize = templateBatchSize;
+        this.maxBackfillDays = maxBackfillDays;
+        this.leaseMs = leaseMs;
+        this.threads = threads;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "recurring-materializer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.materializedCounter = Counter.builder("finance.recurring.materialized")
+                .description("Occurrences of recurring cash flows written")
+                .register(meterRegistry);
+        this.chunkCounter = Counter.builder("finance.recurring.chunks")
+                .description("User chunks processed by the recurring materializer")
+                .register(meterRegistry);
+        this.leaseLostCounter = Counter.builder("finance.recurring.lease_lost")
+                .description("Chunks abandoned because their lease expired mid-run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${finance.recurring.cron:0 30 1 * * *}")
+    public void materializeScheduled() {
+        if (enabled) {
+            materialize(LocalDate.now());
+        }
+    }
+
+    /**
+     * Writes every occurrence due by {@code today} on every shard and returns the
+     * number written. Shards are taken one after another; within a shard the
+     * chunks are spread over the worker threads.
+     */
+    public int materialize(LocalDate today) {
+        int total = 0;
+        for (String shard : shardFanOut.getShards()) {
+            total += ShardContext.callOn(shard, () -> materializeShard(shard, today));
+        }
+        if (total > 0) {
+            logger.info("Materialized {} recurring cash flow occurrences through {}", total, today);
+        }
+        return total;
+    }
+
+    private int materializeShard(String shard, LocalDate today) {
+        Long maxUserId = cashFlowRepository.findMaxRecurringUserId();
+        if (maxUserId == null) {
+            return 0;
+        }
+        // Read before any chunk completes: chunks without a run of their own compare against it
+        LocalDateTime previousRun = recurringChunkRepository.findLatestStartedAt();
+        long lastChunk = maxUserId / usersPerChunk;
+        AtomicLong nextChunk = new AtomicLong();
+        List<Future<Integer>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> ShardContext.callOn(shard, () -> {
+                int written = 0;
+                long chunk;
+                while ((chunk = nextChunk.getAndIncrement()) <= lastChunk) {
+                    written += processChunk(shard, chunk, today, previousRun);
+                }
+                return written;
+            })));
+        }
+        int total = 0;
+        try {
+            for (Future<Integer> worker : workers) {
+                total += worker.get();
+            }
+        } catch (InterruptedException e) {
+            workers.forEach(worker -> worker.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while materializing recurring cash flows", e);
+        } catch (ExecutionException e) {
+            workers.forEach(worker -> worker.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Recurring materialization failed", e.getCause());
+        }
+        return total;
+    }
+
+    private int processChunk(String shard, long chunk, LocalDate today, LocalDateTime previousRun) {
+        ensureChunkRow(chunk);
+        String owner = UUID.randomUUID().toString();
+        LocalDateTime startedAt = LocalDateTime.now();
+        RecurringChunk state = transactionTemplate.execute(status -> {
+            if (recurringChunkRepository.claim(chunk, owner, startedAt, startedAt.plusNanos(leaseMs * 1_000_000L)) == 0) {
+                return null;
+            }
+            return recurringChunkRepository.findById(chunk).orElse(null);
+        });
+        if (state == null) {
+            // Another node holds the lease
+            return 0;
+        }
+        LocalDate through = state.getMaterializedThrough();
+        if (through != null && !through.isBefore(today)) {
+            transactionTemplate.executeWithoutResult(status -> recurringChunkRepository.release(chunk, owner));
+            return 0;
+        }
+
+        try {
+            LocalDateTime since = state.getLastStartedAt() != null ? state.getLastStartedAt() : previousRun;
+            ChunkRun run = new ChunkRun(shard, chunk, owner, today, through, since);
+            while (run.hasMore) {
+                transactionTemplate.executeWithoutResult(status -> materializeBatch(run));
+            }
+            // A template skipped for a shard move keeps the chunk's window open for the next run
+            LocalDate completedThrough = run.skippedUsers ? through : today;
+            transactionTemplate.executeWithoutResult(status ->
+                    recurringChunkRepository.complete(chunk, owner, completedThrough, startedAt));
+            chunkCounter.increment();
+            return run.written;
+        } catch (LeaseLostException e) {
+            leaseLostCounter.increment();
+            logger.warn("Lost the lease on recurring chunk {} of {}; another node continues it", chunk, shard);
+            return 0;
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> recurringChunkRepository.release(chunk, owner));
+            throw e;
+        }
+    }
+
+    // Concurrent first runs may both insert the row; the loser just uses it
+    private void ensureChunkRow(long chunk) {
+        if (recurringChunkRepository.existsById(chunk)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    recurringChunkRepository.saveAndFlush(new RecurringChunk(chunk)));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Recurring chunk {} was created concurrently", chunk);
+        }
+    }
+
+    // One transaction: renew the lease, expand a batch of templates, insert what is missing
+    private void materializeBatch(ChunkRun run) {
+        if (recurringChunkRepository.renew(run.chunk, run.owner,
+                LocalDateTime.now().plusNanos(leaseMs * 1_000_000L)) == 0) {
+            throw new LeaseLostException();
+        }
+        List<CashFlow> templates = cashFlowRepository.findRecurringTemplates(
+                run.chunk * usersPerChunk, (run.chunk + 1) * usersPerChunk,
+                run.afterUserId, run.afterId, Limit.of(templateBatchSize));
+        run.hasMore = templates.size() == templateBatchSize;
+        if (templates.isEmpty()) {
+            return;
+        }
+        CashFlow last = templates.get(templates.size() - 1);
+        run.afterUserId = last.getUser().getId();
+        run.afterId = last.getId();
+
+        Map<String, CashFlow> pending = new LinkedHashMap<>();
+        Set<Long> userIds = new HashSet<>();
+        for (CashFlow template : templates) {
+            Long userId = template.getUser().getId();
+            if (!run.shard.equals(shardMap.shardFor(userId)) || shardMap.isMoving(userId)) {
+                run.skippedUsers = true;
+                continue;
+            }
+            for (LocalDate date : occurrences(template, run)) {
+                pending.put(KEY_PREFIX + template.getId() + ":" + date, occurrence(template, date));
+                userIds.add(userId);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(pending.keySet());
+        for (int i = 0; i < keys.size(); i += KEY_LOOKUP_SIZE) {
+            cashFlowRepository.findExistingImportKeys(userIds, keys.subList(i, Math.min(i + KEY_LOOKUP_SIZE, keys.size())))
+                    .forEach(pending::remove);
+        }
+
+        Map<Long, List<CashFlow>> createdByUser = new LinkedHashMap<>();
+        int unflushed = 0;
+        for (CashFlow cashFlow : pending.values()) {
+            entityManager.persist(cashFlow);
+            createdByUser.computeIfAbsent(cashFlow.getUser().getId(), id -> new ArrayList<>()).add(cashFlow);
+            if (++unflushed == insertBatchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                unflushed = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        createdByUser.forEach((userId, created) -> {
+            rollupService.addAll(entityManager.getReference(User.class, userId), created);
+            eventPublisher.publishEvent(CashFlowChangedEvent.bulk(userId));
+        });
+        run.written += pending.size();
+        materializedCounter.increment(pending.size());
+    }
+
+    // Due dates in the template's window, oldest first
+    private List<LocalDate> occurrences(CashFlow template, ChunkRun run) {
+        RecurringFrequency frequency = RecurringFrequency.parse(template.getRecurringFrequency());
+        List<LocalDate> dates = new ArrayList<>();
+        if (frequency == null) {
+            return dates;
+        }
+        LocalDate start = template.getTransactionDate();
+        LocalDate after = start;
+        boolean createdSinceLastRun = run.previousRun != null && template.getCreatedAt() != null
+                && !template.getCreatedAt().isBefore(run.previousRun);
+        if (!createdSinceLastRun) {
+            // Before the first run everything is pre-existing and starts today
+            LocalDate resumeAfter = run.through != null ? run.through : run.today.minusDays(1);
+            if (resumeAfter.isAfter(after)) {
+                after = resumeAfter;
+            }
+        }
+        LocalDate floor = run.today.minusDays(maxBackfillDays);
+        if (floor.isAfter(after)) {
+            after = floor;
+        }
+
+        long n = frequency.firstAfter(start, after);
+        LocalDate date = frequency.nth(start, n);
+        while (!date.isAfter(run.today)) {
+            dates.add(date);
+            date = frequency.nth(start, ++n);
+        }
+        return dates;
+    }
+
+    // Template id of an occurrence's import key; null for any other key
+    static Long templateIdOf(String importKey) {
+        if (importKey == null || !importKey.startsWith(KEY_PREFIX)) {
+            return null;
+        }
+        int end = importKey.indexOf(':', KEY_PREFIX.length());
+        try {
+            return Long.parseLong(end < 0 ? importKey.substring(KEY_PREFIX.length())
+                    : importKey.substring(KEY_PREFIX.length(), end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private CashFlow occurrence(CashFlow template, LocalDate date) {
+        CashFlow cashFlow = new CashFlow(template.getDescription(), template.getAmount(), date,
+                template.getType(), template.getCategory(), template.getUser());
+        cashFlow.setNotes(template.getNotes());
+        cashFlow.setIsRecurring(false);
+        cashFlow.setImportKey(KEY_PREFIX + template.getId() + ":" + date);
+        return cashFlow;
+    }
+
+    // Progress through one chunk, carried across its batch transactions
+    private static class ChunkRun {
+        final String shard;
+        final long chunk;
+        final String owner;
+        final LocalDate today;
+        final LocalDate through;
+        // Start of the previous run; null before the first one
+        final LocalDateTime previousRun;
+        long afterUserId = -1;
+        long afterId = -1;
+        boolean hasMore = true;
+        boolean skippedUsers;
+        int written;
+
+        ChunkRun(String shard, long chunk, String owner, LocalDate today, LocalDate through,
+                 LocalDateTime previousRun) {
+            this.shard = shard;
+            this.chunk = chunk;
+            this.owner = owner;
+            this.today = today;
+            this.through = through;
+            this.previousRun = previousRun;
+        }
+    }
+
+    private static class LeaseLostException extends RuntimeException {
+    }
+}
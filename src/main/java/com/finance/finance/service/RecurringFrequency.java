@@ -0,0 +1,45 @@
+package com.finance.finance.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Parsed form of CashFlow.recurringFrequency. The n-th occurrence is always
+ * computed from the template's own date, so month ends and Feb 29 do not drift
+ * (Jan 31 recurs on Feb 28 and then Mar 31).
+ */
+enum RecurringFrequency {
+    DAILY(ChronoUnit.DAYS), WEEKLY(ChronoUnit.WEEKS), MONTHLY(ChronoUnit.MONTHS), YEARLY(ChronoUnit.YEARS);
+
+    private final ChronoUnit unit;
+
+    RecurringFrequency(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    LocalDate nth(LocalDate start, long n) {
+        return start.plus(n, unit);
+    }
+
+    // Index of the first occurrence after {@code after}; never 0, the template row itself
+    long firstAfter(LocalDate start, LocalDate after) {
+        long n = Math.max(1, unit.between(start, after));
+        while (!nth(start, n).isAfter(after)) {
+            n++;
+        }
+        return n;
+    }
+
+    // recurringFrequency is free text; anything else is not recurring
+    static RecurringFrequency parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
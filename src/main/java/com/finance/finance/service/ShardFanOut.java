@@ -0,0 +1,84 @@
+package com.finance.finance.service;
+
+import com.finance.finance.config.ShardContext;
+import com.finance.finance.config.ShardMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs a task once per shard, in parallel, with {@link ShardContext} set to that
+ * shard, and collects the results by shard name. Used by admin queries and
+ * maintenance jobs that have to cover every user.
+ *
+ * With a single shard the task runs inline, so it joins the caller's transaction
+ * like any other service call. Tasks must not fan out again themselves.
+ */
+@Service
+public class ShardFanOut {
+
+    private final List<String> shards;
+    private final ExecutorService executor;
+    private final Timer fanOutTimer;
+
+    public ShardFanOut(ShardMap shardMap, MeterRegistry meterRegistry) {
+        this.shards = shardMap.getShards();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.fanOutTimer = Timer.builder("finance.sharding.fanout.duration")
+                .description("Time to run a task on every shard")
+                .register(meterRegistry);
+    }
+
+    public List<String> getShards() {
+        return shards;
+    }
+
+    public <T> Map<String, T> onEachShard(Function<String, T> work) {
+        Map<String, T> results = new LinkedHashMap<>();
+        if (shards.size() == 1) {
+            String shard = shards.get(0);
+            results.put(shard, ShardContext.callOn(shard, () -> work.apply(shard)));
+            return results;
+        }
+
+        long start = System.nanoTime();
+        Map<String, Future<T>> futures = new LinkedHashMap<>();
+        for (String shard : shards) {
+            futures.put(shard, executor.submit(() -> ShardContext.callOn(shard, () -> work.apply(shard))));
+        }
+        try {
+            for (Map.Entry<String, Future<T>> entry : futures.entrySet()) {
+                results.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for shards", e);
+        } catch (ExecutionException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Shard task failed", e.getCause());
+        } finally {
+            fanOutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,283 @@
+package com.finance.finance.service;
+
+import com.finance.finance.config.ShardContext;
+import com.finance.finance.config.ShardMap;
+import com.finance.finance.config.ShardRoutingDataSource;
+import com.finance.finance.entity.ShardAssignment;
+import com.finance.finance.event.CashFlowChangedEvent;
+import com.finance.finance.repository.ArchivedCashFlowRepository;
+import com.finance.finance.repository.CashFlowRepository;
+import com.finance.finance.repository.ShardAssignmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Online move of one user's rows to another shard.
+ *
+ * 1. The user is pinned to the source shard in state MOVING: reads keep going to
+ *    the source, writes are refused (ShardMoveInProgressException). The job then
+ *    waits finance.sharding.settle-ms so every node has seen the pin and
+ *    in-flight writes have finished.
+ * 2. cash_flows, cash_flows_archive and daily_cash_flow_rollup rows are copied
+ *    to the target in id batches; cash flow ids are kept, rollup ids are not.
+ * 3. The pin switches to the target, and after another settle period the source
+ *    rows are deleted.
+ *
+ * A failed copy removes the partial copy and restores the previous placement.
+ *
+ * Every user keeps a pin: appending a shard URL changes the ring, and a user
+ * placed by the ring alone would then be looked up on a shard without their rows.
+ * New users are pinned on creation (ShardReferenceSync); at startup any user
+ * still without a pin is pinned to the shard that holds their rows.
+ */
+@Service
+public class ShardRebalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    // Tables holding a user's rows; rollup ids are identity values local to each shard
+    private static final List<String> USER_TABLES = List.of("cash_flows", "cash_flows_archive", "daily_cash_flow_rollup");
+    // One row per user, carried over by copyRows rather than copied in batches
+    private static final String VERSION_TABLE = "cash_flow_versions";
+    private static final String ROLLUP_TABLE = "daily_cash_flow_rollup";
+
+    private static final String INSERT_PIN_SQL =
+            "INSERT INTO shard_assignments (user_id, shard, state, updated_at) VALUES (?, ?, 'ACTIVE', CURRENT_TIMESTAMP)";
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ShardFanOut shardFanOut;
+
+    @Autowired
+    private ShardAssignmentRepository shardAssignmentRepository;
+
+    @Autowired
+    private CashFlowRepository cashFlowRepository;
+
+    @Autowired
+    private ArchivedCashFlowRepository archivedCashFlowRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired(required = false)
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    private final long settleMillis;
+    private final int batchSize;
+    private final Counter movedUsersCounter;
+    private final Counter movedRowsCounter;
+
+    public ShardRebalancer(MeterRegistry meterRegistry,
+                           @Value("${finance.sharding.settle-ms:10000}") long settleMillis,
+                           @Value("${finance.sharding.batch-size:1000}") int batchSize) {
+        this.settleMillis = settleMillis;
+        this.batchSize = batchSize;
+        this.movedUsersCounter = Counter.builder("finance.sharding.moved.users")
+                .description("Users moved to another shard")
+                .register(meterRegistry);
+        this.movedRowsCounter = Counter.builder("finance.sharding.moved.rows")
+                .description("Rows copied to another shard by user moves")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Moves the user's rows to {@code target}. Returns the number of rows copied,
+     * 0 when the user already lives there.
+     */
+    public synchronized int moveUser(Long userId, String target) {
+        if (shardRoutingDataSource == null) {
+            throw new IllegalStateException("Sharding is not enabled");
+        }
+        if (!shardMap.getShards().contains(target)) {
+            throw new IllegalArgumentException("Unknown shard: " + target);
+        }
+        if (shardMap.isMoving(userId)) {
+            throw new IllegalStateException("User " + userId + " is already being moved");
+        }
+        String source = shardMap.shardFor(userId);
+        if (source.equals(target)) {
+            return 0;
+        }
+
+        pin(userId, source, target, ShardAssignment.State.MOVING);
+        settle();
+
+        int copied;
+        try {
+            copied = copyRows(userId, source, target);
+        } catch (RuntimeException e) {
+            deleteRows(target, userId);
+            pin(userId, source, null, ShardAssignment.State.ACTIVE);
+            logger.warn("Moving user {} from {} to {} failed, placement restored: {}", userId, source, target, e.getMessage());
+            throw e;
+        }
+
+        pin(userId, target, null, ShardAssignment.State.ACTIVE);
+        settle();
+        deleteRows(source, userId);
+
+        // Caches on this node drop the user's rows; other nodes reload on their next change
+        eventPublisher.publishEvent(CashFlowChangedEvent.bulk(userId));
+        movedUsersCounter.increment();
+        movedRowsCounter.increment(copied);
+        logger.info("Moved user {} from {} to {} ({} rows)", userId, source, target, copied);
+        return copied;
+    }
+
+    /**
+     * Pins users that have no shard_assignments row yet (created before pins were
+     * written on creation, or while a node ran without sharding). Users are pinned
+     * where their rows are, users without rows where the ring places them now.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void pinUnassignedUsers() {
+        if (shardRoutingDataSource == null) {
+            return;
+        }
+        JdbcTemplate home = new JdbcTemplate(shardDataSource(ShardMap.HOME));
+        long afterId = 0;
+        int pinned = 0;
+        while (true) {
+            List<Long> userIds = home.queryForList("SELECT u.id FROM users u WHERE u.id > ? AND NOT EXISTS (" +
+                    "SELECT 1 FROM shard_assignments a WHERE a.user_id = u.id) ORDER BY u.id LIMIT " + batchSize,
+                    Long.class, afterId);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            Map<Long, String> located = locateRows(userIds);
+            for (Long userId : userIds) {
+                if (insertPin(home, userId, located.getOrDefault(userId, shardMap.ringShardFor(userId)))) {
+                    pinned++;
+                }
+            }
+            afterId = userIds.get(userIds.size() - 1);
+        }
+        shardMap.refresh();
+        if (pinned > 0) {
+            logger.info("Pinned {} users to their current shard", pinned);
+        }
+    }
+
+    // False when another node pinned the user first
+    static boolean insertPin(JdbcTemplate home, Long userId, String shard) {
+        try {
+            home.update(INSERT_PIN_SQL, userId, shard);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // Shard holding each user's rows, for the users that have any
+    private Map<Long, String> locateRows(List<Long> userIds) {
+        Map<Long, String> located = new HashMap<>();
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", userIds);
+        for (String shard : shardMap.getShards()) {
+            NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(shardDataSource(shard));
+            for (String table : USER_TABLES) {
+                for (Long userId : jdbcTemplate.queryForList(
+                        "SELECT DISTINCT user_id FROM " + table + " WHERE user_id IN (:ids)", params, Long.class)) {
+                    String previous = located.putIfAbsent(userId, shard);
+                    if (previous != null && !previous.equals(shard)) {
+                        logger.warn("User {} has rows on {} and {}; pinning to {}", userId, previous, shard, previous);
+                    }
+                }
+            }
+        }
+        return located;
+    }
+
+    // Row counts per shard, queried in parallel
+    public Map<String, Map<String, Long>> shardStats() {
+        return shardFanOut.onEachShard(shard -> {
+            Map<String, Long> stats = new HashMap<>();
+            stats.put("cashFlows", cashFlowRepository.count());
+            stats.put("archivedCashFlows", archivedCashFlowRepository.count());
+            stats.put("users", cashFlowRepository.countDistinctUsers());
+            return stats;
+        });
+    }
+
+    private void pin(Long userId, String shard, String targetShard, ShardAssignment.State state) {
+        // Kept even when the ring agrees, since the ring changes whenever a shard is added
+        ShardContext.runOn(ShardMap.HOME, () ->
+                shardAssignmentRepository.save(new ShardAssignment(userId, shard, targetShard, state)));
+        shardMap.refresh();
+    }
+
+    private int copyRows(Long userId, String source, String target) {
+        JdbcTemplate from = new JdbcTemplate(shardDataSource(source));
+        JdbcTemplate to = new JdbcTemplate(shardDataSource(target));
+        // Leftovers of an earlier failed attempt
+        deleteRows(target, userId);
+        int copied = 0;
+        for (String table : USER_TABLES) {
+            Set<String> skipColumns = ROLLUP_TABLE.equals(table) ? Set.of("id") : Set.of();
+            long afterId = 0;
+            while (true) {
+                List<Map<String, Object>> rows = ShardRows.nextBatch(from, table, "user_id", userId, afterId, batchSize);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                ShardRows.insertAll(to, table, rows, skipColumns);
+                afterId = ShardRows.lastId(rows);
+                copied += rows.size();
+            }
+        }
+        // Continue the data version past every value served from the source, so no ETag repeats
+        Long version = from.query("SELECT version FROM " + VERSION_TABLE + " WHERE user_id = ?",
+                rs -> rs.next() ? rs.getLong(1) : 0L, userId);
+        to.update("INSERT INTO " + VERSION_TABLE + " (user_id, version) VALUES (?, ?)", userId, version + 1);
+        return copied;
+    }
+
+    private void deleteRows(String shard, Long userId) {
+        DataSource dataSource = shardDataSource(shard);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            for (String table : USER_TABLES) {
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE user_id = ?", userId);
+            }
+            jdbcTemplate.update("DELETE FROM " + VERSION_TABLE + " WHERE user_id = ?", userId);
+        });
+    }
+
+    private DataSource shardDataSource(String shard) {
+        return shardRoutingDataSource.getShardDataSource(shard);
+    }
+
+    private void settle() {
+        if (settleMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(settleMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for nodes to see the new placement", e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.finance.finance.service;
+
+import com.finance.finance.config.ShardMap;
+import com.finance.finance.config.ShardRoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps users and categories on every shard in step with the home shard, where
+ * they are written. Cash flows reference both (foreign keys, category joins),
+ * so each shard holds a read-only mirror of them.
+ *
+ * New users are also pinned in shard_assignments to the shard the ring gives
+ * them now, so appending a shard later does not move them away from their rows.
+ *
+ * Talks to the physical shard pools directly: the listener fires in the
+ * afterCommit phase, where the committed transaction's connection is still bound
+ * to the routed DataSource.
+ */
+@Service
+@ConditionalOnProperty(name = "finance.sharding.enabled", havingValue = "true")
+public class ShardReferenceSync {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardReferenceSync.class);
+
+    public static final String USERS = "users";
+    public static final String CATEGORIES = "categories";
+
+    private final ShardMap shardMap;
+    private final JdbcTemplate home;
+    private final Map<String, JdbcTemplate> others = new LinkedHashMap<>();
+    private final int batchSize;
+
+    public ShardReferenceSync(ShardRoutingDataSource shardRoutingDataSource,
+                              ShardMap shardMap,
+                              @Value("${finance.sharding.batch-size:1000}") int batchSize) {
+        this.shardMap = shardMap;
+        this.home = new JdbcTemplate(shardRoutingDataSource.getShardDataSource(ShardMap.HOME));
+        for (String shard : shardRoutingDataSource.getShardNames()) {
+            if (!ShardMap.HOME.equals(shard)) {
+                others.put(shard, new JdbcTemplate(shardRoutingDataSource.getShardDataSource(shard)));
+            }
+        }
+        this.batchSize = batchSize;
+    }
+
+    public void copyAfterCommit(String table, Long id) {
+        afterCommit(() -> copy(table, id));
+    }
+
+    public void pinAfterCommit(Long userId) {
+        afterCommit(() -> ShardRebalancer.insertPin(home, userId, shardMap.ringShardFor(userId)));
+    }
+
+    public void removeAfterCommit(String table, Long id) {
+        afterCommit(() -> remove(table, id));
+    }
+
+    public void copy(String table, Long id) {
+        List<Map<String, Object>> rows = home.queryForList("SELECT * FROM " + table + " WHERE id = ?", id);
+        if (rows.isEmpty()) {
+            return;
+        }
+        others.forEach((shard, jdbcTemplate) -> {
+            try {
+                ShardRows.upsert(jdbcTemplate, table, rows.get(0));
+            } catch (DataAccessException e) {
+                logger.warn("Could not copy {} {} to {}: {}", table, id, shard, e.getMessage());
+            }
+        });
+    }
+
+    public void remove(String table, Long id) {
+        others.forEach((shard, jdbcTemplate) -> {
+            try {
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE id = ?", id);
+            } catch (DataAccessException e) {
+                // Still referenced by cash flows on that shard
+                logger.warn("Could not remove {} {} from {}: {}", table, id, shard, e.getMessage());
+            }
+        });
+    }
+
+    // Catches up shards that were added or offline while users and categories changed
+    @EventListener(ApplicationReadyEvent.class)
+    public void copyAll() {
+        for (String table : List.of(USERS, CATEGORIES)) {
+            long afterId = 0;
+            int copied = 0;
+            while (true) {
+                List<Map<String, Object>> rows = home.queryForList(
+                        "SELECT * FROM " + table + " WHERE id > ? ORDER BY id LIMIT " + batchSize, afterId);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                others.values().forEach(jdbcTemplate -> rows.forEach(row -> ShardRows.upsert(jdbcTemplate, table, row)));
+                afterId = ShardRows.lastId(rows);
+                copied += rows.size();
+            }
+            logger.info("Synchronized {} {} rows to {} shards", copied, table, others.size());
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
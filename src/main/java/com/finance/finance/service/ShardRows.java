@@ -0,0 +1,60 @@
+package com.finance.finance.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Column-agnostic row copying between shards. Rows are read with SELECT * into
+ * column maps and written back with the same column names, so the copy follows
+ * whatever the migrations put in the table.
+ */
+final class ShardRows {
+
+    private ShardRows() {
+    }
+
+    // Next batch of rows matching column = value, in id order after afterId
+    static List<Map<String, Object>> nextBatch(JdbcTemplate jdbcTemplate, String table, String column, Object value,
+                                               long afterId, int batchSize) {
+        return jdbcTemplate.queryForList("SELECT * FROM " + table + " WHERE " + column + " = ? AND id > ? " +
+                "ORDER BY id LIMIT " + batchSize, value, afterId);
+    }
+
+    static long lastId(List<Map<String, Object>> rows) {
+        return ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+    }
+
+    static void insertAll(JdbcTemplate jdbcTemplate, String table, List<Map<String, Object>> rows, Set<String> skipColumns) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = rows.get(0).keySet().stream()
+                .filter(column -> skipColumns.stream().noneMatch(column::equalsIgnoreCase))
+                .toList();
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" +
+                columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            args.add(columns.stream().map(row::get).toArray());
+        }
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+
+    // Update by id, insert when the row is not there yet
+    static void upsert(JdbcTemplate jdbcTemplate, String table, Map<String, Object> row) {
+        List<String> columns = row.keySet().stream().filter(column -> !column.equalsIgnoreCase("id")).toList();
+        List<Object> args = new ArrayList<>(columns.stream().map(row::get).toList());
+        args.add(row.get("id"));
+        int updated = jdbcTemplate.update("UPDATE " + table + " SET " +
+                columns.stream().map(column -> column + " = ?").collect(Collectors.joining(", ")) +
+                " WHERE id = ?", args.toArray());
+        if (updated == 0) {
+            insertAll(jdbcTemplate, table, List.of(row), Set.of());
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.finance.finance.service;
+
+import com.finance.finance.config.ShardMap;
+import com.finance.finance.dto.StatementImportResult;
+import com.finance.finance.entity.User;
+import com.finance.finance.event.CashFlowChangedEvent;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bank statement import for PostgreSQL. Parsed rows are streamed into the
+ * unlogged cash_flow_import_staging table with COPY FROM STDIN, then merged
+ * into cash_flows by one set-based statement that resolves categories,
+ * skips rows already imported and folds the new rows into the daily rollup.
+ * Everything runs in one transaction; the staging rows are removed at the end.
+ */
+@Service
+public class StatementImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String COPY_SQL =
+            "COPY cash_flow_import_staging (import_id, line_no, user_id, transaction_date, amount, type, " +
+            "description, category_name, external_id, notes) FROM STDIN WITH (FORMAT csv)";
+
+    // Matches allocationSize on CashFlow's cash_flows_seq generator (INCREMENT BY 50)
+    static final int ID_BLOCK_SIZE = 50;
+
+    // Imports of the same user are serialized so two concurrent merges cannot both
+    // pass the import_key check; the key space is shared with nothing else
+    static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(?)";
+
+    // Category by name and type, falling back to the caller's default. Rows without an
+    // external id are keyed by content plus their occurrence number within the file, so
+    // re-importing a statement is idempotent while genuine same-day repeats are kept, also
+    // for rows that have since been moved to the archive.
+    // Ids are handed out the way Hibernate's pooled optimizer does: each nextval reserves
+    // the block (value - 49 .. value], so one call covers 50 rows instead of one.
+    static final String MERGE_SQL =
+            "WITH staged AS (" +
+            "  SELECT s.*," +
+            "    COALESCE((SELECT c.id FROM categories c WHERE lower(c.name) = lower(s.category_name)" +
+            "              AND c.type = s.type AND c.is_active = true ORDER BY c.id LIMIT 1), CAST(? AS bigint)) AS category_id," +
+            "    COALESCE('id:' || s.external_id," +
+            "      'h:' || s.transaction_date || '|' || s.amount || '|' || s.type || '|' || md5(s.description) || '#' ||" +
+            "      ROW_NUMBER() OVER (PARTITION BY s.transaction_date, s.amount, s.type, s.description" +
+            "                         ORDER BY s.line_no)) AS import_key" +
+            "  FROM cash_flow_import_staging s WHERE s.import_id = ?" +
+            "), fresh AS (" +
+            "  SELECT DISTINCT ON (st.import_key) st.* FROM staged st" +
+            "  WHERE st.category_id IS NOT NULL AND NOT EXISTS (" +
+            "    SELECT 1 FROM cash_flows cf WHERE cf.user_id = st.user_id AND cf.import_key = st.import_key" +
+            "    AND cf.is_active = true) AND NOT EXISTS (" +
+            "    SELECT 1 FROM cash_flows_archive a WHERE a.user_id = st.user_id AND a.import_key = st.import_key" +
+            "    AND a.is_active = true)" +
+            "  ORDER BY st.import_key, st.line_no" +
+            "), numbered AS (" +
+            "  SELECT f.*, ROW_NUMBER() OVER (ORDER BY f.line_no) - 1 AS rn FROM fresh f" +
+            "), blocks AS (" +
+            "  SELECT b, nextval('cash_flows_seq') AS hi FROM generate_series(0," +
+            "    CAST(ceil((SELECT COUNT(*) FROM numbered) / " + ID_BLOCK_SIZE + ".0) AS bigint) - 1) b" +
+            "), inserted AS (" +
+            "  INSERT INTO cash_flows (id, description, amount, transaction_date, type, category_id, user_id," +
+            "    notes, is_recurring, is_active, import_key, created_at, updated_at)" +
+            "  SELECT bl.hi - " + (ID_BLOCK_SIZE - 1) + " + n.rn % " + ID_BLOCK_SIZE + "," +
+            "    n.description, n.amount, n.transaction_date, n.type, n.category_id," +
+            "    n.user_id, n.notes, false, true, n.import_key, LOCALTIMESTAMP, LOCALTIMESTAMP" +
+            "  FROM numbered n JOIN blocks bl ON bl.b = n.rn / " + ID_BLOCK_SIZE +
+            "  RETURNING user_id, transaction_date, type, category_id, amount" +
+            "), rolled_up AS (" +
+            "  INSERT INTO daily_cash_flow_rollup (user_id, rollup_date, type, category_id, total_amount, transaction_count)" +
+            "  SELECT user_id, transaction_date, type, category_id, SUM(amount), COUNT(*) FROM inserted" +
+            "  GROUP BY user_id, transaction_date, type, category_id" +
+            "  ON CONFLICT (user_id, rollup_date, type, category_id) DO UPDATE SET" +
+            "    total_amount = daily_cash_flow_rollup.total_amount + EXCLUDED.total_amount," +
+            "    transaction_count = daily_cash_flow_rollup.transaction_count + EXCLUDED.transaction_count" +
+            ") " +
+            "SELECT (SELECT COUNT(*) FROM staged) AS staged," +
+            " (SELECT COUNT(*) FROM staged WHERE category_id IS NULL) AS uncategorized," +
+            " (SELECT COUNT(*) FROM inserted) AS imported";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    public StatementImportResult importStatement(User user, StatementParser.Format format, InputStream input,
+                                                 Charset charset, Long defaultCategoryId) {
+        shardMap.ensureWritable(user.getId());
+        if (defaultCategoryId != null && categoryCatalog.find(defaultCategoryId).isEmpty()) {
+            throw new IllegalArgumentException("Default category not found");
+        }
+        UUID importId = UUID.randomUUID();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        return transactionTemplate.execute(status -> {
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                if (!connection.isWrapperFor(PGConnection.class)) {
+                    throw new UnsupportedOperationException("Statement import requires PostgreSQL");
+                }
+                StagingWriter writer = new StagingWriter(
+                        connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL), importId, user.getId());
+                try {
+                    StatementParser.parse(format, new InputStreamReader(input, charset), writer);
+                    writer.finish();
+                } catch (IOException | RuntimeException e) {
+                    writer.cancel();
+                    throw e;
+                }
+
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                // Held until commit; the COPY above ran unlocked
+                jdbcTemplate.queryForList(LOCK_SQL, user.getId());
+                Map<String, Object> counts = jdbcTemplate.queryForMap(MERGE_SQL, defaultCategoryId, importId);
+                jdbcTemplate.update("DELETE FROM cash_flow_import_staging WHERE import_id = ?", importId);
+
+                long staged = ((Number) counts.get("staged")).longValue();
+                long uncategorized = ((Number) counts.get("uncategorized")).longValue();
+                long imported = ((Number) counts.get("imported")).longValue();
+                logger.info("Statement import {} for user {}: {} staged, {} imported", importId, user.getId(),
+                        staged, imported);
+                if (imported > 0) {
+                    eventPublisher.publishEvent(CashFlowChangedEvent.bulk(user.getId()));
+                }
+                return new StatementImportResult(importId.toString(), format.name(), staged, imported,
+                        staged - uncategorized - imported, uncategorized, writer.rejected, writer.errors);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Statement import failed", e);
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        });
+    }
+
+    /**
+     * Turns parsed lines into COPY csv rows, sending them to the server in
+     * fixed-size chunks as the file is read.
+     */
+    private static final class StagingWriter implements StatementParser.Listener {
+
+        private final CopyIn copyIn;
+        private final String importId;
+        private final String userId;
+        private final StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 1024);
+        private final List<String> errors = new ArrayList<>();
+        private long rejected;
+
+        private StagingWriter(CopyIn copyIn, UUID importId, Long userId) {
+            this.copyIn = copyIn;
+            this.importId = importId.toString();
+            this.userId = userId.toString();
+        }
+
+        @Override
+        public void onLine(StatementParser.Line line) throws IOException {
+            if (line.description() == null || line.description().length() < 2) {
+                onError(line.lineNumber(), "Description must have at least 2 characters");
+                return;
+            }
+            if (line.amount().signum() == 0) {
+                onError(line.lineNumber(), "Amount must be greater than 0");
+                return;
+            }
+            buffer.append(importId).append(',')
+                    .append(line.lineNumber()).append(',')
+                    .append(userId).append(',')
+                    .append(line.transactionDate()).append(',')
+                    .append(line.amount().setScale(2, RoundingMode.HALF_UP).toPlainString()).append(',')
+                    .append(line.type().name()).append(',');
+            appendText(line.description(), 200).append(',');
+            appendText(line.categoryName(), 100).append(',');
+            appendText(line.externalId(), 100).append(',');
+            appendText(line.notes(), 500).append('\n');
+            if (buffer.length() >= COPY_BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        @Override
+        public void onError(int lineNumber, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + lineNumber + ": " + message);
+            }
+        }
+
+        // Quoted CSV field; an unquoted empty field is NULL for COPY
+        private StringBuilder appendText(String value, int maxLength) {
+            if (value == null) {
+                return buffer;
+            }
+            String text = value.length() > maxLength ? value.substring(0, maxLength) : value;
+            buffer.append('"').append(text.replace("\"", "\"\"")).append('"');
+            return buffer;
+        }
+
+        private void flush() throws IOException {
+            if (buffer.length() == 0) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                throw new IOException("COPY into staging failed", e);
+            }
+            buffer.setLength(0);
+        }
+
+        private void finish() throws IOException {
+            flush();
+            try {
+                copyIn.endCopy();
+            } catch (SQLException e) {
+                throw new IOException("COPY into staging failed", e);
+            }
+        }
+
+        private void cancel() {
+            try {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            } catch (SQLException e) {
+                logger.warn("Could not cancel staging COPY: {}", e.getMessage());
+            }
+        }
+    }
+}
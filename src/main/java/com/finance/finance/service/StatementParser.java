@@ -0,0 +1,257 @@
+package com.finance.finance.service;
+
+import com.finance.finance.entity.CashFlow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming parsers for bank statement files. Each transaction is handed to
+ * the {@link Listener} as soon as it is read, so whole files are never held
+ * in memory.
+ */
+public final class StatementParser {
+
+    public enum Format {
+        CSV, OFX
+    }
+
+    public record Line(int lineNumber, LocalDate transactionDate, BigDecimal amount, CashFlow.CashFlowType type,
+                       String description, String categoryName, String externalId, String notes) {
+    }
+
+    public interface Listener {
+        void onLine(Line line) throws IOException;
+
+        void onError(int lineNumber, String message);
+    }
+
+    private static final DateTimeFormatter BRAZILIAN_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private StatementParser() {
+    }
+
+    public static void parse(Format format, Reader reader, Listener listener) throws IOException {
+        if (format == Format.OFX) {
+            parseOfx(reader, listener);
+        } else {
+            parseCsv(reader, listener);
+        }
+    }
+
+    /**
+     * CSV with a header row. Recognised columns (any order, case-insensitive):
+     * date, description, amount, and optionally type, category, id and notes.
+     * Without a type column the sign of the amount decides income vs expense.
+     */
+    public static void parseCsv(Reader reader, Listener listener) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        String header = in.readLine();
+        if (header == null) {
+            listener.onError(1, "Empty file");
+            return;
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        char separator = header.indexOf(';') >= 0 && header.indexOf(',') < 0 ? ';' : ',';
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header, separator);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        Integer dateColumn = column(columns, "date", "data", "transaction_date");
+        Integer descriptionColumn = column(columns, "description", "descricao", "descrição", "memo");
+        Integer amountColumn = column(columns, "amount", "valor");
+        if (dateColumn == null || descriptionColumn == null || amountColumn == null) {
+            listener.onError(1, "Header must contain date, description and amount columns");
+            return;
+        }
+        Integer typeColumn = column(columns, "type", "tipo");
+        Integer categoryColumn = column(columns, "category", "categoria");
+        Integer idColumn = column(columns, "id", "external_id", "fitid");
+        Integer notesColumn = column(columns, "notes", "observacoes", "observações");
+
+        String row;
+        int lineNumber = 1;
+        while ((row = in.readLine()) != null) {
+            lineNumber++;
+            if (row.isBlank()) {
+                continue;
+            }
+            List<String> values = splitCsv(row, separator);
+            try {
+                BigDecimal signed = parseAmount(value(values, amountColumn));
+                String typeValue = value(values, typeColumn);
+                CashFlow.CashFlowType type = typeValue != null
+                        ? parseType(typeValue)
+                        : signed.signum() < 0 ? CashFlow.CashFlowType.EXPENSE : CashFlow.CashFlowType.INCOME;
+                listener.onLine(new Line(lineNumber, parseDate(value(values, dateColumn)), signed.abs(), type,
+                        value(values, descriptionColumn), value(values, categoryColumn),
+                        value(values, idColumn), value(values, notesColumn)));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                listener.onError(lineNumber, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * OFX 1.x (SGML, closing tags optional) and 2.x (XML). Reads tag by tag
+     * and emits one line per STMTTRN aggregate.
+     */
+    public static void parseOfx(Reader reader, Listener listener) throws IOException {
+        Reader in = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+        Map<String, String> transaction = null;
+        int transactionNumber = 0;
+        StringBuilder tag = new StringBuilder();
+        StringBuilder text = new StringBuilder();
+        String openTag = null;
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c != '<') {
+                text.append((char) c);
+                continue;
+            }
+            if (openTag != null && transaction != null) {
+                String value = text.toString().trim();
+                if (!value.isEmpty()) {
+                    transaction.put(openTag, value);
+                }
+            }
+            text.setLength(0);
+            tag.setLength(0);
+            while ((c = in.read()) != -1 && c != '>') {
+                tag.append((char) c);
+            }
+            String name = tag.toString().trim().toUpperCase(Locale.ROOT);
+            if (name.equals("STMTTRN")) {
+                transaction = new HashMap<>();
+                transactionNumber++;
+                openTag = null;
+            } else if (name.equals("/STMTTRN")) {
+                if (transaction != null) {
+                    emitOfx(transactionNumber, transaction, listener);
+                }
+                transaction = null;
+                openTag = null;
+            } else if (name.startsWith("/")) {
+                openTag = null;
+            } else {
+                openTag = name;
+            }
+        }
+    }
+
+    private static void emitOfx(int transactionNumber, Map<String, String> transaction, Listener listener)
+            throws IOException {
+        try {
+            String posted = transaction.get("DTPOSTED");
+            if (posted == null || posted.length() < 8) {
+                throw new IllegalArgumentException("Missing DTPOSTED");
+            }
+            LocalDate date = LocalDate.parse(posted.substring(0, 8), DateTimeFormatter.BASIC_ISO_DATE);
+            BigDecimal signed = parseAmount(transaction.get("TRNAMT"));
+            String description = transaction.getOrDefault("NAME", transaction.get("MEMO"));
+            String notes = transaction.containsKey("NAME") ? transaction.get("MEMO") : null;
+            listener.onLine(new Line(transactionNumber, date, signed.abs(),
+                    signed.signum() < 0 ? CashFlow.CashFlowType.EXPENSE : CashFlow.CashFlowType.INCOME,
+                    description, null, transaction.get("FITID"), notes));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            listener.onError(transactionNumber, e.getMessage());
+        }
+    }
+
+    private static Integer column(Map<String, Integer> columns, String... names) {
+        for (String name : names) {
+            Integer index = columns.get(name);
+            if (index != null) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    private static String value(List<String> values, Integer column) {
+        if (column == null || column >= values.size()) {
+            return null;
+        }
+        String value = values.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing date");
+        }
+        return value.indexOf('/') >= 0 ? LocalDate.parse(value, BRAZILIAN_DATE) : LocalDate.parse(value);
+    }
+
+    private static BigDecimal parseAmount(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing amount");
+        }
+        String normalized = value.replace(" ", "");
+        // 1.234,56 (pt-BR) or 1,234.56
+        int lastComma = normalized.lastIndexOf(',');
+        int lastDot = normalized.lastIndexOf('.');
+        if (lastComma > lastDot) {
+            normalized = normalized.replace(".", "").replace(',', '.');
+        } else {
+            normalized = normalized.replace(",", "");
+        }
+        try {
+            return new BigDecimal(normalized);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + value);
+        }
+    }
+
+    private static CashFlow.CashFlowType parseType(String value) {
+        return switch (value.trim().toUpperCase(Locale.ROOT)) {
+            case "INCOME", "RECEITA", "CREDIT", "C" -> CashFlow.CashFlowType.INCOME;
+            case "EXPENSE", "DESPESA", "DEBIT", "D" -> CashFlow.CashFlowType.EXPENSE;
+            default -> throw new IllegalArgumentException("Invalid type: " + value);
+        };
+    }
+
+    // RFC 4180 field splitting for one physical line
+    private static List<String> splitCsv(String line, char separator) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,234 @@
+package com.finance.finance.service;
+
+import com.finance.finance.config.JwtConfig;
+import com.finance.finance.config.VerifiedToken;
+import com.finance.finance.entity.RevokedToken;
+import com.finance.finance.repository.RevokedTokenRepository;
+import com.finance.finance.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory revocation checks for the JWT filter; no check touches the database.
+ *
+ * Two mechanisms are kept side by side:
+ * - a denylist of individually revoked token ids (jti), persisted in
+ *   revoked_tokens and mirrored here as a Bloom filter in front of an exact
+ *   map, so the common "not revoked" answer costs a few bit probes;
+ * - for claims-only (stateless) authentication, a per-username cutoff taken
+ *   from users.tokens_valid_after. iat only has second precision, so a token
+ *   is accepted only when its iat second is strictly after the cutoff second;
+ *   a token issued in the same second as a password change is refused.
+ *
+ * Both are refreshed from the database on a schedule so every node converges.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // Overlap between refreshes, covering clock skew between nodes
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private JwtConfig jwtConfig;
+
+    private final int bloomExpectedInsertions;
+    private final double bloomFalsePositiveRate;
+
+    // username -> epoch second; a token is only accepted if its iat second is strictly after it
+    private final Map<String, Long> cutoffs = new ConcurrentHashMap<>();
+
+    // jti -> expiry in epoch millis
+    private final Map<String, Long> revokedIds = new ConcurrentHashMap<>();
+
+    // Replaced wholesale on purge; writers hold the service monitor so a rebuild never drops an id
+    private volatile BloomFilter bloom;
+
+    private volatile Instant lastCutoffRefresh;
+    private volatile Instant lastDenylistRefresh;
+
+    private final Counter bloomNegativeCounter;
+    private final Counter falsePositiveCounter;
+    private final Counter revokedHitCounter;
+    private final Counter revokedCounter;
+
+    public TokenRevocationService(MeterRegistry meterRegistry,
+                                  @Value("${jwt.revocation.bloom.expected-insertions:100000}") int bloomExpectedInsertions,
+                                  @Value("${jwt.revocation.bloom.false-positive-rate:0.01}") double bloomFalsePositiveRate) {
+        this.bloomExpectedInsertions = bloomExpectedInsertions;
+        this.bloomFalsePositiveRate = bloomFalsePositiveRate;
+        this.bloom = new BloomFilter(bloomExpectedInsertions, bloomFalsePositiveRate);
+        this.bloomNegativeCounter = Counter.builder("finance.auth.revocation.checks")
+                .description("Token revocation checks by outcome")
+                .tag("result", "bloom_negative")
+                .register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("finance.auth.revocation.checks")
+                .description("Token revocation checks by outcome")
+                .tag("result", "false_positive")
+                .register(meterRegistry);
+        this.revokedHitCounter = Counter.builder("finance.auth.revocation.checks")
+                .description("Token revocation checks by outcome")
+                .tag("result", "revoked")
+                .register(meterRegistry);
+        this.revokedCounter = Counter.builder("finance.auth.tokens.revoked")
+                .description("Tokens revoked through logout")
+                .register(meterRegistry);
+        Gauge.builder("finance.auth.revocation.denylist.size", revokedIds, Map::size)
+                .description("Revoked token ids held in memory")
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (isDenied(token.getId())) {
+            return true;
+        }
+        // Cutoffs only matter when the principal is not reloaded from the database
+        if (!jwtConfig.isStatelessEnabled()) {
+            return false;
+        }
+        // Without a jti the token could never be denied individually (logout)
+        if (token.getId() == null || token.getIssuedAt() == null) {
+            return true;
+        }
+        Long cutoff = cutoffs.get(token.getSubject());
+        if (cutoff == null) {
+            return false;
+        }
+        return token.getIssuedAt().toInstant().getEpochSecond() <= cutoff;
+    }
+
+    private boolean isDenied(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (!bloom.mightContain(jti)) {
+            bloomNegativeCounter.increment();
+            return false;
+        }
+        Long expiresAt = revokedIds.get(jti);
+        if (expiresAt == null) {
+            falsePositiveCounter.increment();
+            return false;
+        }
+        revokedHitCounter.increment();
+        return true;
+    }
+
+    /**
+     * Denies a single token until it expires. Tokens issued before jti
+     * claims existed cannot be revoked individually.
+     */
+    public boolean revoke(VerifiedToken token) {
+        if (token.getId() == null || token.getExpiration() == null) {
+            return false;
+        }
+        Instant expiresAt = token.getExpiration().toInstant();
+        revokedTokenRepository.save(new RevokedToken(token.getId(), token.getSubject(), expiresAt, Instant.now()));
+        remember(token.getId(), expiresAt.toEpochMilli());
+        revokedCounter.increment();
+        return true;
+    }
+
+    public void revokeIssuedBefore(String username, Instant instant) {
+        cutoffs.merge(username, instant.getEpochSecond(), Math::max);
+    }
+
+    private synchronized void remember(String jti, long expiresAtMillis) {
+        revokedIds.put(jti, expiresAtMillis);
+        bloom.put(jti);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDenylist() {
+        Instant now = Instant.now();
+        List<RevokedToken> active = revokedTokenRepository.findByExpiresAtAfter(now);
+        for (RevokedToken revoked : active) {
+            remember(revoked.getJti(), revoked.getExpiresAt().toEpochMilli());
+        }
+        lastDenylistRefresh = now;
+        logger.info("Loaded {} revoked token ids into the denylist", active.size());
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-ms:5000}")
+    public void refreshDenylist() {
+        Instant last = lastDenylistRefresh;
+        if (last == null) {
+            // Not loaded yet; ApplicationReadyEvent does the initial load
+            return;
+        }
+        Instant now = Instant.now();
+        for (RevokedToken revoked : revokedTokenRepository.findByRevokedAtAfterAndExpiresAtAfter(
+                last.minus(REFRESH_OVERLAP), now)) {
+            if (!revokedIds.containsKey(revoked.getJti())) {
+                remember(revoked.getJti(), revoked.getExpiresAt().toEpochMilli());
+            }
+        }
+        lastDenylistRefresh = now;
+    }
+
+    /**
+     * Drops expired ids from the table and from memory. A Bloom filter cannot
+     * forget entries, so it is rebuilt from what is left.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int deleted = revokedTokenRepository.deleteExpired(now);
+        long nowMillis = now.toEpochMilli();
+        synchronized (this) {
+            revokedIds.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+            BloomFilter rebuilt = new BloomFilter(
+                    Math.max(bloomExpectedInsertions, revokedIds.size() * 2), bloomFalsePositiveRate);
+            revokedIds.keySet().forEach(rebuilt::put);
+            bloom = rebuilt;
+        }
+        if (deleted > 0) {
+            logger.info("Purged {} expired revoked token ids", deleted);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.stateless.revocation-refresh-ms:15000}")
+    public void refreshCutoffs() {
+        if (!jwtConfig.isStatelessEnabled()) {
+            return;
+        }
+        Instant now = Instant.now();
+        // Cutoffs older than the token lifetime can no longer match a live token
+        Instant horizon = now.minusMillis(jwtConfig.getExpiration());
+        Instant since = lastCutoffRefresh == null ? horizon : lastCutoffRefresh.minus(REFRESH_OVERLAP);
+        if (since.isBefore(horizon)) {
+            since = horizon;
+        }
+
+        for (UserRepository.TokenCutoff cutoff : userRepository.findTokenCutoffsAfter(since)) {
+            revokeIssuedBefore(cutoff.getUsername(), cutoff.getTokensValidAfter());
+        }
+        long horizonSeconds = horizon.getEpochSecond();
+        cutoffs.values().removeIf(cutoff -> cutoff < horizonSeconds);
+        lastCutoffRefresh = now;
+    }
+}
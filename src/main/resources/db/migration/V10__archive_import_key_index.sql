@@ -0,0 +1,3 @@
+-- Statement imports skip rows whose import_key is already archived, not only those still in cash_flows
+CREATE INDEX idx_cash_flows_archive_user_import_key ON cash_flows_archive (user_id, import_key)
+    WHERE import_key IS NOT NULL;
@@ -0,0 +1,8 @@
+-- Per-user data version of cash flows, behind the listing ETags. Bumped in every transaction that
+-- writes a user's cash flows and read in the same transaction as the listed rows, so every node
+-- (and every replica) agrees on it. One table per shard, next to the rows it versions.
+
+CREATE TABLE cash_flow_versions (
+    user_id bigint PRIMARY KEY,
+    version bigint NOT NULL
+);
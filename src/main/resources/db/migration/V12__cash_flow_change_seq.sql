@@ -0,0 +1,20 @@
+-- The change feed (/auth/cashflow/changes) orders by a per-user change sequence, not by updated_at.
+-- Writers leave change_seq NULL and CashFlowVersionService stamps it with the user's new data version
+-- (cash_flow_versions, V11) in the same transaction, while holding that row's lock. A user's sequence
+-- values therefore commit in order, and a watermark can never pass a row that commits later.
+
+-- Existing rows predate every version. A constant default fills them without rewriting the table,
+-- and dropping it afterwards keeps new rows NULL until they are stamped.
+ALTER TABLE cash_flows ADD COLUMN change_seq bigint DEFAULT 0;
+ALTER TABLE cash_flows ALTER COLUMN change_seq DROP DEFAULT;
+
+-- Archived rows keep their position, so the feed can read the archive too
+ALTER TABLE cash_flows_archive ADD COLUMN change_seq bigint DEFAULT 0;
+ALTER TABLE cash_flows_archive ALTER COLUMN change_seq DROP DEFAULT;
+
+-- Not partial: the feed returns tombstones, and the stamp looks up rows that are still NULL
+CREATE INDEX IF NOT EXISTS idx_cash_flows_user_change_seq
+    ON cash_flows (user_id, change_seq, id);
+
+CREATE INDEX IF NOT EXISTS idx_cash_flows_archive_user_change_seq
+    ON cash_flows_archive (user_id, change_seq, id);
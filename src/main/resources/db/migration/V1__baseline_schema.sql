@@ -0,0 +1,72 @@
+-- Baseline: the schema Hibernate (ddl-auto=update) used to maintain.
+-- Databases created before migrations are baselined at this version (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE users (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username varchar(255) NOT NULL UNIQUE,
+    email varchar(255) NOT NULL UNIQUE,
+    password varchar(255) NOT NULL,
+    whatsapp varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    is_active boolean,
+    enabled boolean,
+    roles varchar(255),
+    tokens_valid_after timestamp(6) with time zone,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6)
+);
+
+CREATE TABLE categories (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name varchar(100) NOT NULL,
+    description varchar(500),
+    type varchar(255) NOT NULL CHECK (type IN ('INCOME', 'EXPENSE')),
+    is_active boolean,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6)
+);
+
+CREATE SEQUENCE cash_flows_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE cash_flows (
+    id bigint PRIMARY KEY,
+    description varchar(200) NOT NULL,
+    amount numeric(15,2) NOT NULL,
+    transaction_date date NOT NULL,
+    type varchar(255) NOT NULL CHECK (type IN ('INCOME', 'EXPENSE')),
+    category_id bigint NOT NULL REFERENCES categories (id),
+    user_id bigint NOT NULL REFERENCES users (id),
+    notes varchar(500),
+    is_recurring boolean,
+    recurring_frequency varchar(255),
+    is_active boolean,
+    import_key varchar(255),
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6)
+);
+
+CREATE INDEX idx_cash_flows_user_active_date_id
+    ON cash_flows (user_id, is_active, transaction_date DESC, id DESC);
+CREATE INDEX idx_cash_flows_user_import_key ON cash_flows (user_id, import_key);
+
+CREATE TABLE daily_cash_flow_rollup (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    rollup_date date NOT NULL,
+    type varchar(255) NOT NULL CHECK (type IN ('INCOME', 'EXPENSE')),
+    category_id bigint NOT NULL REFERENCES categories (id),
+    total_amount numeric(19,2) NOT NULL,
+    transaction_count bigint NOT NULL,
+    CONSTRAINT uk_daily_rollup_user_date_type_category UNIQUE (user_id, rollup_date, type, category_id)
+);
+
+CREATE TABLE revoked_tokens (
+    jti varchar(36) PRIMARY KEY,
+    username varchar(50) NOT NULL,
+    expires_at timestamp(6) with time zone NOT NULL,
+    revoked_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
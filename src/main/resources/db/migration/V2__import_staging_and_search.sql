@@ -0,0 +1,28 @@
+-- Objects previously created by schema-postgresql.sql; idempotent so baselined databases that already have them pass.
+
+-- cash_flows moved from IDENTITY to the pooled cash_flows_seq: keep the sequence ahead of existing ids
+SELECT setval('cash_flows_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM cash_flows))
+WHERE (SELECT last_value FROM cash_flows_seq) <= (SELECT COALESCE(MAX(id), 0) FROM cash_flows);
+
+-- Staging area for statement imports (COPY target); unlogged since rows only live for one transaction
+CREATE UNLOGGED TABLE IF NOT EXISTS cash_flow_import_staging (
+    import_id uuid NOT NULL,
+    line_no integer NOT NULL,
+    user_id bigint NOT NULL,
+    transaction_date date NOT NULL,
+    amount numeric(15,2) NOT NULL,
+    type varchar(20) NOT NULL,
+    description varchar(200) NOT NULL,
+    category_name varchar(100),
+    external_id varchar(100),
+    notes varchar(500)
+);
+
+CREATE INDEX IF NOT EXISTS idx_import_staging_import_id ON cash_flow_import_staging (import_id);
+
+-- Substring search (finance.search.mode=trigram): trigram GIN index over description + notes,
+-- combined with user_id through btree_gin so one index scan covers both predicates
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+CREATE INDEX IF NOT EXISTS idx_cash_flows_search_trgm ON cash_flows
+    USING gin (user_id, (lower(coalesce(description, '') || ' ' || coalesce(notes, ''))) gin_trgm_ops);
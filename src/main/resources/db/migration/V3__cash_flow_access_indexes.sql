@@ -0,0 +1,26 @@
+-- Indexes for the cash_flows / daily_cash_flow_rollup access patterns. Every read is scoped to one
+-- user and to active rows, so the cash_flows indexes are partial on is_active and lead with user_id.
+
+-- Listing, keyset pages, date ranges and range aggregates: (user_id, transaction_date DESC, id DESC)
+-- matches the page order; INCLUDE lets the sum/count and rollup backfill queries skip the heap.
+CREATE INDEX IF NOT EXISTS idx_cash_flows_user_date_active
+    ON cash_flows (user_id, transaction_date DESC, id DESC)
+    INCLUDE (type, amount, category_id)
+    WHERE is_active = true;
+
+-- Per-type lists and per-type sums/counts over a date range
+CREATE INDEX IF NOT EXISTS idx_cash_flows_user_type_date_active
+    ON cash_flows (user_id, type, transaction_date)
+    INCLUDE (amount)
+    WHERE is_active = true;
+
+-- Superseded by idx_cash_flows_user_date_active
+DROP INDEX IF EXISTS idx_cash_flows_user_active_date_id;
+
+-- Foreign key lookups when a category is deleted
+CREATE INDEX IF NOT EXISTS idx_cash_flows_category ON cash_flows (category_id);
+
+-- Dashboard summaries (GROUP BY type over a date range) read only the rollup index
+CREATE INDEX IF NOT EXISTS idx_daily_rollup_user_date_covering
+    ON daily_cash_flow_rollup (user_id, rollup_date)
+    INCLUDE (type, total_amount, transaction_count);
@@ -0,0 +1,67 @@
+-- cash_flows becomes a range-partitioned table, one partition per transaction_date month.
+-- The primary key has to include the partition key; ids stay unique through cash_flows_seq.
+-- Months outside the created partitions land in cash_flows_default until
+-- CashFlowPartitionManager creates their partition and moves them over.
+
+ALTER TABLE cash_flows RENAME TO cash_flows_unpartitioned;
+
+CREATE TABLE cash_flows (
+    id bigint NOT NULL,
+    description varchar(200) NOT NULL,
+    amount numeric(15,2) NOT NULL,
+    transaction_date date NOT NULL,
+    type varchar(255) NOT NULL CHECK (type IN ('INCOME', 'EXPENSE')),
+    category_id bigint NOT NULL REFERENCES categories (id),
+    user_id bigint NOT NULL REFERENCES users (id),
+    notes varchar(500),
+    is_recurring boolean,
+    recurring_frequency varchar(255),
+    is_active boolean,
+    import_key varchar(255),
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6),
+    PRIMARY KEY (id, transaction_date)
+) PARTITION BY RANGE (transaction_date);
+
+CREATE TABLE cash_flows_default PARTITION OF cash_flows DEFAULT;
+
+-- Monthly partitions from the oldest existing row up to three months ahead
+DO $$
+DECLARE
+    month_start date := date_trunc('month', COALESCE((SELECT MIN(transaction_date) FROM cash_flows_unpartitioned),
+                                                     CURRENT_DATE));
+    last_month date := date_trunc('month', CURRENT_DATE + INTERVAL '3 months');
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF cash_flows FOR VALUES FROM (%L) TO (%L)',
+                       'cash_flows_p' || to_char(month_start, 'YYYY_MM'),
+                       month_start, (month_start + INTERVAL '1 month')::date);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO cash_flows (id, description, amount, transaction_date, type, category_id, user_id, notes,
+                        is_recurring, recurring_frequency, is_active, import_key, created_at, updated_at)
+SELECT id, description, amount, transaction_date, type, category_id, user_id, notes,
+       is_recurring, recurring_frequency, is_active, import_key, created_at, updated_at
+FROM cash_flows_unpartitioned;
+
+DROP TABLE cash_flows_unpartitioned;
+
+-- Indexes on the parent cascade to every partition, including the ones created later
+CREATE INDEX idx_cash_flows_user_date_active
+    ON cash_flows (user_id, transaction_date DESC, id DESC)
+    INCLUDE (type, amount, category_id)
+    WHERE is_active = true;
+
+CREATE INDEX idx_cash_flows_user_type_date_active
+    ON cash_flows (user_id, type, transaction_date)
+    INCLUDE (amount)
+    WHERE is_active = true;
+
+CREATE INDEX idx_cash_flows_user_import_key ON cash_flows (user_id, import_key);
+CREATE INDEX idx_cash_flows_category ON cash_flows (category_id);
+CREATE INDEX idx_cash_flows_search_trgm ON cash_flows
+    USING gin (user_id, (lower(coalesce(description, '') || ' ' || coalesce(notes, ''))) gin_trgm_ops);
+
+ANALYZE cash_flows;
@@ -0,0 +1,28 @@
+-- Cold tier for cash_flows: old and long-deleted rows are moved here by CashFlowArchiveService.
+-- Append-only, so pages are packed full (fillfactor 100) and never rewritten by updates.
+
+CREATE TABLE cash_flows_archive (
+    id bigint PRIMARY KEY,
+    description varchar(200) NOT NULL,
+    amount numeric(15,2) NOT NULL,
+    transaction_date date NOT NULL,
+    type varchar(255) NOT NULL CHECK (type IN ('INCOME', 'EXPENSE')),
+    category_id bigint NOT NULL REFERENCES categories (id),
+    user_id bigint NOT NULL REFERENCES users (id),
+    notes varchar(500),
+    is_recurring boolean,
+    recurring_frequency varchar(255),
+    is_active boolean,
+    import_key varchar(255),
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6),
+    archived_at timestamp(6) NOT NULL
+) WITH (fillfactor = 100);
+
+-- Read-through queries: same shape as the hot listing index
+CREATE INDEX idx_cash_flows_archive_user_date_active
+    ON cash_flows_archive (user_id, transaction_date DESC, id DESC)
+    INCLUDE (type, amount, category_id)
+    WHERE is_active = true;
+
+CREATE INDEX idx_cash_flows_archive_category ON cash_flows_archive (category_id);
@@ -0,0 +1,10 @@
+-- User-to-shard pins written by the rebalancer (ShardRebalancer). Only the home shard's
+-- copy is read; users without a pin are placed by the consistent-hash ring.
+
+CREATE TABLE shard_assignments (
+    user_id bigint PRIMARY KEY,
+    shard varchar(50) NOT NULL,
+    target_shard varchar(50),
+    state varchar(20) NOT NULL CHECK (state IN ('ACTIVE', 'MOVING')),
+    updated_at timestamp(6)
+);
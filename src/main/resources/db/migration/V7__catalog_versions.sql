@@ -0,0 +1,9 @@
+-- Change counters for data cached in memory on every node (CategoryCatalog).
+-- Each committed change bumps its row; nodes poll the row and reload when it moved.
+
+CREATE TABLE catalog_versions (
+    name varchar(50) PRIMARY KEY,
+    version bigint NOT NULL
+);
+
+INSERT INTO catalog_versions (name, version) VALUES ('categories', 0);
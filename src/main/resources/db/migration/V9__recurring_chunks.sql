@@ -0,0 +1,17 @@
+-- Work units of the recurring materializer (RecurringCashFlowMaterializer). Chunk n covers the
+-- users with id in [n * users-per-chunk, (n + 1) * users-per-chunk). A node owns a chunk while
+-- its lease is valid; materialized_through is the last day whose occurrences are all written.
+-- Rows are created on first use, one table per shard.
+
+CREATE TABLE recurring_chunks (
+    chunk bigint PRIMARY KEY,
+    lease_owner varchar(100),
+    lease_until timestamp(6),
+    materialized_through date,
+    last_started_at timestamp(6)
+);
+
+-- Template scan: active recurring rows of one user range, in (user_id, id) order
+CREATE INDEX IF NOT EXISTS idx_cash_flows_recurring_templates
+    ON cash_flows (user_id, id)
+    WHERE is_recurring = true AND is_active = true;
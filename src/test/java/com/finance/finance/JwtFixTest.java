@@ -1,6 +1,8 @@
 package com.finance.finance;
 
+import com.finance.finance.config.AuthenticatedUser;
 import com.finance.finance.config.JwtConfig;
+import com.finance.finance.config.VerifiedToken;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -37,4 +39,26 @@ class JwtFixTest {
             assertTrue(isValid);
         });
     }
+
+    @Test
+    void testVerifyParsesTokenOnceIntoClaims() {
+        String token = jwtConfig.generateToken("testuser", "USER,ADMIN");
+        VerifiedToken verified = jwtConfig.verify(token);
+        assertEquals("testuser", verified.getSubject());
+        assertEquals("USER,ADMIN", verified.getRoles());
+        assertFalse(verified.isExpired());
+    }
+
+    @Test
+    void testStatelessPrincipalIsBuiltFromClaims() {
+        String token = jwtConfig.generateToken(42L, "testuser", "USER,ADMIN");
+        VerifiedToken verified = jwtConfig.verify(token);
+        assertEquals(42L, verified.getUserId());
+
+        AuthenticatedUser principal = AuthenticatedUser.fromToken(verified);
+        assertEquals(42L, principal.getId());
+        assertEquals("testuser", principal.getUsername());
+        assertEquals(2, principal.getAuthorities().size());
+        assertEquals(42L, principal.toUserReference().getId());
+    }
 }
@@ -0,0 +1,101 @@
+package com.finance.finance.benchmark;
+
+import com.finance.finance.config.JwtConfig;
+import com.finance.finance.config.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request JWT verification cost, before and after caching the signing key
+ * and parser in {@link JwtConfig}.
+ *
+ * <ul>
+ *   <li>{@code legacyFilterPath}: the old filter flow - rebuild key and parser on every
+ *   call and parse the token three times (subject, then subject and expiry in validateToken).</li>
+ *   <li>{@code cachedVerify}: the current flow - one parse with the shared parser.</li>
+ * </ul>
+ *
+ * Run with {@code mvn test-compile} and then the {@link #main} method, or
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main JwtVerifyBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET =
+            "FinanceAppSecretKey2024!@#$%^&*()FinanceAppSecretKey2024!@#$%^&*()FinanceAppSecretKey2024!@#$%^&*()";
+
+    private JwtConfig jwtConfig;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtConfig = new JwtConfig();
+        ReflectionTestUtils.setField(jwtConfig, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtConfig, "expiration", 3600000L);
+        jwtConfig.init();
+        token = jwtConfig.generateToken("benchmark-user", "USER,ADMIN");
+    }
+
+    @Benchmark
+    public boolean legacyFilterPath() {
+        String username = legacyClaims(token).getSubject();
+        String validatedUsername = legacyClaims(token).getSubject();
+        Date expiration = legacyClaims(token).getExpiration();
+        return username.equals(validatedUsername) && !expiration.before(new Date());
+    }
+
+    @Benchmark
+    public boolean cachedVerify() {
+        VerifiedToken verified = jwtConfig.verify(token);
+        return verified.getSubject() != null && !verified.isExpired();
+    }
+
+    // Mirrors the previous JwtConfig.getAllClaimsFromToken + getSigningKey
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(legacySigningKey())
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static SecretKey legacySigningKey() {
+        byte[] keyBytes = SECRET.getBytes();
+        if (keyBytes.length != 64) {
+            byte[] adjustedKey = new byte[64];
+            System.arraycopy(keyBytes, 0, adjustedKey, 0, Math.min(keyBytes.length, 64));
+            return Keys.hmacShaKeyFor(adjustedKey);
+        }
+        return Keys.hmacShaKeyFor(keyBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerifyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
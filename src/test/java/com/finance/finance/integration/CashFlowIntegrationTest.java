@@ -1,19 +1,34 @@
 package com.finance.finance.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.finance.dto.BulkCashFlowResponse;
+import com.finance.finance.dto.BulkCashFlowResult;
 import com.finance.finance.dto.CashFlowRequest;
+import com.finance.finance.dto.CashFlowResponse;
+import com.finance.finance.dto.CashFlowSummary;
+import com.finance.finance.dto.CursorPage;
 import com.finance.finance.dto.LoginRequest;
 import com.finance.finance.entity.CashFlow;
 import com.finance.finance.entity.Category;
 import com.finance.finance.entity.User;
+import com.finance.finance.event.CashFlowChangedEvent;
 import com.finance.finance.repository.CashFlowRepository;
 import com.finance.finance.repository.CategoryRepository;
 import com.finance.finance.repository.UserRepository;
+import com.finance.finance.service.CashFlowArchiveService;
+import com.finance.finance.service.CashFlowExportService;
+import com.finance.finance.service.CashFlowRollupService;
+import com.finance.finance.service.CashFlowSearchIndex;
+import com.finance.finance.service.CashFlowVersionService;
+import com.finance.finance.service.CashFlowService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
@@ -22,12 +37,22 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureWebMvc
@@ -47,6 +72,24 @@ public class CashFlowIntegrationTest {
     @Autowired
     private CashFlowRepository cashFlowRepository;
 
+    @Autowired
+    private CashFlowRollupService rollupService;
+
+    @Autowired
+    private CashFlowService cashFlowService;
+
+    @Autowired
+    private CashFlowExportService cashFlowExportService;
+
+    @Autowired
+    private CashFlowSearchIndex cashFlowSearchIndex;
+
+    @Autowired
+    private CashFlowVersionService cashFlowVersionService;
+
+    @Autowired
+    private CashFlowArchiveService cashFlowArchiveService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -185,6 +228,85 @@ public class CashFlowIntegrationTest {
                 .andExpect(jsonPath("$.content[0].type").exists());
     }
 
+    @Test
+    void testGetCashFlowsByCursor() throws Exception {
+        LocalDate today = LocalDate.now();
+        createTestCashFlowWithDate("Oldest", new BigDecimal("10.00"), today.minusDays(2));
+        createTestCashFlowWithDate("Same day A", new BigDecimal("20.00"), today);
+        createTestCashFlowWithDate("Same day B", new BigDecimal("30.00"), today);
+
+        CursorPage<CashFlowResponse> first = cashFlowService.getCashFlowsByUserAfter(testUser, null, 2, false);
+        assertEquals(2, first.getContent().size());
+        assertTrue(first.isHasNext());
+        assertNull(first.getTotalElements());
+        // Ties on the date are broken by id, newest first
+        assertEquals("Same day B", first.getContent().get(0).getDescription());
+        assertEquals("Same day A", first.getContent().get(1).getDescription());
+
+        CursorPage<CashFlowResponse> second = cashFlowService.getCashFlowsByUserAfter(
+                testUser, first.getNextCursor(), 2, true);
+        assertEquals(1, second.getContent().size());
+        assertEquals("Oldest", second.getContent().get(0).getDescription());
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+        assertEquals(3L, second.getTotalElements());
+
+        mockMvc.perform(get("/auth/cashflow")
+                .param("pagination", "cursor")
+                .param("cursor", "not-a-cursor")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testExportStreamsNdjsonAndCsv() {
+        LocalDate today = LocalDate.now();
+        createTestCashFlowWithDate("Rent, \"flat\"", new BigDecimal("1500.00"), today.minusDays(1));
+        createTestCashFlowWithDate("=HYPERLINK(x)", new BigDecimal("9.90"), today);
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        cashFlowExportService.export(testUser, null, null, CashFlowExportService.Format.NDJSON, ndjson);
+        String[] lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"description\":\"Rent, \\\"flat\\\"\""));
+        assertTrue(lines[0].contains("\"amount\":1500.00"));
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        cashFlowExportService.export(testUser, today, today, CashFlowExportService.Format.CSV, csv);
+        String[] rows = csv.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, rows.length);
+        assertTrue(rows[0].startsWith("id,transactionDate,type,amount"));
+        assertTrue(rows[1].contains(",'=HYPERLINK(x),"));
+    }
+
+    @Test
+    void testBulkCreateReportsEachRow() {
+        LocalDate today = LocalDate.now();
+        List<CashFlowRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            requests.add(new CashFlowRequest("Statement line " + i, new BigDecimal("10.00"),
+                    today, CashFlow.CashFlowType.EXPENSE, testCategory.getId()));
+        }
+        requests.add(new CashFlowRequest("Unknown category", new BigDecimal("10.00"),
+                today, CashFlow.CashFlowType.EXPENSE, 999999L));
+        requests.add(new CashFlowRequest("Negative", new BigDecimal("-1.00"),
+                today, CashFlow.CashFlowType.EXPENSE, testCategory.getId()));
+
+        BulkCashFlowResponse response = cashFlowService.createCashFlows(requests, testUser);
+
+        assertEquals(122, response.getReceived());
+        assertEquals(120, response.getCreated());
+        assertEquals(2, response.getRejected());
+        assertNotNull(response.getResults().get(0).getId());
+        assertEquals(BulkCashFlowResult.Status.REJECTED, response.getResults().get(120).getStatus());
+        assertEquals(121, response.getResults().get(121).getIndex());
+        assertFalse(response.getResults().get(121).getErrors().isEmpty());
+
+        CashFlowSummary summary = cashFlowService.getSummary(testUser, today, today);
+        assertEquals(0, new BigDecimal("1200.00").compareTo(summary.getTotalExpenses()));
+        assertEquals(120, summary.getExpenseCount());
+    }
+
     @Test
     void testGetCashFlowById() throws Exception {
         // Create a test cash flow
@@ -256,6 +378,209 @@ public class CashFlowIntegrationTest {
                 .andExpect(jsonPath("$[0].description").value("Grocery shopping"));
     }
 
+    @Test
+    void testSearchIsPagedAndTreatsWildcardsLiterally() {
+        for (int i = 0; i < 5; i++) {
+            createTestCashFlow("Coffee " + i, new BigDecimal("5.00"), CashFlow.CashFlowType.EXPENSE);
+        }
+        createTestCashFlow("Discount 50% off", new BigDecimal("20.00"), CashFlow.CashFlowType.EXPENSE);
+
+        assertEquals(2, cashFlowService.searchCashFlows(testUser, "coffee", 0, 2).size());
+        assertEquals(1, cashFlowService.searchCashFlows(testUser, "coffee", 2, 2).size());
+
+        List<CashFlowResponse> percent = cashFlowService.searchCashFlows(testUser, "50%", 0, 10);
+        assertEquals(1, percent.size());
+        assertEquals("Discount 50% off", percent.get(0).getDescription());
+        assertTrue(cashFlowService.searchCashFlows(testUser, "_", 0, 10).isEmpty());
+    }
+
+    @Test
+    void testSearchIndexFoldsAccentsAndFollowsChanges() {
+        cashFlowSearchIndex.evict(testUser.getId());
+        createTestCashFlow("Pão de queijo", new BigDecimal("8.00"), CashFlow.CashFlowType.EXPENSE);
+        CashFlow bakery = createTestCashFlow("Padaria São João", new BigDecimal("15.00"), CashFlow.CashFlowType.EXPENSE);
+
+        assertEquals(1, cashFlowSearchIndex.search(testUser, "pao", 0, 10).orElseThrow().size());
+        List<CashFlowResponse> prefix = cashFlowSearchIndex.search(testUser, "sao jo", 0, 10).orElseThrow();
+        assertEquals(1, prefix.size());
+        assertEquals(bakery.getId(), prefix.get(0).getId());
+        List<String> suggestions = cashFlowSearchIndex.suggest(testUser, "Pã", 10).orElseThrow();
+        assertTrue(suggestions.contains("pao"));
+        assertTrue(suggestions.contains("padaria"));
+
+        // Incremental updates arrive as after-commit events carrying the version the write bumped to
+        bakery.setDescription("Confeitaria");
+        cashFlowRepository.save(bakery);
+        CashFlowChangedEvent renamed = CashFlowChangedEvent.upserted(testUser.getId(), CashFlowResponse.fromEntity(bakery));
+        renamed.setVersion(cashFlowVersionService.bump(testUser.getId()));
+        cashFlowSearchIndex.onCashFlowChanged(renamed);
+        assertTrue(cashFlowSearchIndex.search(testUser, "padaria", 0, 10).orElseThrow().isEmpty());
+        assertEquals(1, cashFlowSearchIndex.search(testUser, "confeit", 0, 10).orElseThrow().size());
+
+        // A write on another node bumps the version without an event here; the index is rebuilt
+        bakery.setDescription("Doceria");
+        cashFlowRepository.save(bakery);
+        cashFlowVersionService.bump(testUser.getId());
+        assertTrue(cashFlowSearchIndex.search(testUser, "confeit", 0, 10).orElseThrow().isEmpty());
+        assertEquals(1, cashFlowSearchIndex.search(testUser, "doceria", 0, 10).orElseThrow().size());
+
+        bakery.setIsActive(false);
+        cashFlowRepository.save(bakery);
+        CashFlowChangedEvent deleted = CashFlowChangedEvent.deleted(testUser.getId(), bakery.getId());
+        deleted.setVersion(cashFlowVersionService.bump(testUser.getId()));
+        cashFlowSearchIndex.onCashFlowChanged(deleted);
+        assertTrue(cashFlowSearchIndex.search(testUser, "doceria", 0, 10).orElseThrow().isEmpty());
+    }
+
+    @Test
+    void testReadProjectionsCarryCategoryAndOwnership() {
+        CashFlow rent = createTestCashFlow("Rent", new BigDecimal("1200.00"), CashFlow.CashFlowType.EXPENSE);
+
+        CashFlowResponse byId = cashFlowService.getCashFlowById(rent.getId(), testUser).orElseThrow();
+        assertEquals("Rent", byId.getDescription());
+        assertEquals(testCategory.getId(), byId.getCategory().getId());
+        assertEquals(testCategory.getName(), byId.getCategory().getName());
+
+        User stranger = new User();
+        stranger.setUsername("stranger");
+        stranger.setEmail("stranger@example.com");
+        stranger.setPassword(passwordEncoder.encode("password123"));
+        stranger.setRoles("USER");
+        stranger.setEnabled(true);
+        stranger = userRepository.save(stranger);
+        assertTrue(cashFlowService.getCashFlowById(rent.getId(), stranger).isEmpty());
+
+        List<CashFlowResponse> byType = cashFlowService.getCashFlowsByType(testUser, CashFlow.CashFlowType.EXPENSE);
+        assertEquals(1, byType.size());
+        assertEquals(testCategory.getName(), byType.get(0).getCategory().getName());
+    }
+
+    @Test
+    void testListingsAnswerConditionalGetsWithETags() throws Exception {
+        createTestCashFlow("Tagged", new BigDecimal("10.00"), CashFlow.CashFlowType.EXPENSE);
+
+        String etag = mockMvc.perform(get("/auth/cashflow")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get("/auth/cashflow")
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/auth/cashflow")
+                .param("pagination", "cursor")
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // The write bumps the data version in its own transaction; this node's cached version moves on commit,
+        // which never comes in this rolled back test transaction, so the after-commit event is delivered here
+        cashFlowService.createCashFlow(new CashFlowRequest("Retagged", new BigDecimal("5.00"),
+                LocalDate.now(), CashFlow.CashFlowType.EXPENSE, testCategory.getId()), testUser);
+        CashFlowChangedEvent committed = CashFlowChangedEvent.bulk(testUser.getId());
+        committed.setVersion(cashFlowVersionService.current(testUser.getId()));
+        cashFlowVersionService.onCashFlowCommitted(committed);
+
+        mockMvc.perform(get("/auth/cashflow")
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.totalElements").value(2));
+
+        String categoriesETag = mockMvc.perform(get("/auth/categories")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+
+        mockMvc.perform(get("/auth/categories/type/EXPENSE")
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", categoriesETag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testChangeFeedReturnsOnlyRowsChangedSinceWatermark() throws Exception {
+        // Through the service: the write transaction stamps the rows' change sequence
+        CashFlowResponse kept = cashFlowService.createCashFlow(new CashFlowRequest("Kept", new BigDecimal("10.00"),
+                LocalDate.now(), CashFlow.CashFlowType.EXPENSE, testCategory.getId()), testUser);
+        CashFlowResponse removed = cashFlowService.createCashFlow(new CashFlowRequest("Removed",
+                new BigDecimal("20.00"), LocalDate.now(), CashFlow.CashFlowType.EXPENSE, testCategory.getId()), testUser);
+
+        // Small batches page through the feed in (changeSeq, id) order
+        String first = mockMvc.perform(get("/auth/cashflow/changes")
+                .param("size", "1")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes", hasSize(1)))
+                .andExpect(jsonPath("$.changes[0].id").value(kept.getId().intValue()))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andReturn().getResponse().getContentAsString();
+
+        String second = mockMvc.perform(get("/auth/cashflow/changes")
+                .param("since", objectMapper.readTree(first).get("watermark").asText())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes", hasSize(1)))
+                .andExpect(jsonPath("$.changes[0].id").value(removed.getId().intValue()))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andReturn().getResponse().getContentAsString();
+        String watermark = objectMapper.readTree(second).get("watermark").asText();
+
+        mockMvc.perform(get("/auth/cashflow/changes")
+                .param("since", watermark)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes", hasSize(0)));
+
+        mockMvc.perform(delete("/auth/cashflow/" + removed.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/auth/cashflow/changes")
+                .param("since", watermark)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes", hasSize(1)))
+                .andExpect(jsonPath("$.changes[0].id").value(removed.getId().intValue()))
+                .andExpect(jsonPath("$.changes[0].isActive").value(false));
+
+        mockMvc.perform(get("/auth/cashflow/changes")
+                .param("since", "not-a-watermark")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testFullSyncIncludesArchivedRows() throws Exception {
+        LocalDate today = LocalDate.now();
+        CashFlowResponse old = cashFlowService.createCashFlow(new CashFlowRequest("Old rent", new BigDecimal("500.00"),
+                today.minusYears(3), CashFlow.CashFlowType.EXPENSE, testCategory.getId()), testUser);
+        CashFlowResponse recent = cashFlowService.createCashFlow(new CashFlowRequest("Recent rent",
+                new BigDecimal("900.00"), today, CashFlow.CashFlowType.EXPENSE, testCategory.getId()), testUser);
+
+        assertEquals(1, cashFlowArchiveService.archive(today.minusMonths(24).withDayOfMonth(1),
+                today.atStartOfDay().minusDays(30)));
+        assertFalse(cashFlowRepository.existsById(old.getId()));
+
+        // The archived row keeps its place in the feed
+        mockMvc.perform(get("/auth/cashflow/changes")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes", hasSize(2)))
+                .andExpect(jsonPath("$.changes[0].id").value(old.getId().intValue()))
+                .andExpect(jsonPath("$.changes[1].id").value(recent.getId().intValue()))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
     @Test
     void testUpdateCashFlow() throws Exception {
         // Create a test cash flow
@@ -316,6 +641,138 @@ public class CashFlowIntegrationTest {
                 .andExpect(jsonPath("$.transactionCount").exists());
     }
 
+    @Test
+    void testRollupFollowsServiceWrites() {
+        LocalDate today = LocalDate.now();
+        CashFlowRequest request = new CashFlowRequest("Groceries", new BigDecimal("120.00"),
+                today, CashFlow.CashFlowType.EXPENSE, testCategory.getId());
+        CashFlowResponse created = cashFlowService.createCashFlow(request, testUser);
+        cashFlowService.createCashFlow(new CashFlowRequest("Pharmacy", new BigDecimal("30.00"),
+                today, CashFlow.CashFlowType.EXPENSE, testCategory.getId()), testUser);
+
+        CashFlowSummary summary = cashFlowService.getSummary(testUser, today, today);
+        assertEquals(0, new BigDecimal("150.00").compareTo(summary.getTotalExpenses()));
+        assertEquals(2, summary.getExpenseCount());
+
+        // Moving an entry to another day shifts it between rollup rows
+        request.setTransactionDate(today.minusDays(1));
+        request.setAmount(new BigDecimal("100.00"));
+        cashFlowService.updateCashFlow(created.getId(), request, testUser);
+        summary = cashFlowService.getSummary(testUser, today, today);
+        assertEquals(0, new BigDecimal("30.00").compareTo(summary.getTotalExpenses()));
+        assertEquals(1, summary.getExpenseCount());
+
+        cashFlowService.deleteCashFlow(created.getId(), testUser);
+        summary = cashFlowService.getSummary(testUser, today.minusDays(1), today);
+        assertEquals(0, new BigDecimal("30.00").compareTo(summary.getTotalExpenses()));
+        assertEquals(1, summary.getExpenseCount());
+    }
+
+    @Test
+    void testWritesAreScopedToOwner() {
+        CashFlowResponse created = cashFlowService.createCashFlow(new CashFlowRequest("Internet",
+                new BigDecimal("99.90"), LocalDate.now(), CashFlow.CashFlowType.EXPENSE, testCategory.getId()), testUser);
+
+        User stranger = new User();
+        stranger.setUsername("intruder");
+        stranger.setEmail("intruder@example.com");
+        stranger.setPassword(passwordEncoder.encode("password123"));
+        stranger.setRoles("USER");
+        stranger.setEnabled(true);
+        User intruder = userRepository.save(stranger);
+
+        assertThrows(RuntimeException.class, () -> cashFlowService.deleteCashFlow(created.getId(), intruder));
+        assertThrows(RuntimeException.class, () -> cashFlowService.updateCashFlow(created.getId(),
+                new CashFlowRequest("Hijacked", BigDecimal.ONE, LocalDate.now(),
+                        CashFlow.CashFlowType.EXPENSE, testCategory.getId()), intruder));
+        assertTrue(cashFlowService.getCashFlowById(created.getId(), testUser).isPresent());
+
+        cashFlowService.deleteCashFlow(created.getId(), testUser);
+        assertTrue(cashFlowService.getCashFlowById(created.getId(), testUser).isEmpty());
+        // A second delete finds no active row
+        assertThrows(RuntimeException.class, () -> cashFlowService.deleteCashFlow(created.getId(), testUser));
+        assertEquals(0, cashFlowService.getSummary(testUser, LocalDate.now(), LocalDate.now()).getExpenseCount());
+    }
+
+    @Test
+    void testArchivedRowsAreReadThroughOnlyForOldRanges() {
+        LocalDate today = LocalDate.now();
+        LocalDate threeYearsAgo = today.minusYears(3);
+        CashFlow old = createTestCashFlowWithDate("Old rent", new BigDecimal("500.00"), threeYearsAgo);
+        CashFlow recent = createTestCashFlowWithDate("Recent rent", new BigDecimal("900.00"), today);
+
+        int moved = cashFlowArchiveService.archive(today.minusMonths(24).withDayOfMonth(1), today.atStartOfDay().minusDays(30));
+        assertEquals(1, moved);
+        assertEquals(threeYearsAgo, cashFlowArchiveService.getLatestArchivedDate());
+        assertFalse(cashFlowRepository.existsById(old.getId()));
+
+        // Ranges that stay inside the hot window never touch the archive
+        assertFalse(cashFlowArchiveService.reachesArchive(today.minusMonths(1)));
+        assertEquals(1, cashFlowService.getCashFlowsByDateRange(testUser, today.minusMonths(1), today).size());
+
+        List<CashFlowResponse> all = cashFlowService.getCashFlowsByDateRange(testUser, threeYearsAgo, today);
+        assertEquals(2, all.size());
+        assertEquals(recent.getId(), all.get(0).getId());
+        assertEquals(old.getId(), all.get(1).getId());
+        assertEquals("Old rent", cashFlowService.getCashFlowById(old.getId(), testUser).orElseThrow().getDescription());
+
+        CursorPage<CashFlowResponse> first = cashFlowService.getCashFlowsByUserAfter(testUser, null, 1, true);
+        assertEquals(recent.getId(), first.getContent().get(0).getId());
+        assertEquals(2L, first.getTotalElements());
+        CursorPage<CashFlowResponse> second = cashFlowService.getCashFlowsByUserAfter(testUser, first.getNextCursor(), 1, false);
+        assertEquals(old.getId(), second.getContent().get(0).getId());
+        assertFalse(second.isHasNext());
+
+        // Archived rows still count in the daily rollup after a rebuild
+        rollupService.rebuildForUser(testUser);
+        assertEquals(2, cashFlowService.getSummary(testUser, threeYearsAgo, today).getExpenseCount());
+    }
+
+    @Test
+    void testArchivedRowsAreListedSearchedExportedAndWritable() {
+        LocalDate today = LocalDate.now();
+        CashFlowResponse oldRent = cashFlowService.createCashFlow(new CashFlowRequest("Old rent", new BigDecimal("500.00"),
+                today.minusYears(3), CashFlow.CashFlowType.EXPENSE, testCategory.getId()), testUser);
+        CashFlowResponse oldSalary = cashFlowService.createCashFlow(new CashFlowRequest("Old salary",
+                new BigDecimal("3000.00"), today.minusYears(3), CashFlow.CashFlowType.INCOME, testCategory.getId()), testUser);
+        CashFlowResponse recent = cashFlowService.createCashFlow(new CashFlowRequest("Recent rent",
+                new BigDecimal("900.00"), today, CashFlow.CashFlowType.EXPENSE, testCategory.getId()), testUser);
+        assertEquals(2, cashFlowArchiveService.archive(today.minusMonths(24).withDayOfMonth(1),
+                today.atStartOfDay().minusDays(30)));
+
+        // Offset pages merge both tables, newest first unless sorted
+        Page<CashFlowResponse> second = cashFlowService.getCashFlowsByUser(testUser, PageRequest.of(1, 1));
+        assertEquals(3L, second.getTotalElements());
+        assertEquals(oldSalary.getId(), second.getContent().get(0).getId());
+        List<CashFlowResponse> byAmount = cashFlowService.getCashFlowsByUser(testUser,
+                PageRequest.of(0, 3, Sort.by("amount"))).getContent();
+        assertEquals(List.of(oldRent.getId(), recent.getId(), oldSalary.getId()),
+                byAmount.stream().map(CashFlowResponse::getId).toList());
+
+        List<CashFlowResponse> income = cashFlowService.getCashFlowsByType(testUser, CashFlow.CashFlowType.INCOME);
+        assertEquals(1, income.size());
+        assertEquals(oldSalary.getId(), income.get(0).getId());
+
+        // Archived matches follow the hot ones, across page boundaries too
+        assertEquals(2, cashFlowService.searchCashFlows(testUser, "rent", 0, 10).size());
+        List<CashFlowResponse> archivedPage = cashFlowService.searchCashFlows(testUser, "rent", 1, 1);
+        assertEquals(1, archivedPage.size());
+        assertEquals(oldRent.getId(), archivedPage.get(0).getId());
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        cashFlowExportService.export(testUser, null, null, CashFlowExportService.Format.NDJSON, ndjson);
+        assertEquals(3, ndjson.toString(StandardCharsets.UTF_8).split("\n").length);
+
+        // Writes move the archived row back first
+        CashFlowResponse updated = cashFlowService.updateCashFlow(oldRent.getId(), new CashFlowRequest("Old rent, fixed",
+                new BigDecimal("550.00"), today.minusYears(3), CashFlow.CashFlowType.EXPENSE, testCategory.getId()), testUser);
+        assertEquals("Old rent, fixed", updated.getDescription());
+        assertTrue(cashFlowRepository.existsById(oldRent.getId()));
+        cashFlowService.deleteCashFlow(oldSalary.getId(), testUser);
+        assertTrue(cashFlowService.getCashFlowsByType(testUser, CashFlow.CashFlowType.INCOME).isEmpty());
+        assertEquals(0, cashFlowService.getSummary(testUser, today.minusYears(3), today.minusYears(3)).getIncomeCount());
+    }
+
     private CashFlow createTestCashFlow(String description, BigDecimal amount, CashFlow.CashFlowType type) {
         return createTestCashFlowWithDate(description, amount, type, LocalDate.now());
     }
@@ -333,6 +790,13 @@ public class CashFlowIntegrationTest {
         cashFlow.setCategory(testCategory);
         cashFlow.setUser(testUser);
         cashFlow.setIsActive(true);
-        return cashFlowRepository.save(cashFlow);
+        return saveAndRollUp(cashFlow);
+    }
+
+    // Rows saved straight through the repository bypass CashFlowService, so refresh the rollup
+    private CashFlow saveAndRollUp(CashFlow cashFlow) {
+        CashFlow saved = cashFlowRepository.save(cashFlow);
+        rollupService.rebuildForUser(testUser);
+        return saved;
     }
 }
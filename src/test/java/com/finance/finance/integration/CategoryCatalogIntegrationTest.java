@@ -0,0 +1,100 @@
+package com.finance.finance.integration;
+
+import com.finance.finance.dto.CategoryResponse;
+import com.finance.finance.entity.Category;
+import com.finance.finance.repository.CategoryRepository;
+import com.finance.finance.service.CategoryCatalog;
+import com.finance.finance.service.CategoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The catalog only moves on commit, so this test is not transactional and
+ * removes its categories itself.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class CategoryCatalogIntegrationTest {
+
+    private static final String PREFIX = "Catalog Test";
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM categories WHERE name LIKE ?", PREFIX + "%");
+        categoryCatalog.reload();
+    }
+
+    @Test
+    void testMutationsSwapSnapshotAndBumpVersion() {
+        long before = categoryCatalog.getVersion();
+
+        CategoryResponse created = categoryService.createCategory(PREFIX + " Rent", "Monthly rent", Category.CategoryType.EXPENSE);
+
+        assertTrue(categoryCatalog.getVersion() > before);
+        assertTrue(categoryService.getCategoriesByType(Category.CategoryType.EXPENSE).stream()
+                .anyMatch(category -> category.getId().equals(created.getId())));
+        assertFalse(categoryService.getCategoriesByType(Category.CategoryType.INCOME).stream()
+                .anyMatch(category -> category.getId().equals(created.getId())));
+
+        long afterCreate = categoryCatalog.getVersion();
+        categoryService.deleteCategory(created.getId());
+
+        assertTrue(categoryCatalog.getVersion() > afterCreate);
+        assertFalse(categoryService.getAllCategories().stream()
+                .anyMatch(category -> category.getId().equals(created.getId())));
+        assertTrue(categoryService.getCategoryById(created.getId()).isEmpty());
+        // Inactive categories still resolve for cash flows that reference them
+        assertTrue(categoryCatalog.find(created.getId()).isPresent());
+    }
+
+    @Test
+    void testChangesFromOtherNodesAreDetectedByVersion() {
+        categoryCatalog.getVersion();
+
+        // Another node: writes the row and bumps the version without touching this node's snapshot
+        jdbcTemplate.update("INSERT INTO categories (name, type, is_active, created_at) VALUES (?, 'INCOME', true, CURRENT_TIMESTAMP)",
+                PREFIX + " Bonus");
+        if (jdbcTemplate.update("UPDATE catalog_versions SET version = version + 1 WHERE name = 'categories'") == 0) {
+            jdbcTemplate.update("INSERT INTO catalog_versions (name, version) VALUES ('categories', 1)");
+        }
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = ?", Long.class, PREFIX + " Bonus");
+
+        assertFalse(categoryService.getAllCategories().stream().anyMatch(category -> category.getId().equals(id)));
+        // Unknown ids fall back to the database, so cash flows can use the category right away
+        assertTrue(categoryCatalog.find(id).isPresent());
+
+        categoryCatalog.checkVersion();
+
+        assertTrue(categoryService.getCategoriesByType(Category.CategoryType.INCOME).stream()
+                .anyMatch(category -> category.getId().equals(id)));
+    }
+}
@@ -5,9 +5,12 @@ import com.finance.finance.dto.LoginRequest;
 import com.finance.finance.entity.CashFlow;
 import com.finance.finance.entity.Category;
 import com.finance.finance.entity.User;
+import com.finance.finance.event.CashFlowChangedEvent;
 import com.finance.finance.repository.CashFlowRepository;
 import com.finance.finance.repository.CategoryRepository;
 import com.finance.finance.repository.UserRepository;
+import com.finance.finance.service.CashFlowForecastService;
+import com.finance.finance.service.CashFlowRollupService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +26,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -46,6 +50,12 @@ public class DashboardIntegrationTest {
     @Autowired
     private CashFlowRepository cashFlowRepository;
 
+    @Autowired
+    private CashFlowRollupService rollupService;
+
+    @Autowired
+    private CashFlowForecastService forecastService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -261,6 +271,70 @@ public class DashboardIntegrationTest {
                 .andExpect(jsonPath("$.transactionCount").value(2));
     }
 
+    @Test
+    void testForecastProjectsRecurringTemplatesAndFollowsWrites() throws Exception {
+        createRecurringCashFlow("Recurring Income", new BigDecimal("1000.00"), CashFlow.CashFlowType.INCOME, "MONTHLY");
+        createRecurringCashFlow("Recurring Expense", new BigDecimal("200.00"), CashFlow.CashFlowType.EXPENSE, "WEEKLY");
+        YearMonth nextMonth = YearMonth.now().plusMonths(1);
+        double weeklyNextMonth = 200.00 * weeklyOccurrencesIn(LocalDate.now(), nextMonth);
+
+        mockMvc.perform(get("/auth/dashboard/forecast")
+                .param("months", "3")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.startingBalance").value(800.00))
+                .andExpect(jsonPath("$.months", hasSize(3)))
+                .andExpect(jsonPath("$.months[1].month").value(nextMonth.toString()))
+                .andExpect(jsonPath("$.months[1].recurringIncome").value(1000.00))
+                .andExpect(jsonPath("$.months[1].recurringExpenses").value(weeklyNextMonth))
+                .andExpect(jsonPath("$.months[1].expenses").value(weeklyNextMonth));
+
+        // Written inside the test transaction: the forecast stays cached until the change event arrives
+        createTestCashFlow("Insurance", new BigDecimal("300.00"), CashFlow.CashFlowType.EXPENSE, nextMonth.atDay(15));
+        mockMvc.perform(get("/auth/dashboard/forecast")
+                .param("months", "3")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.months[1].expenses").value(weeklyNextMonth));
+
+        forecastService.onCashFlowChanged(CashFlowChangedEvent.bulk(testUser.getId()));
+        mockMvc.perform(get("/auth/dashboard/forecast")
+                .param("months", "3")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.months[1].expenses").value(weeklyNextMonth + 300.00))
+                .andExpect(jsonPath("$.months[1].recurringExpenses").value(weeklyNextMonth));
+    }
+
+    @Test
+    void testForecastSubtractsOnlyOccurrencesThatWereWritten() throws Exception {
+        // The template predates the materializer's first run, so only one of its past occurrences exists as a row
+        YearMonth current = YearMonth.now();
+        CashFlow salary = createRecurringCashFlow("Salary", new BigDecimal("1000.00"), CashFlow.CashFlowType.INCOME,
+                "MONTHLY", current.minusMonths(4).atDay(10));
+        createTestCashFlow("Freelance", new BigDecimal("600.00"), CashFlow.CashFlowType.INCOME, current.minusMonths(3).atDay(5));
+        CashFlow occurrence = createTestCashFlow("Salary", new BigDecimal("1000.00"), CashFlow.CashFlowType.INCOME,
+                current.minusMonths(1).atDay(10));
+        occurrence.setImportKey("rec:" + salary.getId() + ":" + occurrence.getTransactionDate());
+        cashFlowRepository.save(occurrence);
+
+        // 2600 over four observed months, less the template row and the written occurrence
+        mockMvc.perform(get("/auth/dashboard/forecast")
+                .param("months", "1")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.historyMonths").value(4))
+                .andExpect(jsonPath("$.averageMonthlyIncome").value(150.00));
+    }
+
+    private int weeklyOccurrencesIn(LocalDate start, YearMonth month) {
+        int count = 0;
+        for (int n = 1; !start.plusWeeks(n).isAfter(month.atEndOfMonth()); n++) {
+            if (YearMonth.from(start.plusWeeks(n)).equals(month)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     private CashFlow createTestCashFlow(String description, BigDecimal amount, CashFlow.CashFlowType type, LocalDate date) {
         CashFlow cashFlow = new CashFlow();
         cashFlow.setDescription(description);
@@ -270,20 +344,32 @@ public class DashboardIntegrationTest {
         cashFlow.setCategory(type == CashFlow.CashFlowType.INCOME ? incomeCategory : expenseCategory);
         cashFlow.setUser(testUser);
         cashFlow.setIsActive(true);
-        return cashFlowRepository.save(cashFlow);
+        return saveAndRollUp(cashFlow);
     }
 
     private CashFlow createRecurringCashFlow(String description, BigDecimal amount, CashFlow.CashFlowType type, String frequency) {
+        return createRecurringCashFlow(description, amount, type, frequency, LocalDate.now());
+    }
+
+    private CashFlow createRecurringCashFlow(String description, BigDecimal amount, CashFlow.CashFlowType type,
+                                             String frequency, LocalDate date) {
         CashFlow cashFlow = new CashFlow();
         cashFlow.setDescription(description);
         cashFlow.setAmount(amount);
-        cashFlow.setTransactionDate(LocalDate.now());
+        cashFlow.setTransactionDate(date);
         cashFlow.setType(type);
         cashFlow.setCategory(type == CashFlow.CashFlowType.INCOME ? incomeCategory : expenseCategory);
         cashFlow.setUser(testUser);
         cashFlow.setIsActive(true);
         cashFlow.setIsRecurring(true);
         cashFlow.setRecurringFrequency(frequency);
-        return cashFlowRepository.save(cashFlow);
+        return saveAndRollUp(cashFlow);
+    }
+
+    // Rows saved straight through the repository bypass CashFlowService, so refresh the rollup
+    private CashFlow saveAndRollUp(CashFlow cashFlow) {
+        CashFlow saved = cashFlowRepository.save(cashFlow);
+        rollupService.rebuildForUser(testUser);
+        return saved;
     }
 }
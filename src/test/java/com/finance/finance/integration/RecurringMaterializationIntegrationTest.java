@@ -0,0 +1,195 @@
+package com.finance.finance.integration;
+
+import com.finance.finance.dto.CategoryResponse;
+import com.finance.finance.entity.CashFlow;
+import com.finance.finance.entity.Category;
+import com.finance.finance.entity.User;
+import com.finance.finance.repository.CashFlowRepository;
+import com.finance.finance.repository.CategoryRepository;
+import com.finance.finance.repository.UserRepository;
+import com.finance.finance.service.CategoryService;
+import com.finance.finance.service.RecurringCashFlowMaterializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The materializer commits in its own transactions on worker threads, so this
+ * test is not transactional and removes its rows itself.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class RecurringMaterializationIntegrationTest {
+
+    @Autowired
+    private RecurringCashFlowMaterializer materializer;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CashFlowRepository cashFlowRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private User user;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        user = new User();
+        user.setUsername("recurringuser");
+        user.setEmail("recurring@example.com");
+        user.setPassword(passwordEncoder.encode("password123"));
+        user.setRoles("USER");
+        user.setEnabled(true);
+        user = userRepository.save(user);
+
+        CategoryResponse created = categoryService.createCategory("Recurring Test Rent", "Rent", Category.CategoryType.EXPENSE);
+        category = categoryRepository.findById(created.getId()).orElseThrow();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM daily_cash_flow_rollup WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM cash_flows WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM recurring_chunks");
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", category.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+
+    @Test
+    void testTemplatesExpandOnceAcrossRuns() {
+        LocalDate today = LocalDate.now();
+        previousRunAt(LocalDateTime.now().minusDays(1));
+        CashFlow rent = saveTemplate("Rent", today.minusMonths(3), "MONTHLY");
+        saveTemplate("Gym", today.minusDays(20), "WEEKLY");
+        saveTemplate("Odd", today.minusDays(20), "FORTNIGHTLY");
+
+        // 3 monthly + 2 weekly; unknown frequencies are left alone
+        assertEquals(5, materializer.materialize(today));
+        List<CashFlow> rows = occurrencesOf(rent);
+        assertEquals(3, rows.size());
+        assertTrue(rows.stream().noneMatch(CashFlow::getIsRecurring));
+        assertTrue(rows.stream().allMatch(row -> row.getImportKey().startsWith("rec:" + rent.getId() + ":")));
+
+        assertEquals(0, materializer.materialize(today));
+
+        // A chunk redone from scratch skips what exists, including occurrences the user deleted.
+        // Without any run on record the templates count as pre-existing and restart today.
+        CashFlow deleted = rows.get(0);
+        jdbcTemplate.update("UPDATE cash_flows SET is_active = false WHERE id = ?", deleted.getId());
+        jdbcTemplate.update("UPDATE recurring_chunks SET materialized_through = NULL, last_started_at = NULL");
+        assertEquals(0, materializer.materialize(today));
+        assertEquals(3, occurrencesOf(rent).size());
+
+        // A week later only the new occurrences are written: one weekly, plus a monthly one if it fell due
+        assertEquals(1 + countNewMonthly(rent, today, today.plusDays(7)), materializer.materialize(today.plusDays(7)));
+    }
+
+    @Test
+    void testLeasedChunkIsLeftToItsOwner() {
+        LocalDate today = LocalDate.now();
+        saveTemplate("Salary", today.minusMonths(2), "MONTHLY");
+        long chunk = user.getId() / 1000;
+        jdbcTemplate.update("INSERT INTO recurring_chunks (chunk, lease_owner, lease_until, last_started_at) " +
+                "VALUES (?, 'other-node', ?, ?)", chunk, Timestamp.valueOf(LocalDateTime.now().plusHours(1)),
+                Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+
+        assertEquals(0, materializer.materialize(today));
+
+        // Expired leases are taken over
+        jdbcTemplate.update("UPDATE recurring_chunks SET lease_until = ? WHERE chunk = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), chunk);
+        assertEquals(2, materializer.materialize(today));
+    }
+
+    @Test
+    void testEditedTemplateIsNotBackfilledAgain() {
+        LocalDate today = LocalDate.now();
+        previousRunAt(LocalDateTime.now().minusDays(1));
+        CashFlow rent = saveTemplate("Rent", today.minusMonths(3), "MONTHLY");
+        assertEquals(3, materializer.materialize(today));
+
+        // Moving the template to another day of the month must not write the past months again:
+        // the next run only adds what falls due after the last one, on the new schedule
+        rent.setTransactionDate(today.minusMonths(3).minusDays(10));
+        rent = cashFlowRepository.save(rent);
+        long due = countNewMonthly(rent, today, today.plusDays(1));
+        assertEquals(due, materializer.materialize(today.plusDays(1)));
+        assertEquals(3 + due, occurrencesOf(rent).size());
+    }
+
+    @Test
+    void testPreExistingTemplatesStartAtTheFirstRun() {
+        LocalDate today = LocalDate.now();
+        CashFlow rent = saveTemplate("Rent", today.minusMonths(3), "MONTHLY");
+        CashFlow gym = saveTemplate("Gym", today.minusDays(20), "WEEKLY");
+
+        // No run on record: nothing before today is written, at most an occurrence due today
+        int written = materializer.materialize(today);
+        assertEquals(countNewMonthly(rent, today.minusDays(1), today), written);
+        assertTrue(occurrencesOf(gym).isEmpty());
+        assertTrue(occurrencesOf(rent).stream().allMatch(row -> row.getTransactionDate().equals(today)));
+    }
+
+    // Records a run of the user's chunk, so templates saved afterwards count as new
+    private void previousRunAt(LocalDateTime startedAt) {
+        jdbcTemplate.update("INSERT INTO recurring_chunks (chunk, materialized_through, last_started_at) VALUES (?, ?, ?)",
+                user.getId() / 1000, Date.valueOf(startedAt.toLocalDate()), Timestamp.valueOf(startedAt));
+    }
+
+    private CashFlow saveTemplate(String description, LocalDate date, String frequency) {
+        CashFlow template = new CashFlow(description, new BigDecimal("100.00"), date,
+                CashFlow.CashFlowType.EXPENSE, category, user);
+        template.setIsRecurring(true);
+        template.setRecurringFrequency(frequency);
+        return cashFlowRepository.save(template);
+    }
+
+    private List<CashFlow> occurrencesOf(CashFlow template) {
+        return cashFlowRepository.findAll().stream()
+                .filter(row -> row.getImportKey() != null && row.getImportKey().startsWith("rec:" + template.getId() + ":"))
+                .toList();
+    }
+
+    // Monthly occurrences falling in (from, to]
+    private long countNewMonthly(CashFlow template, LocalDate from, LocalDate to) {
+        LocalDate start = template.getTransactionDate();
+        long count = 0;
+        for (int n = 1; !start.plusMonths(n).isAfter(to); n++) {
+            if (start.plusMonths(n).isAfter(from)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,97 @@
+package com.finance.finance.integration;
+
+import com.finance.finance.config.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Routing with an H2 stand-in replica. The "replica" URL points at the same
+ * in-memory database as the primary so the schema is shared; replication lag
+ * is simulated through the configured lag query.
+ */
+@SpringBootTest(properties = {
+        "finance.datasource.replica.urls=jdbc:h2:mem:testdb",
+        "finance.datasource.replica.max-lag-ms=1000",
+        "finance.datasource.replica.lag-query=SELECT COALESCE(MAX(lag_ms), 0) FROM replica_lag_probe",
+        "finance.datasource.replica.health-check-ms=3600000",
+        "spring.datasource.hikari.maximum-pool-size=7"
+})
+@ActiveProfiles("test")
+public class ReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS replica_lag_probe (lag_ms BIGINT)");
+        jdbcTemplate.update("DELETE FROM replica_lag_probe");
+        jdbcTemplate.update("INSERT INTO replica_lag_probe (lag_ms) VALUES (0)");
+        routingDataSource.refreshHealth();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS replica_lag_probe");
+    }
+
+    @Test
+    void testReadOnlyTransactionsGoToReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        assertEquals("replica-0", readOnly.execute(status -> routingDataSource.currentTarget()));
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, readWrite.execute(status -> routingDataSource.currentTarget()));
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.currentTarget());
+
+        // Statements in a read-only transaction run on the replica connection
+        Long lag = readOnly.execute(status ->
+                jdbcTemplate.queryForObject("SELECT lag_ms FROM replica_lag_probe", Long.class));
+        assertEquals(0L, lag);
+    }
+
+    @Test
+    void testPrimaryPoolUsesHikariProperties() {
+        assertEquals(7, primaryDataSource.getMaximumPoolSize());
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, primaryDataSource.getPoolName());
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        jdbcTemplate.update("UPDATE replica_lag_probe SET lag_ms = 60000");
+        routingDataSource.refreshHealth();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, readOnly.execute(status -> routingDataSource.currentTarget()));
+
+        jdbcTemplate.update("UPDATE replica_lag_probe SET lag_ms = 10");
+        routingDataSource.refreshHealth();
+        assertEquals("replica-0", readOnly.execute(status -> routingDataSource.currentTarget()));
+    }
+}
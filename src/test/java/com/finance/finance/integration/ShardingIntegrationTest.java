@@ -0,0 +1,232 @@
+package com.finance.finance.integration;
+
+import com.finance.finance.config.ShardContext;
+import com.finance.finance.config.ShardMap;
+import com.finance.finance.config.ShardMoveInProgressException;
+import com.finance.finance.config.ShardRoutingDataSource;
+import com.finance.finance.dto.CashFlowRequest;
+import com.finance.finance.entity.CashFlow;
+import com.finance.finance.entity.Category;
+import com.finance.finance.entity.ShardAssignment;
+import com.finance.finance.entity.User;
+import com.finance.finance.repository.CategoryRepository;
+import com.finance.finance.repository.ShardAssignmentRepository;
+import com.finance.finance.repository.UserRepository;
+import com.finance.finance.service.CashFlowService;
+import com.finance.finance.service.ShardRebalancer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two-shard setup on H2: the usual test database is shard-0 and a second
+ * in-memory database (schema from sharding/shard-schema-h2.sql) is shard-1.
+ * Not transactional: rows have to commit to be mirrored and moved.
+ */
+@SpringBootTest(properties = {
+        "finance.sharding.enabled=true",
+        "finance.sharding.shard-urls=" + ShardingIntegrationTest.SHARD_1_URL,
+        "finance.sharding.settle-ms=0",
+        "finance.sharding.assignment-refresh-ms=3600000"
+})
+@ActiveProfiles("test")
+public class ShardingIntegrationTest {
+
+    static final String SHARD_1_URL = "jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ShardAssignmentRepository shardAssignmentRepository;
+
+    @Autowired
+    private CashFlowService cashFlowService;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    private User testUser;
+    private Category testCategory;
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeAll
+    static void createShardSchema() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(SHARD_1_URL, "sa", "")) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("sharding/shard-schema-h2.sql"));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        testUser = createUser("sharduser");
+
+        testCategory = new Category();
+        testCategory.setName("Shard Salary");
+        testCategory.setType(Category.CategoryType.INCOME);
+        testCategory = categoryRepository.save(testCategory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String shard : shardMap.getShards()) {
+            JdbcTemplate jdbcTemplate = jdbc(shard);
+            for (User user : users) {
+                for (String table : new String[]{"cash_flows", "cash_flows_archive", "daily_cash_flow_rollup"}) {
+                    jdbcTemplate.update("DELETE FROM " + table + " WHERE user_id = ?", user.getId());
+                }
+                jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+            }
+            jdbcTemplate.update("DELETE FROM categories WHERE id = ?", testCategory.getId());
+        }
+        shardAssignmentRepository.deleteAll();
+        shardMap.refresh();
+        users.clear();
+    }
+
+    @Test
+    void testUsersAndCategoriesAreMirroredToEveryShard() {
+        JdbcTemplate shard1 = jdbc("shard-1");
+        assertEquals("sharduser", shard1.queryForObject("SELECT username FROM users WHERE id = ?",
+                String.class, testUser.getId()));
+        assertEquals("Shard Salary", shard1.queryForObject("SELECT name FROM categories WHERE id = ?",
+                String.class, testCategory.getId()));
+
+        testCategory.setName("Shard Bonus");
+        categoryRepository.save(testCategory);
+        assertEquals("Shard Bonus", shard1.queryForObject("SELECT name FROM categories WHERE id = ?",
+                String.class, testCategory.getId()));
+    }
+
+    @Test
+    void testCashFlowsLiveOnTheUsersShardAndMoveWithIt() {
+        String source = shardMap.shardFor(testUser.getId());
+        String target = ShardMap.HOME.equals(source) ? "shard-1" : ShardMap.HOME;
+        LocalDate today = LocalDate.now();
+
+        ShardContext.runOn(source, () -> {
+            cashFlowService.createCashFlow(request("Salary", "3000.00", today), testUser);
+            cashFlowService.createCashFlow(request("Bonus", "500.00", today.minusDays(1)), testUser);
+        });
+        assertEquals(2, countCashFlows(source));
+        assertEquals(0, countCashFlows(target));
+
+        int moved = shardRebalancer.moveUser(testUser.getId(), target);
+
+        // Two cash flows plus their two daily rollup rows
+        assertEquals(4, moved);
+        assertEquals(target, shardMap.shardFor(testUser.getId()));
+        assertEquals(0, countCashFlows(source));
+        assertEquals(2, countCashFlows(target));
+        ShardContext.runOn(target, () -> {
+            assertEquals(2, cashFlowService.getCashFlowsByDateRange(testUser, today.minusDays(7), today).size());
+            assertEquals(0, new BigDecimal("3500.00").compareTo(
+                    cashFlowService.getSummary(testUser, today.minusDays(7), today).getTotalIncome()));
+        });
+
+        Map<String, Map<String, Long>> stats = shardRebalancer.shardStats();
+        assertEquals(shardMap.getShards(), stats.keySet().stream().toList());
+        assertTrue(stats.get(target).get("cashFlows") >= 2);
+    }
+
+    @Test
+    void testWritesAreRefusedWhileUserIsMoving() {
+        String shard = shardMap.shardFor(testUser.getId());
+        shardAssignmentRepository.save(new ShardAssignment(testUser.getId(), shard, "shard-1",
+                ShardAssignment.State.MOVING));
+        shardMap.refresh();
+
+        assertThrows(ShardMoveInProgressException.class, () -> ShardContext.runOn(shard, () ->
+                cashFlowService.createCashFlow(request("Salary", "3000.00", LocalDate.now()), testUser)));
+        assertEquals(0, countCashFlows(shard));
+    }
+
+    @Test
+    void testAppendingAShardKeepsExistingRowsReachable() {
+        // A ring with one more shard, as after appending a URL to finance.sharding.shard-urls
+        ShardMap grown = new ShardMap(true, List.of(SHARD_1_URL, "jdbc:h2:mem:shard2"), 128);
+        ReflectionTestUtils.setField(grown, "shardAssignmentRepository", shardAssignmentRepository);
+
+        // Populate until some user's ring segment is taken over by the new shard
+        Map<Long, String> placed = new HashMap<>();
+        for (int i = 0; i < 50 && placed.keySet().stream()
+                .allMatch(id -> grown.ringShardFor(id).equals(placed.get(id))); i++) {
+            User user = i == 0 ? testUser : createUser("ringuser" + i);
+            String shard = shardMap.shardFor(user.getId());
+            ShardContext.runOn(shard, () ->
+                    cashFlowService.createCashFlow(request("Salary", "100.00", LocalDate.now()), user));
+            placed.put(user.getId(), shard);
+        }
+        assertFalse(placed.keySet().stream().allMatch(id -> grown.ringShardFor(id).equals(placed.get(id))),
+                "Expected the new shard to take over at least one user's ring segment");
+
+        // Pins written on creation, plus any caught up at startup, keep every user where their rows are
+        shardAssignmentRepository.deleteById(testUser.getId());
+        shardRebalancer.pinUnassignedUsers();
+        grown.refresh();
+        placed.forEach((userId, shard) -> {
+            assertEquals(shard, grown.shardFor(userId));
+            assertEquals(1, jdbc(grown.shardFor(userId)).queryForObject(
+                    "SELECT COUNT(*) FROM cash_flows WHERE user_id = ?", Integer.class, userId));
+        });
+    }
+
+    private User createUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("password");
+        user.setRoles("USER");
+        user.setEnabled(true);
+        user = userRepository.save(user);
+        users.add(user);
+        return user;
+    }
+
+    private CashFlowRequest request(String description, String amount, LocalDate date) {
+        return new CashFlowRequest(description, new BigDecimal(amount), date, CashFlow.CashFlowType.INCOME,
+                testCategory.getId());
+    }
+
+    private int countCashFlows(String shard) {
+        Integer count = jdbc(shard).queryForObject("SELECT COUNT(*) FROM cash_flows WHERE user_id = ?",
+                Integer.class, testUser.getId());
+        return count != null ? count : 0;
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        return new JdbcTemplate(shardRoutingDataSource.getShardDataSource(shard));
+    }
+}
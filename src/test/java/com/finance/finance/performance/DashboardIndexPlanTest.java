@@ -0,0 +1,145 @@
+package com.finance.finance.performance;
+
+import com.finance.finance.service.CashFlowPartitionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks against a real PostgreSQL that the rollup queries behind the
+ * dashboard summary, the balance and the forecast are answered by index-only
+ * scans on idx_daily_rollup_user_date_covering (V3__cash_flow_access_indexes),
+ * and that the date-range listing is pruned to its monthly partition (V4).
+ *
+ * Migrates a throwaway schema, seeds {@value #USERS} users with
+ * {@value #ROWS_PER_USER} cash flows each, vacuums so the visibility map is set,
+ * then runs EXPLAIN ANALYZE; a failing assertion reports the full plan.
+ * Skipped unless a database is given, e.g.
+ * {@code mvn test -Dtest=DashboardIndexPlanTest -Dfinance.bench.postgres.url=jdbc:postgresql://localhost:5432/finance_db
+ * -Dfinance.bench.postgres.user=finance_user -Dfinance.bench.postgres.password=finance_password}.
+ */
+public class DashboardIndexPlanTest {
+
+    private static final String SCHEMA = "finance_index_bench";
+    private static final int USERS = 50;
+    private static final int ROWS_PER_USER = 4000;
+    private static final long USER_ID = 7;
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        String url = System.getProperty("finance.bench.postgres.url");
+        assumeTrue(url != null && !url.isBlank(), "finance.bench.postgres.url not set");
+        String user = System.getProperty("finance.bench.postgres.user", "finance_user");
+        String password = System.getProperty("finance.bench.postgres.password", "finance_password");
+
+        Flyway.configure()
+                .dataSource(url, user, password)
+                .schemas(SCHEMA)
+                .createSchemas(true)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(url, user, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET search_path TO " + SCHEMA + ", public");
+        }
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(connection, true);
+        CashFlowPartitionManager partitionManager = new CashFlowPartitionManager(new JdbcTemplate(dataSource),
+                new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry(), true, 3, 0);
+        partitionManager.ensurePartitions(YearMonth.of(2024, 1), YearMonth.of(2025, 12));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (username, email, password, created_at) " +
+                    "SELECT 'bench' || g, 'bench' || g || '@example.com', 'x', now() FROM generate_series(1, " + USERS + ") g");
+            statement.execute("INSERT INTO categories (name, type, is_active, created_at) VALUES " +
+                    "('Salary', 'INCOME', true, now()), ('Groceries', 'EXPENSE', true, now()), ('Rent', 'EXPENSE', true, now())");
+            statement.execute("INSERT INTO cash_flows (id, description, amount, transaction_date, type, category_id, " +
+                    "user_id, is_active, created_at) " +
+                    "SELECT nextval('cash_flows_seq'), 'row ' || g, (g % 500) + 0.99, " +
+                    "DATE '2024-01-01' + (g % 730), CASE WHEN g % 4 = 0 THEN 'INCOME' ELSE 'EXPENSE' END, " +
+                    "CASE WHEN g % 4 = 0 THEN 1 ELSE 2 + g % 2 END, u, g % 20 <> 0, now() " +
+                    "FROM generate_series(1, " + USERS + ") u, generate_series(1, " + ROWS_PER_USER + ") g");
+            statement.execute("INSERT INTO daily_cash_flow_rollup (user_id, rollup_date, type, category_id, " +
+                    "total_amount, transaction_count) " +
+                    "SELECT user_id, transaction_date, type, category_id, SUM(amount), COUNT(*) FROM cash_flows " +
+                    "WHERE is_active = true GROUP BY user_id, transaction_date, type, category_id");
+            // VACUUM on the parent recurses into every partition
+            statement.execute("VACUUM ANALYZE cash_flows");
+            statement.execute("VACUUM ANALYZE daily_cash_flow_rollup");
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        if (connection != null) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+            }
+            connection.close();
+        }
+    }
+
+    @Test
+    void testRollupSummaryIsIndexOnly() throws SQLException {
+        String plan = explain("SELECT type, SUM(total_amount), SUM(transaction_count) FROM daily_cash_flow_rollup " +
+                "WHERE user_id = " + USER_ID + " AND rollup_date BETWEEN DATE '2024-03-01' AND DATE '2024-03-31' " +
+                "GROUP BY type");
+        assertTrue(plan.contains("Index Only Scan using idx_daily_rollup_user_date_covering"), plan);
+    }
+
+    @Test
+    void testRollupBalanceIsIndexOnly() throws SQLException {
+        String plan = explain("SELECT type, SUM(total_amount), SUM(transaction_count) FROM daily_cash_flow_rollup " +
+                "WHERE user_id = " + USER_ID + " AND rollup_date <= DATE '2025-06-30' GROUP BY type");
+        assertTrue(plan.contains("Index Only Scan using idx_daily_rollup_user_date_covering"), plan);
+    }
+
+    @Test
+    void testForecastHistoryIsIndexOnly() throws SQLException {
+        String plan = explain("SELECT rollup_date, type, SUM(total_amount) FROM daily_cash_flow_rollup " +
+                "WHERE user_id = " + USER_ID + " AND rollup_date BETWEEN DATE '2024-01-01' AND DATE '2024-12-31' " +
+                "GROUP BY rollup_date, type");
+        assertTrue(plan.contains("Index Only Scan using idx_daily_rollup_user_date_covering"), plan);
+    }
+
+    @Test
+    void testDateRangeListingReadsOnlyItsPartition() throws SQLException {
+        String plan = explain("SELECT cf.id, cf.description, cf.amount, cf.transaction_date, cf.type, c.id, c.name " +
+                "FROM cash_flows cf JOIN categories c ON c.id = cf.category_id WHERE cf.user_id = " + USER_ID + " " +
+                "AND cf.is_active = true AND cf.transaction_date BETWEEN DATE '2024-03-01' AND DATE '2024-03-31' " +
+                "ORDER BY cf.transaction_date DESC, cf.created_at DESC");
+        assertTrue(plan.contains("cash_flows_p2024_03"), plan);
+        assertFalse(plan.contains("cash_flows_p2024_02") || plan.contains("cash_flows_p2024_04")
+                || plan.contains("cash_flows_default"), plan);
+    }
+
+    private String explain(String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN (ANALYZE, BUFFERS) " + sql)) {
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
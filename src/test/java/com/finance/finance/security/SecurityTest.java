@@ -1,19 +1,29 @@
 package com.finance.finance.security;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.finance.config.BoundedPasswordEncoder;
+import com.finance.finance.config.CustomUserDetailsService;
+import com.finance.finance.config.JwtConfig;
+import com.finance.finance.config.PasswordHashingBusyException;
+import com.finance.finance.config.PrincipalCache;
+import com.finance.finance.config.VerifiedToken;
 import com.finance.finance.dto.LoginRequest;
 import com.finance.finance.entity.CashFlow;
 import com.finance.finance.entity.Category;
 import com.finance.finance.entity.User;
 import com.finance.finance.repository.CashFlowRepository;
 import com.finance.finance.repository.CategoryRepository;
+import com.finance.finance.repository.RevokedTokenRepository;
 import com.finance.finance.repository.UserRepository;
+import com.finance.finance.service.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -23,6 +33,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -52,6 +66,21 @@ public class SecurityTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private JwtConfig jwtConfig;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
     private MockMvc mockMvc;
     private String user1Token;
     private String user2Token;
@@ -250,6 +279,75 @@ public class SecurityTest {
         }
     }
 
+    @Test
+    void testPrincipalCacheEvictedWhenUserIsDisabled() {
+        principalCache.evictAll();
+
+        UserDetails cached = principalCache.get("user1", userDetailsService::loadUserByUsername);
+        assertTrue(cached.isEnabled());
+        assertSame(cached, principalCache.get("user1", username -> fail("Principal should come from the cache")));
+
+        user1.setEnabled(false);
+        userRepository.saveAndFlush(user1);
+
+        assertFalse(principalCache.get("user1", userDetailsService::loadUserByUsername).isEnabled());
+    }
+
+    @Test
+    void testRevokedTokenIsDeniedWithoutAffectingOthers() {
+        VerifiedToken revoked = jwtConfig.verify(jwtConfig.generateToken(user1.getId(), "user1", "USER"));
+        VerifiedToken other = jwtConfig.verify(jwtConfig.generateToken(user1.getId(), "user1", "USER"));
+        assertNotNull(revoked.getId());
+        assertNotEquals(revoked.getId(), other.getId());
+
+        assertTrue(tokenRevocationService.revoke(revoked));
+
+        assertTrue(revokedTokenRepository.existsById(revoked.getId()));
+        assertTrue(tokenRevocationService.isRevoked(revoked));
+        assertFalse(tokenRevocationService.isRevoked(other));
+    }
+
+    @Test
+    void testPasswordHashingRejectsFastWhenSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+        // One hashing thread and one queue slot
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slowEncoder, new SimpleMeterRegistry(), 1, 1, 5000);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            callers.submit(() -> encoder.encode("first"));
+            callers.submit(() -> encoder.encode("second"));
+            Thread.sleep(200);
+
+            long start = System.nanoTime();
+            assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("third"));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+            // Capacity comes back once the backlog drains
+            release.countDown();
+            assertTrue(encoder.matches("same", "same"));
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            encoder.shutdown();
+        }
+    }
+
     @Test
     void testExpiredTokenHandling() throws Exception {
         // This test would require a token that's actually expired
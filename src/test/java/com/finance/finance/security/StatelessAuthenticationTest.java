@@ -0,0 +1,124 @@
+package com.finance.finance.security;
+
+import com.finance.finance.config.AuthenticatedUser;
+import com.finance.finance.config.JwtAuthenticationFilter;
+import com.finance.finance.config.JwtConfig;
+import com.finance.finance.config.VerifiedToken;
+import com.finance.finance.entity.User;
+import com.finance.finance.repository.UserRepository;
+import com.finance.finance.service.TokenRevocationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "jwt.stateless.enabled=true")
+@ActiveProfiles("test")
+@Transactional
+public class StatelessAuthenticationTest {
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Autowired
+    private JwtConfig jwtConfig;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContextHolder.clearContext();
+
+        // Cutoffs are kept in memory per username, so every test gets its own user
+        user = new User();
+        user.setUsername("stateless-" + System.nanoTime());
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setPassword(passwordEncoder.encode("password123"));
+        user.setRoles("USER");
+        user.setEnabled(true);
+        user = userRepository.saveAndFlush(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testPrincipalIsBuiltFromClaims() throws Exception {
+        String token = jwtConfig.generateToken(user.getId(), user.getUsername(), "USER,ADMIN");
+
+        Authentication authentication = authenticate(token);
+
+        assertNotNull(authentication, "Stateless token should authenticate");
+        AuthenticatedUser principal = assertInstanceOf(AuthenticatedUser.class, authentication.getPrincipal());
+        assertEquals(user.getId(), principal.getId());
+        assertEquals(user.getUsername(), principal.getUsername());
+        // Roles come from the token, not from the users row
+        assertTrue(authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN")));
+    }
+
+    @Test
+    void testLoggedOutTokenIsRejected() throws Exception {
+        String token = jwtConfig.generateToken(user.getId(), user.getUsername(), "USER");
+        assertTrue(tokenRevocationService.revoke(jwtConfig.verify(token)));
+
+        assertNull(authenticate(token), "Token revoked by jti should not authenticate");
+    }
+
+    @Test
+    void testCutoffRejectsTokensIssuedUpToTheSameSecond() {
+        VerifiedToken token = jwtConfig.verify(jwtConfig.generateToken(user.getId(), user.getUsername(), "USER"));
+        Instant issuedAt = token.getIssuedAt().toInstant();
+
+        tokenRevocationService.revokeIssuedBefore(user.getUsername(), issuedAt.minusSeconds(1));
+        assertFalse(tokenRevocationService.isRevoked(token), "Token issued after the cutoff second is valid");
+
+        // iat has second precision: a cutoff later in the same second must still win
+        tokenRevocationService.revokeIssuedBefore(user.getUsername(), issuedAt.plusMillis(500));
+        assertTrue(tokenRevocationService.isRevoked(token), "Token issued in the cutoff second is revoked");
+    }
+
+    @Test
+    void testPasswordChangeRevokesIssuedTokens() throws Exception {
+        String token = jwtConfig.generateToken(user.getId(), user.getUsername(), "USER");
+        assertNotNull(authenticate(token));
+        SecurityContextHolder.clearContext();
+
+        user.setPassword(passwordEncoder.encode("newPassword456"));
+        user = userRepository.saveAndFlush(user);
+
+        assertNotNull(user.getTokensValidAfter(), "Password change should record tokens_valid_after");
+        assertNull(authenticate(token), "Token issued before the password change should not authenticate");
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,132 @@
+package com.finance.finance.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs {@link StatementImportService#MERGE_SQL} against a real PostgreSQL:
+ * ids are taken from cash_flows_seq in blocks compatible with Hibernate's
+ * pooled optimizer, and a repeated import inserts nothing, also once the
+ * first import has been archived. Skipped unless a database is given, e.g.
+ * {@code mvn test -Dtest=StatementImportMergeTest -Dfinance.bench.postgres.url=jdbc:postgresql://localhost:5432/finance_db}.
+ */
+public class StatementImportMergeTest {
+
+    private static final String SCHEMA = "finance_import_merge";
+    private static final int ROWS = 120;
+
+    private static Connection connection;
+    private static JdbcTemplate jdbcTemplate;
+    private static long categoryId;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        String url = System.getProperty("finance.bench.postgres.url");
+        assumeTrue(url != null && !url.isBlank(), "finance.bench.postgres.url not set");
+        String user = System.getProperty("finance.bench.postgres.user", "finance_user");
+        String password = System.getProperty("finance.bench.postgres.password", "finance_password");
+
+        Flyway.configure()
+                .dataSource(url, user, password)
+                .schemas(SCHEMA)
+                .createSchemas(true)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(url, user, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET search_path TO " + SCHEMA + ", public");
+        }
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(connection, true);
+        new CashFlowPartitionManager(new JdbcTemplate(dataSource), new DataSourceTransactionManager(dataSource),
+                new SimpleMeterRegistry(), true, 3, 0).ensurePartitions(YearMonth.of(2024, 1), YearMonth.of(2024, 12));
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        categoryId = jdbcTemplate.queryForObject("INSERT INTO categories (name, type, is_active, created_at) " +
+                "VALUES ('Outros', 'EXPENSE', true, now()) RETURNING id", Long.class);
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        if (connection != null) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+            }
+            connection.close();
+        }
+    }
+
+    @Test
+    void testIdsAreAllocatedInPooledBlocksAndReimportIsSkipped() {
+        long userId = createUser("importer");
+        long before = jdbcTemplate.queryForObject("SELECT nextval('cash_flows_seq')", Long.class);
+
+        assertEquals(ROWS, merge(userId));
+
+        long after = jdbcTemplate.queryForObject("SELECT nextval('cash_flows_seq')", Long.class);
+        long blocks = (ROWS + StatementImportService.ID_BLOCK_SIZE - 1) / StatementImportService.ID_BLOCK_SIZE;
+        assertEquals(before + (blocks + 1) * StatementImportService.ID_BLOCK_SIZE, after,
+                "One nextval per block of rows");
+
+        Map<String, Object> ids = jdbcTemplate.queryForMap("SELECT COUNT(DISTINCT id) AS ids, MIN(id) AS min_id, " +
+                "MAX(id) AS max_id FROM cash_flows WHERE user_id = ?", userId);
+        assertEquals((long) ROWS, ((Number) ids.get("ids")).longValue());
+        assertTrue(((Number) ids.get("min_id")).longValue() > before, ids.toString());
+        // The next block Hibernate would hand out starts above every imported id
+        assertTrue(after - (StatementImportService.ID_BLOCK_SIZE - 1) > ((Number) ids.get("max_id")).longValue(),
+                ids.toString());
+
+        assertEquals(0, merge(userId), "Re-importing the same statement inserts nothing");
+        assertEquals((long) ROWS, jdbcTemplate.queryForObject(
+                "SELECT transaction_count FROM daily_cash_flow_rollup WHERE user_id = ?", Long.class, userId));
+    }
+
+    @Test
+    void testArchivedImportKeysAreNotImportedAgain() {
+        long userId = createUser("archived");
+        assertEquals(ROWS, merge(userId));
+
+        jdbcTemplate.update("INSERT INTO cash_flows_archive (id, description, amount, transaction_date, type, " +
+                "category_id, user_id, notes, is_recurring, recurring_frequency, is_active, import_key, created_at, " +
+                "updated_at, archived_at) SELECT id, description, amount, transaction_date, type, category_id, " +
+                "user_id, notes, is_recurring, recurring_frequency, is_active, import_key, created_at, updated_at, " +
+                "now() FROM cash_flows WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM cash_flows WHERE user_id = ?", userId);
+
+        assertEquals(0, merge(userId), "Rows already in the archive are not imported again");
+    }
+
+    private static long createUser(String username) {
+        return jdbcTemplate.queryForObject("INSERT INTO users (username, email, password, created_at) " +
+                "VALUES (?, ?, 'x', now()) RETURNING id", Long.class, username, username + "@example.com");
+    }
+
+    private long merge(long userId) {
+        UUID importId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO cash_flow_import_staging (import_id, line_no, user_id, transaction_date, " +
+                "amount, type, description) SELECT ?, g, ?, DATE '2024-03-05', 10.00, 'EXPENSE', 'Linha ' || g " +
+                "FROM generate_series(1, " + ROWS + ") g", importId, userId);
+        jdbcTemplate.queryForList(StatementImportService.LOCK_SQL, userId);
+        Map<String, Object> counts = jdbcTemplate.queryForMap(StatementImportService.MERGE_SQL, categoryId, importId);
+        jdbcTemplate.update("DELETE FROM cash_flow_import_staging WHERE import_id = ?", importId);
+        return ((Number) counts.get("imported")).longValue();
+    }
+}
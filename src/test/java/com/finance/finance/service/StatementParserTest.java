@@ -0,0 +1,68 @@
+package com.finance.finance.service;
+
+import com.finance.finance.entity.CashFlow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementParserTest {
+
+    private final List<StatementParser.Line> lines = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+    private StatementParser.Listener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new StatementParser.Listener() {
+            @Override
+            public void onLine(StatementParser.Line line) {
+                lines.add(line);
+            }
+
+            @Override
+            public void onError(int lineNumber, String message) {
+                errors.add(lineNumber + ": " + message);
+            }
+        };
+    }
+
+    @Test
+    void testParsesBrazilianCsv() throws Exception {
+        String csv = "Data;Descrição;Valor;Categoria\n" +
+                "05/03/2024;\"Mercado; bairro\";-1.234,56;Alimentação\n" +
+                "06/03/2024;Salário;5000,00;\n" +
+                "xx;Broken;1,00;\n";
+        StatementParser.parseCsv(new StringReader(csv), listener);
+        assertEquals(2, lines.size());
+        assertEquals(1, errors.size());
+        assertEquals("Mercado; bairro", lines.get(0).description());
+        assertEquals(0, new BigDecimal("1234.56").compareTo(lines.get(0).amount()));
+        assertEquals(CashFlow.CashFlowType.EXPENSE, lines.get(0).type());
+        assertEquals(CashFlow.CashFlowType.INCOME, lines.get(1).type());
+    }
+
+    @Test
+    void testParsesSgmlAndXmlOfxTransactions() throws Exception {
+        String ofx = "OFXHEADER:100\nDATA:OFXSGML\n<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>\n" +
+                "<STMTTRN>\n<TRNTYPE>DEBIT\n<DTPOSTED>20240305120000[-3:BRT]\n<TRNAMT>-42.10\n" +
+                "<FITID>ABC123\n<NAME>PADARIA\n<MEMO>Cafe da manha\n</STMTTRN>\n" +
+                "<STMTTRN><TRNTYPE>CREDIT</TRNTYPE><DTPOSTED>20240306</DTPOSTED><TRNAMT>100.00</TRNAMT>" +
+                "<FITID>DEF456</FITID><NAME>PIX RECEBIDO</NAME></STMTTRN>\n" +
+                "</BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>";
+        StatementParser.parseOfx(new StringReader(ofx), listener);
+        assertEquals(2, lines.size());
+        assertEquals(LocalDate.of(2024, 3, 5), lines.get(0).transactionDate());
+        assertEquals("ABC123", lines.get(0).externalId());
+        assertEquals("Cafe da manha", lines.get(0).notes());
+        assertEquals(CashFlow.CashFlowType.EXPENSE, lines.get(0).type());
+        assertEquals("PIX RECEBIDO", lines.get(1).description());
+        assertEquals(CashFlow.CashFlowType.INCOME, lines.get(1).type());
+    }
+}
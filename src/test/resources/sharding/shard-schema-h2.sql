@@ -0,0 +1,84 @@
+-- Schema of an extra H2 shard for ShardingIntegrationTest: the user-scoped tables of the
+-- Flyway migrations (V1, V5, V11, V12) without the PostgreSQL-only parts. The home shard gets its
+-- schema from Hibernate (create-drop) as in every other test.
+
+CREATE TABLE users (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username varchar(255) NOT NULL UNIQUE,
+    email varchar(255) NOT NULL UNIQUE,
+    password varchar(255) NOT NULL,
+    whatsapp varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    is_active boolean,
+    enabled boolean,
+    roles varchar(255),
+    tokens_valid_after timestamp(6) with time zone,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6)
+);
+
+CREATE TABLE categories (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name varchar(100) NOT NULL,
+    description varchar(500),
+    type varchar(255) NOT NULL,
+    is_active boolean,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6)
+);
+
+CREATE SEQUENCE cash_flows_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE cash_flows (
+    id bigint PRIMARY KEY,
+    description varchar(200) NOT NULL,
+    amount numeric(15,2) NOT NULL,
+    transaction_date date NOT NULL,
+    type varchar(255) NOT NULL,
+    category_id bigint NOT NULL REFERENCES categories (id),
+    user_id bigint NOT NULL REFERENCES users (id),
+    notes varchar(500),
+    is_recurring boolean,
+    recurring_frequency varchar(255),
+    is_active boolean,
+    import_key varchar(255),
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6),
+    change_seq bigint
+);
+
+CREATE TABLE daily_cash_flow_rollup (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL REFERENCES users (id),
+    rollup_date date NOT NULL,
+    type varchar(255) NOT NULL,
+    category_id bigint NOT NULL REFERENCES categories (id),
+    total_amount numeric(19,2) NOT NULL,
+    transaction_count bigint NOT NULL,
+    CONSTRAINT uk_daily_rollup_user_date_type_category UNIQUE (user_id, rollup_date, type, category_id)
+);
+
+CREATE TABLE cash_flows_archive (
+    id bigint PRIMARY KEY,
+    description varchar(200) NOT NULL,
+    amount numeric(15,2) NOT NULL,
+    transaction_date date NOT NULL,
+    type varchar(255) NOT NULL,
+    category_id bigint NOT NULL REFERENCES categories (id),
+    user_id bigint NOT NULL REFERENCES users (id),
+    notes varchar(500),
+    is_recurring boolean,
+    recurring_frequency varchar(255),
+    is_active boolean,
+    import_key varchar(255),
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6),
+    archived_at timestamp(6) NOT NULL,
+    change_seq bigint
+);
+
+CREATE TABLE cash_flow_versions (
+    user_id bigint PRIMARY KEY,
+    version bigint NOT NULL
+);